@@ -0,0 +1,65 @@
+package com.csvcharts.benchmark;
+
+import com.csvcharts.model.CSVData;
+import com.csvcharts.model.ChartType;
+import com.csvcharts.util.CSVFileReader;
+import com.csvcharts.util.ChartDataCollector;
+import com.csvcharts.util.ChartGenerator;
+import org.jfree.chart.JFreeChart;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Montagem do dataset e desenho do gráfico, medidos separadamente, e o
+ * gráfico inteiro (dataset, desenho e PNG) como no modo em lote
+ *
+ * BAR e PIE usam a coluna Cidade como categoria; LINE e SCATTER usam Id.
+ * Com {@code -prof gc}, {@code encodeChart} mostra a alocação por gráfico.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ChartBenchmark {
+
+    @Param({"BAR", "LINE", "PIE", "SCATTER"})
+    public ChartType chartType;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private ChartGenerator chartGenerator;
+    private CSVData csvData;
+    private String xColumn;
+    private JFreeChart chart;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        chartGenerator = new ChartGenerator();
+        csvData = new CSVFileReader().readCSV(SyntheticCsv.get(SyntheticCsv.Profile.NUMERIC_4, rows).toString());
+        xColumn = chartType == ChartType.BAR || chartType == ChartType.PIE ? "Cidade" : "Id";
+        chart = buildDataset();
+    }
+
+    @Benchmark
+    public JFreeChart buildDataset() {
+        ChartDataCollector collector = chartGenerator.newCollector(chartType, xColumn, "Valor");
+        collector.acceptAll(csvData.getColumn(xColumn), csvData.getColumn("Valor"), csvData.getRowCount());
+        collector.onEnd();
+        return collector.createChart();
+    }
+
+    @Benchmark
+    public BufferedImage render() {
+        return chart.createBufferedImage(chartGenerator.getWidth(), chartGenerator.getHeight());
+    }
+
+    @Benchmark
+    public byte[] encodeChart() throws Exception {
+        return chartGenerator.encodeChart(csvData, chartType, xColumn, "Valor");
+    }
+}
@@ -0,0 +1,92 @@
+package com.csvcharts.benchmark;
+
+import com.csvcharts.model.CSVData;
+import com.csvcharts.model.ChartType;
+import com.csvcharts.model.ImageFormat;
+import com.csvcharts.util.CSVFileReader;
+import com.csvcharts.util.ChartDataCollector;
+import com.csvcharts.util.ChartGenerator;
+import com.csvcharts.util.ChartImageWriter;
+import com.csvcharts.util.PngImageWriter;
+import org.jfree.chart.ChartUtils;
+import org.jfree.chart.JFreeChart;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gravação da imagem: desenho mais codificação em cada formato, e só a
+ * codificação do PNG sobre uma imagem já desenhada
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ImageWriterBenchmark {
+
+    private static JFreeChart sampleChart() throws Exception {
+        CSVData csvData = new CSVFileReader()
+                .readCSV(SyntheticCsv.get(SyntheticCsv.Profile.NUMERIC_4, 100_000).toString());
+        ChartDataCollector collector = new ChartGenerator().newCollector(ChartType.LINE, "Id", "Valor");
+        collector.acceptAll(csvData.getColumn("Id"), csvData.getColumn("Valor"), csvData.getRowCount());
+        collector.onEnd();
+        return collector.createChart();
+    }
+
+    @State(Scope.Benchmark)
+    public static class WriterState {
+        /**
+         * PNG é o gravador do JFreeChart; PNG-n é o PngImageWriter com compressão n
+         */
+        @Param({"PNG", "PNG-1", "PNG-6", "PNG-9", "JPEG", "SVG"})
+        public String writer;
+
+        ChartImageWriter imageWriter;
+        JFreeChart chart;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            int dash = writer.indexOf('-');
+            imageWriter = dash < 0
+                    ? ChartImageWriter.create(ImageFormat.valueOf(writer), ChartImageWriter.DEFAULT_PNG_COMPRESSION)
+                    : ChartImageWriter.create(ImageFormat.PNG, Integer.parseInt(writer.substring(dash + 1)));
+            chart = sampleChart();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EncodeState {
+        /**
+         * -1 é o ChartUtils.encodeAsPNG do JFreeChart
+         */
+        @Param({"-1", "1", "6", "9"})
+        public int level;
+
+        PngImageWriter pngWriter;
+        BufferedImage image;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            pngWriter = level < 0 ? null : new PngImageWriter(level);
+            image = sampleChart().createBufferedImage(800, 600);
+        }
+    }
+
+    @Benchmark
+    public void drawAndEncode(WriterState state) throws IOException {
+        state.imageWriter.write(state.chart, 800, 600, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public Object encodePng(EncodeState state) throws IOException {
+        if (state.pngWriter == null) {
+            return ChartUtils.encodeAsPNG(state.image);
+        }
+        state.pngWriter.write(state.image, OutputStream.nullOutputStream());
+        return state;
+    }
+}
@@ -0,0 +1,161 @@
+package com.csvcharts.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.csvcharts.util.CSVFileReader;
+import com.csvcharts.util.CSVRecord;
+import com.csvcharts.util.CSVRowHandler;
+import com.csvcharts.util.NumberParser;
+import com.csvcharts.util.ReaderBackend;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do log na leitura de um arquivo sujo (perfil DIRTY_4, cerca de 3%
+ * de valores não numéricos na coluna Valor)
+ *
+ * {@code perValueWarnings} registra um WARN por valor não numérico;
+ * {@code summary} faz a mesma leitura, mas só conta os valores e registra
+ * um resumo no fim, como os coletores. Os dois são medidos com o log
+ * gravado em arquivo de forma síncrona e pela fila assíncrona limitada do
+ * logback.xml distribuído (que descarta eventos em vez de bloquear).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class LoggingBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(LoggingBenchmark.class);
+
+    public enum LogMode {
+        SYNC, ASYNC
+    }
+
+    @Param({"SYNC", "ASYNC"})
+    public LogMode appender;
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private CSVFileReader csvReader;
+    private String filePath;
+    private Path logFile;
+    private LoggerContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        csvReader = new CSVFileReader();
+        csvReader.setBackend(ReaderBackend.MAPPED);
+        filePath = SyntheticCsv.get(SyntheticCsv.Profile.DIRTY_4, rows).toString();
+        logFile = Files.createTempFile("csv-charts-bench", ".log");
+        configureLogging();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.stop();
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public long perValueWarnings() throws Exception {
+        return csvReader.streamCSV(filePath, new NumericCheck(true));
+    }
+
+    @Benchmark
+    public long summary() throws Exception {
+        return csvReader.streamCSV(filePath, new NumericCheck(false));
+    }
+
+    /**
+     * Converte a coluna Valor; os valores não numéricos geram um WARN cada
+     * ou são só contados, com um resumo no fim
+     */
+    private static final class NumericCheck implements CSVRowHandler {
+        private final boolean warnEachValue;
+        private final NumberParser parser = new NumberParser();
+        private int field;
+        private long rejected;
+        private String firstSample;
+
+        NumericCheck(boolean warnEachValue) {
+            this.warnEachValue = warnEachValue;
+        }
+
+        @Override
+        public void onHeader(List<String> headers) {
+            field = headers.indexOf("Valor");
+        }
+
+        @Override
+        public void onRow(String[] row) {
+        }
+
+        @Override
+        public void onRecord(CSVRecord record) {
+            if (field >= record.size() || record.isEmpty(field) || record.parseNumber(field, parser)) {
+                return;
+            }
+            if (warnEachValue) {
+                logger.warn("Valor não numérico na coluna 'Valor': '{}'", record.getString(field));
+            } else if (rejected++ == 0) {
+                firstSample = record.getString(field);
+            }
+        }
+
+        @Override
+        public void onEnd() {
+            if (rejected > 0) {
+                logger.warn("Coluna 'Valor': {} valores não numéricos ignorados; exemplos: '{}'",
+                        rejected, firstSample);
+            }
+        }
+    }
+
+    /**
+     * Substitui a configuração do logback por um arquivo temporário, direto ou atrás da fila assíncrona
+     */
+    private void configureLogging() {
+        context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile(logFile.toString());
+        file.setEncoder(encoder);
+        file.start();
+
+        Appender<ILoggingEvent> appender = file;
+        if (this.appender == LogMode.ASYNC) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setDiscardingThreshold(1638);
+            async.setNeverBlock(true);
+            async.addAppender(file);
+            async.start();
+            appender = async;
+        }
+
+        ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(ch.qos.logback.classic.Level.INFO);
+        root.addAppender(appender);
+    }
+}
@@ -0,0 +1,72 @@
+package com.csvcharts.benchmark;
+
+import com.csvcharts.model.ChartType;
+import com.csvcharts.util.CSVFileReader;
+import com.csvcharts.util.ChartDataCollector;
+import com.csvcharts.util.ChartGenerator;
+import com.csvcharts.util.ReaderBackend;
+import org.jfree.chart.JFreeChart;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gráfico com várias colunas Y: uma única leitura do arquivo montando todas
+ * as séries, comparada a uma leitura por série
+ *
+ * Lê em streaming (leitor mapeado) o perfil NUMERIC_16, com Id como X nas
+ * linhas e dispersões e Cidade nas barras.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class MultiSeriesBenchmark {
+    private static final List<String> Y_COLUMNS = List.of(
+            "Valor", "Numero4", "Numero5", "Numero6", "Numero8", "Numero9", "Numero10", "Numero12");
+
+    @Param({"BAR", "LINE", "SCATTER"})
+    public ChartType chartType;
+
+    @Param({"1", "4", "8"})
+    public int series;
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private ChartGenerator chartGenerator;
+    private CSVFileReader csvReader;
+    private String filePath;
+    private String xColumn;
+    private List<String> yColumns;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        chartGenerator = new ChartGenerator();
+        csvReader = new CSVFileReader();
+        csvReader.setBackend(ReaderBackend.MAPPED);
+        filePath = SyntheticCsv.get(SyntheticCsv.Profile.NUMERIC_16, rows).toString();
+        xColumn = chartType == ChartType.BAR ? "Cidade" : "Id";
+        yColumns = Y_COLUMNS.subList(0, series);
+    }
+
+    @Benchmark
+    public JFreeChart singlePass() throws Exception {
+        ChartDataCollector collector = chartGenerator.newCollector(chartType, xColumn, yColumns);
+        csvReader.streamCSV(filePath, collector);
+        return collector.createChart();
+    }
+
+    @Benchmark
+    public void passPerSeries(Blackhole blackhole) throws Exception {
+        for (String yColumn : yColumns) {
+            ChartDataCollector collector = chartGenerator.newCollector(chartType, xColumn, yColumn);
+            csvReader.streamCSV(filePath, collector);
+            blackhole.consume(collector.createChart());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.csvcharts.benchmark;
+
+import com.csvcharts.model.CSVData;
+import com.csvcharts.util.CSVFileReader;
+import com.csvcharts.util.ReaderBackend;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leitura do CSV: cada backend do CSVFileReader, o mesmo arquivo compactado
+ * em .csv.gz e a extração de uma coluna
+ *
+ * Para medir com 10 milhões de linhas: {@code -p rows=10000000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"NUMERIC_4", "STRING_4", "NUMERIC_16", "STRING_16", "DIRTY_4"})
+    public SyntheticCsv.Profile profile;
+
+    private String filePath;
+    private String compressedPath;
+    private CSVFileReader openCsvReader;
+    private CSVFileReader mappedReader;
+    private CSVFileReader parallelReader;
+    private CSVData loaded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        filePath = SyntheticCsv.get(profile, rows).toString();
+        compressedPath = SyntheticCsv.getCompressed(profile, rows).toString();
+
+        openCsvReader = new CSVFileReader();
+        openCsvReader.setBackend(ReaderBackend.OPENCSV);
+
+        mappedReader = new CSVFileReader();
+        mappedReader.setBackend(ReaderBackend.MAPPED);
+
+        parallelReader = new CSVFileReader();
+        parallelReader.setBackend(ReaderBackend.MAPPED);
+        parallelReader.setParallelism(Runtime.getRuntime().availableProcessors());
+        parallelReader.setParallelThreshold(0);
+
+        loaded = mappedReader.readCSV(filePath);
+    }
+
+    @Benchmark
+    public CSVData readCSV() throws Exception {
+        return openCsvReader.readCSV(filePath);
+    }
+
+    @Benchmark
+    public CSVData readCSVMapped() throws Exception {
+        return mappedReader.readCSV(filePath);
+    }
+
+    @Benchmark
+    public CSVData readCSVParallel() throws Exception {
+        return parallelReader.readCSV(filePath);
+    }
+
+    @Benchmark
+    public CSVData readCSVGzip() throws Exception {
+        return openCsvReader.readCSV(compressedPath);
+    }
+
+    @Benchmark
+    public CSVData readCSVGzipMapped() throws Exception {
+        return mappedReader.readCSV(compressedPath);
+    }
+
+    @Benchmark
+    public void getColumnValues(Blackhole blackhole) {
+        List<String> values = loaded.getColumnValues("Valor");
+        for (int i = 0, n = values.size(); i < n; i++) {
+            blackhole.consume(values.get(i));
+        }
+    }
+}
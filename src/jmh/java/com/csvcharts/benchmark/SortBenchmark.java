@@ -0,0 +1,58 @@
+package com.csvcharts.benchmark;
+
+import com.csvcharts.model.ChartType;
+import com.csvcharts.util.CSVFileReader;
+import com.csvcharts.util.ChartDataCollector;
+import com.csvcharts.util.ChartGenerator;
+import com.csvcharts.util.ReaderBackend;
+import org.jfree.chart.JFreeChart;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gráfico de linha e dispersão sobre um X fora de ordem (Valor, sorteado
+ * em cada linha): na ordem do arquivo, ordenado em memória e ordenado com
+ * pouca memória, em partes gravadas em disco
+ *
+ * Lê em streaming (leitor mapeado) o perfil NUMERIC_16, com Numero4 como Y.
+ * sortMemoryMb = 0 desliga a ordenação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class SortBenchmark {
+
+    @Param({"LINE", "SCATTER"})
+    public ChartType chartType;
+
+    @Param({"0", "256", "4"})
+    public int sortMemoryMb;
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private ChartGenerator chartGenerator;
+    private CSVFileReader csvReader;
+    private String filePath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        chartGenerator = new ChartGenerator();
+        chartGenerator.setSorting(sortMemoryMb * 1024L * 1024L);
+        csvReader = new CSVFileReader();
+        csvReader.setBackend(ReaderBackend.MAPPED);
+        filePath = SyntheticCsv.get(SyntheticCsv.Profile.NUMERIC_16, rows).toString();
+    }
+
+    @Benchmark
+    public JFreeChart streamAndSort() throws Exception {
+        try (ChartDataCollector collector = chartGenerator.newCollector(chartType, "Valor", "Numero4")) {
+            csvReader.streamCSV(filePath, collector);
+            return collector.createChart();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.csvcharts.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gera arquivos CSV sintéticos para os benchmarks
+ *
+ * Todos os perfis têm as colunas Id (sequencial), Cidade (50 valores) e
+ * Valor (número), usadas pelos gráficos; as demais colunas são numéricas ou
+ * de texto conforme o perfil. Os arquivos são determinísticos (semente fixa)
+ * e ficam guardados em um diretório temporário, de modo que cada combinação
+ * de perfil e número de linhas só é gerada uma vez.
+ *
+ * Também pode ser executado diretamente:
+ * {@code java -cp target/benchmarks.jar com.csvcharts.benchmark.SyntheticCsv saida.csv 1000000 numeric_16}
+ */
+public final class SyntheticCsv {
+    private static final long SEED = 20240601L;
+    private static final String[] CITIES = new String[50];
+    private static final String[] DIRTY_VALUES = {"", "n/a", "\"1.234,5\"", "  42  ", "1e3", "-", "\"texto, com vírgula\""};
+
+    static {
+        String[] base = {"São Paulo", "Rio de Janeiro", "Belo Horizonte", "Salvador", "Brasília",
+                "Curitiba", "Manaus", "Recife", "Porto Alegre", "Fortaleza"};
+        for (int i = 0; i < CITIES.length; i++) {
+            CITIES[i] = i < base.length ? base[i] : base[i % base.length] + " " + (i / base.length);
+        }
+    }
+
+    /**
+     * Perfis de dados: número de colunas, peso das colunas de texto e proporção de células sujas
+     */
+    public enum Profile {
+        NUMERIC_4(4, false, 0),
+        STRING_4(4, true, 0),
+        NUMERIC_16(16, false, 0),
+        STRING_16(16, true, 0),
+        DIRTY_4(4, false, 0.05);
+
+        private final int columns;
+        private final boolean stringHeavy;
+        private final double dirtyRatio;
+
+        Profile(int columns, boolean stringHeavy, double dirtyRatio) {
+            this.columns = columns;
+            this.stringHeavy = stringHeavy;
+            this.dirtyRatio = dirtyRatio;
+        }
+    }
+
+    private SyntheticCsv() {
+    }
+
+    /**
+     * Retorna o arquivo do perfil com o número de linhas, gerando-o se ainda não existir
+     */
+    public static Path get(Profile profile, int rows) throws IOException {
+        Path directory = Paths.get(System.getProperty("java.io.tmpdir"), "csv-charts-bench");
+        Files.createDirectories(directory);
+        Path file = directory.resolve(profile.name().toLowerCase() + "_" + rows + ".csv");
+        if (!Files.exists(file)) {
+            Path temp = Files.createTempFile(directory, profile.name().toLowerCase(), ".tmp");
+            generate(temp, rows, profile);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return file;
+    }
+
+    /**
+     * Retorna a versão .csv.gz do arquivo do perfil, compactando-o se ainda não existir
+     */
+    public static Path getCompressed(Profile profile, int rows) throws IOException {
+        Path file = get(profile, rows);
+        Path compressed = file.resolveSibling(file.getFileName() + ".gz");
+        if (!Files.exists(compressed)) {
+            Path temp = Files.createTempFile(file.getParent(), profile.name().toLowerCase(), ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+                Files.copy(file, out);
+            }
+            Files.move(temp, compressed, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return compressed;
+    }
+
+    /**
+     * Grava o arquivo com as linhas do perfil
+     */
+    public static void generate(Path file, int rows, Profile profile) throws IOException {
+        SplittableRandom random = new SplittableRandom(SEED);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            StringBuilder line = new StringBuilder("Id,Cidade,Valor");
+            for (int c = 3; c < profile.columns; c++) {
+                line.append(',').append(isStringColumn(profile, c) ? "Texto" : "Numero").append(c);
+            }
+            writer.write(line.append('\n').toString());
+
+            for (int row = 0; row < rows; row++) {
+                line.setLength(0);
+                line.append(row);
+                line.append(',').append(cell(profile, random, CITIES[random.nextInt(CITIES.length)]));
+                line.append(',').append(cell(profile, random, String.valueOf(random.nextInt(1_000_000))));
+                for (int c = 3; c < profile.columns; c++) {
+                    String value = isStringColumn(profile, c)
+                            ? "cod" + random.nextInt(c % 2 == 0 ? 1000 : 100_000)
+                            : formatDecimal(random.nextDouble() * 1000);
+                    line.append(',').append(cell(profile, random, value));
+                }
+                writer.write(line.append('\n').toString());
+            }
+        }
+    }
+
+    private static boolean isStringColumn(Profile profile, int column) {
+        // Perfis de texto: todas as colunas extras são texto; numéricos: uma a cada quatro
+        return profile.stringHeavy || column % 4 == 3;
+    }
+
+    private static String cell(Profile profile, SplittableRandom random, String value) {
+        if (profile.dirtyRatio > 0 && random.nextDouble() < profile.dirtyRatio) {
+            return DIRTY_VALUES[random.nextInt(DIRTY_VALUES.length)];
+        }
+        return value;
+    }
+
+    private static String formatDecimal(double value) {
+        return String.valueOf(Math.round(value * 100) / 100.0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Uso: SyntheticCsv <arquivo_saida> <linhas> [perfil]");
+            System.out.println("Perfis: numeric_4 (padrão), string_4, numeric_16, string_16, dirty_4");
+            return;
+        }
+        Profile profile = args.length > 2 ? Profile.valueOf(args[2].toUpperCase()) : Profile.NUMERIC_4;
+        generate(Paths.get(args[0]), Integer.parseInt(args[1]), profile);
+    }
+}
@@ -1,12 +1,34 @@
 package com.csvcharts;
 
+import com.csvcharts.server.ChartServer;
 import com.csvcharts.service.CSVChartService;
+import com.csvcharts.service.DirectoryChartService;
+import com.csvcharts.model.AggregationFunction;
+import com.csvcharts.model.ChartJob;
 import com.csvcharts.model.ChartType;
+import com.csvcharts.model.DownsamplingMethod;
+import com.csvcharts.model.ImageFormat;
+import com.csvcharts.model.TimeBucket;
+import com.csvcharts.util.CSVDataCache;
+import com.csvcharts.util.CSVFileReader;
+import com.csvcharts.util.ChartImageCache;
+import com.csvcharts.util.ChartImageWriter;
+import com.csvcharts.util.ChartMetrics;
+import com.csvcharts.util.ReaderBackend;
+import com.csvcharts.util.ChartGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -15,6 +37,24 @@ import java.util.Scanner;
 public class Main {
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
 
+    /** Cache de dados padrão do modo servidor, em MB */
+    private static final long DEFAULT_SERVER_CACHE_MB = 256;
+
+    /** Cache de gráficos em memória padrão do modo servidor, em MB */
+    private static final long DEFAULT_SERVER_IMAGE_CACHE_MB = 64;
+
+    /** Limite padrão do cache de gráficos em disco, em MB */
+    private static final long DEFAULT_DISK_IMAGE_CACHE_MB = 1024;
+
+    /** Memória padrão da ordenação por X (--ordenar), em MB */
+    private static final long DEFAULT_SORT_MEMORY_MB = 256;
+
+    /** Intervalo padrão do modo --seguir, em segundos */
+    private static final long DEFAULT_FOLLOW_INTERVAL_SECONDS = 60;
+
+    /** Métricas compartilhadas pelo leitor e pelo gerador (--metricas) */
+    private static ChartMetrics metrics = ChartMetrics.DISABLED;
+
     public static void main(String[] args) {
         logger.info("=== CSV Charts Generator ===");
         logger.info("Versão: 1.0.0");
@@ -30,28 +70,327 @@ public class Main {
     }
 
     private static void processCommandLine(String[] args) {
-        if (args.length < 2) {
-            System.out.println("Uso: java -jar csv-charts.jar <arquivo_csv> <tipo_grafico> [coluna_x] [coluna_y]");
-            System.out.println("Tipos de gráfico disponíveis: BAR, LINE, PIE, SCATTER");
+        List<String> positional = new ArrayList<>();
+        Map<String, String> options = new HashMap<>();
+        parseArguments(args, positional, options);
+        enableMetrics(options);
+
+        if (options.containsKey("lote")) {
+            processBatch(options);
+            return;
+        }
+        if (options.containsKey("servidor")) {
+            runServer(options);
+            return;
+        }
+        if (options.containsKey("diretorio")) {
+            processDirectory(positional, options);
+            return;
+        }
+
+        if (positional.size() < 2) {
+            printUsage();
             System.exit(1);
         }
 
-        String csvFile = args[0];
-        String chartTypeStr = args[1];
-        String xColumn = args.length > 2 ? args[2] : null;
-        String yColumn = args.length > 3 ? args[3] : null;
+        String csvFile = positional.get(0);
+        String chartTypeStr = positional.get(1);
+        String xColumn = positional.size() > 2 ? positional.get(2) : null;
+        String yColumn = positional.size() > 3 ? positional.get(3) : null;
 
         try {
             ChartType chartType = ChartType.valueOf(chartTypeStr.toUpperCase());
-            CSVChartService service = new CSVChartService();
+            CSVChartService service = createService(options);
+            if (options.containsKey("seguir")) {
+                service.followChart(csvFile, chartType, xColumn, yColumn, followIntervalMillis(options));
+                return;
+            }
             service.generateChart(csvFile, chartType, xColumn, yColumn);
             logger.info("Gráfico gerado com sucesso!");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             logger.error("Erro ao processar arquivo: {}", e.getMessage());
             System.exit(1);
         }
     }
 
+    /**
+     * Modo em lote: gera todos os gráficos descritos no arquivo de lote
+     */
+    private static void processBatch(Map<String, String> options) {
+        try {
+            List<ChartJob> jobs = ChartJob.readSpec(Paths.get(options.get("lote")));
+            CSVChartService service = createService(options);
+            int failures = service.generateCharts(jobs, renderThreads(options));
+            if (failures > 0) {
+                System.exit(1);
+            }
+        } catch (Exception e) {
+            logger.error("Erro ao processar lote: {}", e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Modo diretório: gera o mesmo gráfico para todos os CSVs de um diretório
+     */
+    private static void processDirectory(List<String> positional, Map<String, String> options) {
+        if (positional.isEmpty()) {
+            printUsage();
+            System.exit(1);
+        }
+
+        try {
+            ChartType chartType = ChartType.valueOf(positional.get(0).toUpperCase());
+            String xColumn = positional.size() > 1 ? positional.get(1) : null;
+            String yColumn = positional.size() > 2 ? positional.get(2) : null;
+
+            DirectoryChartService service = new DirectoryChartService(
+                    createReader(options), createGenerator(options), renderThreads(options));
+            int failures = service.generateCharts(Paths.get(options.get("diretorio")),
+                    options.getOrDefault("padrao", "*.csv"), chartType, xColumn, yColumn);
+            if (failures > 0) {
+                System.exit(1);
+            }
+        } catch (Exception e) {
+            logger.error("Erro ao processar diretório: {}", e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Modo servidor: atende requisições HTTP até o processo ser encerrado
+     */
+    private static void runServer(Map<String, String> options) {
+        try {
+            int port = Integer.parseInt(options.get("servidor"));
+            Path root = Paths.get(options.getOrDefault("raiz", "."));
+            options.putIfAbsent("cache-dados", String.valueOf(DEFAULT_SERVER_CACHE_MB));
+            options.putIfAbsent("cache-graficos", String.valueOf(DEFAULT_SERVER_IMAGE_CACHE_MB));
+            InetAddress address = options.containsKey("endereco")
+                    ? InetAddress.getByName(options.get("endereco")) : InetAddress.getLoopbackAddress();
+            ChartServer server = new ChartServer(createService(options), address, port, root, renderThreads(options));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+            server.start();
+            String host = address.isLoopbackAddress() || address.isAnyLocalAddress()
+                    ? "localhost" : server.getAddress().getHostAddress();
+            System.out.println("Servidor de gráficos em http://" + host + ":" + server.getPort() + "/grafico");
+        } catch (Exception e) {
+            logger.error("Erro ao iniciar servidor: {}", e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("Uso: java -jar csv-charts.jar <arquivo_csv> <tipo_grafico> [coluna_x] [coluna_y] [opções]");
+        System.out.println("     java -jar csv-charts.jar --lote=<arquivo_lote> [opções]");
+        System.out.println("     java -jar csv-charts.jar --servidor=<porta> [--endereco=<ip>] [--raiz=<diretório>] [opções]");
+        System.out.println("     java -jar csv-charts.jar --diretorio=<diretório> <tipo_grafico> [coluna_x] [coluna_y] [opções]");
+        System.out.println("Tipos de gráfico disponíveis: BAR, LINE, PIE, SCATTER");
+        System.out.println("Em BAR, LINE e SCATTER, coluna_y aceita várias colunas separadas por vírgula (uma série cada)");
+        System.out.println("Opções:");
+        System.out.println("  --paralelismo=N   Lê arquivos grandes em paralelo com N threads (0 = número de núcleos)");
+        System.out.println("  --leitor=TIPO     Implementação da leitura: OPENCSV (padrão) ou MAPPED");
+        System.out.println("  --colunar         Grava ao lado de cada CSV uma cópia binária (.colunar), carregada nas");
+        System.out.println("                    execuções seguintes no lugar do texto enquanto o CSV não mudar");
+        System.out.println("  --lote=ARQUIVO    Gera os gráficos listados no arquivo, uma linha por gráfico:");
+        System.out.println("                    arquivo_csv;TIPO;coluna_x;coluna_y[;arquivo_saida]");
+        System.out.println("  --diretorio=DIR   Gera o gráfico para cada arquivo do diretório");
+        System.out.println("  --padrao=GLOB     Padrão dos arquivos no modo diretório (padrão: *.csv)");
+        System.out.println("  --servidor=PORTA  Atende POST/GET /grafico?tipo=BAR&x=..&y=.. e devolve o PNG");
+        System.out.println("  --endereco=IP     Endereço em que o servidor escuta (padrão: 127.0.0.1; 0.0.0.0 = todas as");
+        System.out.println("                    interfaces, acessível por outras máquinas)");
+        System.out.println("  --raiz=DIR        Diretório base do parâmetro 'arquivo' no modo servidor (padrão: atual)");
+        System.out.println("  --cache-dados=MB  Mantém em memória até MB de arquivos já lidos (padrão: 0, ou "
+                + DEFAULT_SERVER_CACHE_MB + " no modo servidor)");
+        System.out.println("  --cache-graficos=MB  Mantém em memória até MB de gráficos já gerados (padrão: 0, ou "
+                + DEFAULT_SERVER_IMAGE_CACHE_MB + " no modo servidor)");
+        System.out.println("  --cache-graficos-dir=DIR  Guarda também em disco os gráficos gerados");
+        System.out.println("  --cache-graficos-disco=MB  Limite do cache de gráficos em disco (padrão: "
+                + DEFAULT_DISK_IMAGE_CACHE_MB + ")");
+        System.out.println("  --largura=N, --altura=N  Tamanho da imagem em pixels (padrão: 800x600)");
+        System.out.println("  --threads-graficos=N  Threads usadas para desenhar os gráficos (padrão: número de núcleos)");
+        System.out.println("  --reducao=METODO  Redução de pontos em LINE e SCATTER: LTTB (padrão), MIN_MAX ou NONE");
+        System.out.println("  --reducao-limite=N  Pontos a partir dos quais a série é reduzida (padrão: 10000); séries");
+        System.out.println("                    com até um ponto por pixel de largura (dois em MIN_MAX) não são reduzidas");
+        System.out.println("  --agregacao=FUNCAO  Combina categorias repetidas em BAR e PIE: LAST (padrão),");
+        System.out.println("                    SUM, COUNT, AVG, MIN ou MAX");
+        System.out.println("  --top=N           Exibe as N maiores categorias e junta as demais em \"Outros\"");
+        System.out.println("  --densidade       Desenha SCATTER como mapa de densidade, com todos os pontos");
+        System.out.println("  --intervalo=TIPO  Agrupa LINE com X de datas em SECOND, MINUTE, HOUR ou DAY, combinando");
+        System.out.println("                    os valores com a --agregacao (padrão: AVG)");
+        System.out.println("  --ordenar[=MB]    Ordena LINE e SCATTER por X (número ou data) antes do desenho, usando até MB");
+        System.out.println("                    de memória (padrão: " + DEFAULT_SORT_MEMORY_MB
+                + ") e arquivos temporários para o restante");
+        System.out.println("  --formato=TIPO    Formato da imagem: PNG (padrão), JPEG ou SVG");
+        System.out.println("  --compressao=N    Grava o PNG com o codificador próprio, compressão de 0 (nenhuma) a 9");
+        System.out.println("  --seguir[=SEGUNDOS]  Acompanha o arquivo e atualiza o gráfico a cada intervalo (padrão: "
+                + DEFAULT_FOLLOW_INTERVAL_SECONDS + "),");
+        System.out.println("                    lendo só as linhas acrescentadas desde a leitura anterior (não pode ser");
+        System.out.println("                    usado com --ordenar)");
+        System.out.println("  --metricas[=ARQUIVO]  Mede cada etapa e, ao final, grava o resumo em JSON no arquivo");
+        System.out.println("                    (ou na saída padrão); as métricas também ficam disponíveis via JMX");
+    }
+
+    /**
+     * Separa os argumentos posicionais das opções no formato --nome=valor
+     */
+    private static void parseArguments(String[] args, List<String> positional, Map<String, String> options) {
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int separator = arg.indexOf('=');
+                if (separator > 0) {
+                    options.put(arg.substring(2, separator), arg.substring(separator + 1));
+                } else {
+                    options.put(arg.substring(2), "true");
+                }
+            } else {
+                positional.add(arg);
+            }
+        }
+    }
+
+    /**
+     * Liga as métricas com --metricas: registra o MBean e grava o resumo em
+     * JSON quando o processo termina, inclusive por System.exit ou Ctrl+C
+     */
+    private static void enableMetrics(Map<String, String> options) {
+        String target = options.get("metricas");
+        if (target == null) {
+            return;
+        }
+
+        ChartMetrics enabled = new ChartMetrics();
+        enabled.registerMBean();
+        metrics = enabled;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> writeMetrics(enabled, target)));
+    }
+
+    private static void writeMetrics(ChartMetrics metrics, String target) {
+        String json = metrics.toJson();
+        if ("true".equals(target)) {
+            System.out.print(json);
+            return;
+        }
+        try {
+            Files.writeString(Paths.get(target), json, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // O logback pode já ter sido encerrado neste ponto
+            System.err.println("Erro ao gravar métricas em " + target + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cria o serviço aplicando as opções de linha de comando
+     */
+    private static CSVChartService createService(Map<String, String> options) throws IOException {
+        CSVFileReader csvReader = createReader(options);
+        CSVChartService service = new CSVChartService(csvReader, createGenerator(options));
+
+        long cacheMegabytes = Long.parseLong(options.getOrDefault("cache-dados", "0"));
+        if (cacheMegabytes > 0) {
+            service.setDataCache(new CSVDataCache(csvReader, cacheMegabytes << 20));
+        }
+
+        long imageCacheMegabytes = Long.parseLong(options.getOrDefault("cache-graficos", "0"));
+        String imageCacheDirectory = options.get("cache-graficos-dir");
+        if (imageCacheDirectory != null) {
+            long diskMegabytes = Long.parseLong(options.getOrDefault("cache-graficos-disco",
+                    String.valueOf(DEFAULT_DISK_IMAGE_CACHE_MB)));
+            service.setImageCache(new ChartImageCache(imageCacheMegabytes << 20,
+                    Paths.get(imageCacheDirectory), diskMegabytes << 20));
+        } else if (imageCacheMegabytes > 0) {
+            service.setImageCache(new ChartImageCache(imageCacheMegabytes << 20));
+        }
+        return service;
+    }
+
+    /**
+     * Cria o gerador de gráficos aplicando o tamanho da imagem
+     */
+    private static ChartGenerator createGenerator(Map<String, String> options) {
+        ChartGenerator chartGenerator = new ChartGenerator();
+        chartGenerator.setMetrics(metrics);
+        if (options.containsKey("largura") || options.containsKey("altura")) {
+            chartGenerator.setSize(
+                    Integer.parseInt(options.getOrDefault("largura", String.valueOf(chartGenerator.getWidth()))),
+                    Integer.parseInt(options.getOrDefault("altura", String.valueOf(chartGenerator.getHeight()))));
+        }
+        if (options.containsKey("reducao") || options.containsKey("reducao-limite")) {
+            chartGenerator.setDownsampling(
+                    DownsamplingMethod.valueOf(options.getOrDefault("reducao",
+                            chartGenerator.getDownsamplingMethod().name()).toUpperCase()),
+                    Integer.parseInt(options.getOrDefault("reducao-limite",
+                            String.valueOf(chartGenerator.getDownsamplingThreshold()))));
+        }
+        if (options.containsKey("agregacao") || options.containsKey("top")) {
+            chartGenerator.setAggregation(
+                    AggregationFunction.valueOf(options.getOrDefault("agregacao",
+                            chartGenerator.getAggregationFunction().name()).toUpperCase()),
+                    Integer.parseInt(options.getOrDefault("top",
+                            String.valueOf(chartGenerator.getAggregationLimit()))));
+        }
+        chartGenerator.setDensityRendering(Boolean.parseBoolean(options.getOrDefault("densidade", "false")));
+        if (options.containsKey("intervalo")) {
+            chartGenerator.setTimeBucket(
+                    TimeBucket.valueOf(options.get("intervalo").toUpperCase()),
+                    AggregationFunction.valueOf(options.getOrDefault("agregacao", "AVG").toUpperCase()));
+        }
+        if (options.containsKey("ordenar")) {
+            String megabytes = options.get("ordenar");
+            chartGenerator.setSorting(("true".equals(megabytes)
+                    ? DEFAULT_SORT_MEMORY_MB
+                    : Long.parseLong(megabytes)) * 1024 * 1024);
+        }
+        if (options.containsKey("formato") || options.containsKey("compressao")) {
+            chartGenerator.setImageWriter(ChartImageWriter.create(
+                    ImageFormat.valueOf(options.getOrDefault("formato", "PNG").toUpperCase()),
+                    Integer.parseInt(options.getOrDefault("compressao",
+                            String.valueOf(ChartImageWriter.DEFAULT_PNG_COMPRESSION)))));
+        }
+        return chartGenerator;
+    }
+
+    /**
+     * Cria o leitor de CSV aplicando as opções de linha de comando
+     */
+    private static CSVFileReader createReader(Map<String, String> options) {
+        CSVFileReader csvReader = new CSVFileReader();
+        csvReader.setMetrics(metrics);
+
+        String parallelism = options.get("paralelismo");
+        if (parallelism != null) {
+            int threads = Integer.parseInt(parallelism);
+            csvReader.setParallelism(threads == 0 ? Runtime.getRuntime().availableProcessors() : threads);
+        }
+
+        csvReader.setColumnarSidecar(Boolean.parseBoolean(options.getOrDefault("colunar", "false")));
+
+        String backend = options.get("leitor");
+        if (backend != null) {
+            csvReader.setBackend(ReaderBackend.valueOf(backend.toUpperCase()));
+        }
+
+        return csvReader;
+    }
+
+    private static long followIntervalMillis(Map<String, String> options) {
+        String seconds = options.get("seguir");
+        if ("true".equals(seconds)) {
+            return DEFAULT_FOLLOW_INTERVAL_SECONDS * 1000;
+        }
+        return Math.max(1, (long) (Double.parseDouble(seconds) * 1000));
+    }
+
+    private static int renderThreads(Map<String, String> options) {
+        String threads = options.get("threads-graficos");
+        if (threads == null) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max(1, Integer.parseInt(threads));
+    }
+
     private static void runInteractiveMode() {
         Scanner scanner = new Scanner(System.in);
         CSVChartService service = new CSVChartService();
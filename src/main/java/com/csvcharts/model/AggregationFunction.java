@@ -0,0 +1,29 @@
+package com.csvcharts.model;
+
+/**
+ * Enum que define como os valores de uma categoria repetida são combinados
+ * nos gráficos de barras e pizza
+ */
+public enum AggregationFunction {
+    LAST("Último valor lido da categoria"),
+    SUM("Soma dos valores"),
+    COUNT("Número de linhas"),
+    AVG("Média dos valores"),
+    MIN("Menor valor"),
+    MAX("Maior valor");
+
+    private final String description;
+
+    AggregationFunction(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return name() + " - " + description;
+    }
+}
@@ -1,38 +1,87 @@
 package com.csvcharts.model;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Classe que representa os dados de um arquivo CSV
+ *
+ * Os dados ficam armazenados por coluna (ver {@link Column}), com um array
+ * tipado por coluna em vez de um mapa por linha.
  */
 public class CSVData {
-    private List<String> headers;
-    private List<Map<String, String>> rows;
+    private final List<String> headers;
+    private final List<Column> columns;
+    private final Map<String, Column> columnsByName;
+    private final int rowCount;
 
-    public CSVData(List<String> headers, List<Map<String, String>> rows) {
+    public CSVData(List<String> headers, List<Column> columns, int rowCount) {
         this.headers = headers;
-        this.rows = rows;
+        this.columns = columns;
+        this.rowCount = rowCount;
+        this.columnsByName = new HashMap<>();
+        for (Column column : columns) {
+            columnsByName.put(column.getName(), column);
+        }
+    }
+
+    public CSVData(List<String> headers, List<Map<String, String>> rows) {
+        this(headers, buildColumns(headers, rows), rows.size());
+    }
+
+    private static List<Column> buildColumns(List<String> headers, List<Map<String, String>> rows) {
+        List<Column> columns = new ArrayList<>();
+        for (String header : headers) {
+            ColumnBuilder builder = new ColumnBuilder(header);
+            for (Map<String, String> row : rows) {
+                builder.append(row.get(header));
+            }
+            columns.add(builder.build());
+        }
+        return columns;
     }
 
     public List<String> getHeaders() {
         return headers;
     }
 
-    public void setHeaders(List<String> headers) {
-        this.headers = headers;
+    public List<Column> getColumns() {
+        return columns;
     }
 
-    public List<Map<String, String>> getRows() {
-        return rows;
+    /**
+     * Retorna a coluna com o nome informado, ou null se ela não existir
+     */
+    public Column getColumn(String columnName) {
+        return columnsByName.get(columnName);
     }
 
-    public void setRows(List<Map<String, String>> rows) {
-        this.rows = rows;
+    /**
+     * Materializa as linhas como mapas coluna → valor. Custoso para arquivos
+     * grandes; prefira {@link #getColumn(String)}.
+     */
+    public List<Map<String, String>> getRows() {
+        List<Map<String, String>> rows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            Map<String, String> row = new HashMap<>();
+            for (Column column : columns) {
+                String value = column.getString(i);
+                if (value != null) {
+                    row.put(column.getName(), value);
+                }
+            }
+            rows.add(row);
+        }
+        return rows;
     }
 
     public int getRowCount() {
-        return rows.size();
+        return rowCount;
     }
 
     public int getColumnCount() {
@@ -40,22 +89,66 @@ public class CSVData {
     }
 
     public String getValue(int rowIndex, String columnName) {
-        if (rowIndex >= 0 && rowIndex < rows.size()) {
-            return rows.get(rowIndex).get(columnName);
+        Column column = columnsByName.get(columnName);
+        if (column != null && rowIndex >= 0 && rowIndex < rowCount) {
+            return column.getString(rowIndex);
         }
         return null;
     }
 
     public List<String> getColumnValues(String columnName) {
-        return rows.stream()
-                .map(row -> row.get(columnName))
-                .toList();
+        Column column = columnsByName.get(columnName);
+        if (column == null) {
+            return Collections.nCopies(rowCount, null);
+        }
+
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                if (index < 0 || index >= rowCount) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return column.getString(index);
+            }
+
+            @Override
+            public int size() {
+                return rowCount;
+            }
+        };
     }
 
     public boolean hasColumn(String columnName) {
         return headers.contains(columnName);
     }
 
+    /**
+     * Visão só com as colunas informadas, na ordem do arquivo; as colunas são
+     * compartilhadas, sem cópia. Nomes inexistentes são ignorados.
+     */
+    public CSVData select(Collection<String> columnNames) {
+        List<String> selectedHeaders = new ArrayList<>(columnNames.size());
+        List<Column> selectedColumns = new ArrayList<>(columnNames.size());
+        for (Column column : columns) {
+            if (columnNames.contains(column.getName())) {
+                selectedHeaders.add(column.getName());
+                selectedColumns.add(column);
+            }
+        }
+        return new CSVData(selectedHeaders, selectedColumns, rowCount);
+    }
+
+    /**
+     * Estimativa do espaço ocupado pelos dados no heap, em bytes
+     */
+    public long estimatedHeapBytes() {
+        long bytes = 0;
+        for (Column column : columns) {
+            bytes += column.estimatedHeapBytes();
+        }
+        return bytes;
+    }
+
     @Override
     public String toString() {
         return "CSVData{" +
@@ -64,4 +157,4 @@ public class CSVData {
                 ", columnCount=" + getColumnCount() +
                 '}';
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,113 @@
+package com.csvcharts.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Um gráfico a ser gerado no modo em lote
+ *
+ * No arquivo de lote, cada linha descreve um gráfico no formato
+ * {@code arquivo_csv;TIPO;coluna_x;coluna_y[;arquivo_saida]}. Linhas vazias e
+ * linhas iniciadas por # são ignoradas; colunas vazias usam o padrão
+ * (primeira e segunda colunas do arquivo).
+ */
+public class ChartJob {
+    private final String csvFilePath;
+    private final ChartType chartType;
+    private final String xColumn;
+    private final String yColumn;
+    private final String outputPath;
+
+    public ChartJob(String csvFilePath, ChartType chartType, String xColumn, String yColumn, String outputPath) {
+        this.csvFilePath = csvFilePath;
+        this.chartType = chartType;
+        this.xColumn = xColumn;
+        this.yColumn = yColumn;
+        this.outputPath = outputPath;
+    }
+
+    public ChartJob(String csvFilePath, ChartType chartType, String xColumn, String yColumn) {
+        this(csvFilePath, chartType, xColumn, yColumn, null);
+    }
+
+    /**
+     * Lê a lista de gráficos de um arquivo de lote
+     *
+     * @param specPath Caminho do arquivo de lote
+     * @return Gráficos na ordem do arquivo
+     * @throws IOException Se houver erro na leitura do arquivo
+     * @throws IllegalArgumentException Se alguma linha estiver em formato inválido
+     */
+    public static List<ChartJob> readSpec(Path specPath) throws IOException {
+        List<ChartJob> jobs = new ArrayList<>();
+        List<String> lines = Files.readAllLines(specPath, StandardCharsets.UTF_8);
+
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] fields = line.split(";", -1);
+            if (fields.length < 2 || fields.length > 5 || fields[0].trim().isEmpty()) {
+                throw new IllegalArgumentException("Linha " + (i + 1) + " do arquivo de lote inválida: " + line);
+            }
+
+            ChartType chartType;
+            try {
+                chartType = ChartType.valueOf(fields[1].trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Linha " + (i + 1) + ": tipo de gráfico inválido: " + fields[1].trim());
+            }
+
+            jobs.add(new ChartJob(
+                fields[0].trim(),
+                chartType,
+                field(fields, 2),
+                field(fields, 3),
+                field(fields, 4)
+            ));
+        }
+        return jobs;
+    }
+
+    private static String field(String[] fields, int index) {
+        if (index >= fields.length || fields[index].trim().isEmpty()) {
+            return null;
+        }
+        return fields[index].trim();
+    }
+
+    public String getCsvFilePath() {
+        return csvFilePath;
+    }
+
+    public ChartType getChartType() {
+        return chartType;
+    }
+
+    public String getXColumn() {
+        return xColumn;
+    }
+
+    public String getYColumn() {
+        return yColumn;
+    }
+
+    /**
+     * Caminho de saída definido no lote, ou null para usar o nome padrão
+     */
+    public String getOutputPath() {
+        return outputPath;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s (X=%s, Y=%s)", csvFilePath, chartType.name(),
+                xColumn != null ? xColumn : "padrão", yColumn != null ? yColumn : "padrão");
+    }
+}
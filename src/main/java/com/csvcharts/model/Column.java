@@ -0,0 +1,53 @@
+package com.csvcharts.model;
+
+/**
+ * Coluna de um arquivo CSV armazenada em formato colunar
+ */
+public abstract class Column {
+    protected final String name;
+    protected final int size;
+
+    protected Column(String name, int size) {
+        this.name = name;
+        this.size = size;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public abstract ColumnType getType();
+
+    /**
+     * Retorna o texto original da célula, ou null se a linha não tinha a coluna
+     */
+    public abstract String getString(int rowIndex);
+
+    /**
+     * Retorna o valor numérico da célula, ou NaN se a célula não é numérica
+     */
+    public abstract double getDouble(int rowIndex);
+
+    /**
+     * Estimativa do espaço ocupado pela coluna no heap, em bytes
+     */
+    public abstract long estimatedHeapBytes();
+
+    protected static long bitmapBytes(int bits) {
+        return 16 + 8L * ((bits + 63) / 64);
+    }
+
+    protected static long stringBytes(String value) {
+        // Cabeçalho do String + array de bytes (compact strings)
+        return 24 + 16 + value.length();
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + getType() + ", " + size + " linhas)";
+    }
+}
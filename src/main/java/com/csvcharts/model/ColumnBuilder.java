@@ -0,0 +1,374 @@
+package com.csvcharts.model;
+
+import com.csvcharts.util.CSVRecord;
+import com.csvcharts.util.NumberParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Monta uma coluna célula a célula, inferindo o tipo durante a leitura
+ *
+ * A coluna começa como numérica. Enquanto for numérica, só o double é
+ * guardado, mais o texto original das células que não batem com a
+ * formatação canônica (ex.: "1.50" ou "+3"). O tipo depende só de os
+ * valores serem números: se os textos não numéricos passarem a dominar a
+ * coluna ela é convertida, sem perda, para uma coluna de texto com
+ * dicionário. Durante a leitura isso só acontece depois de alguns textos
+ * rejeitados; em {@link #build()} a decisão vale para qualquer tamanho, de
+ * modo que uma coluna de rótulos curta também sai como texto.
+ *
+ * O índice do dicionário é uma tabela de endereçamento aberto indexada pelo
+ * hash do texto, o que permite procurar uma célula vinda de um
+ * {@link CSVRecord} sem criar a String quando o valor já é conhecido.
+ */
+public class ColumnBuilder {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MIN_REJECTED_BEFORE_SWITCH = 64;
+
+    private final String name;
+    private int size;
+
+    // Armazenamento numérico
+    private boolean numeric = true;
+    private double[] values = new double[INITIAL_CAPACITY];
+    private BitSet absent = new BitSet();
+    private int[] exceptionRows = new int[16];
+    private String[] exceptionTexts = new String[16];
+    private int exceptionCount;
+    private int nonEmptyCount;
+    private int rejectedCount;
+    private final NumberParser parser = new NumberParser();
+
+    // Armazenamento em dicionário
+    private int[] codes;
+    private BitSet missing;
+    private List<String> dictionary;
+    private int[] dictionaryHashes;
+    private int[] slots;
+
+    public ColumnBuilder(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adiciona a próxima célula da coluna (null quando a linha não tinha a coluna)
+     */
+    public void append(String value) {
+        if (numeric) {
+            appendNumeric(value);
+            size++;
+            if (shouldSwitchToDictionary()) {
+                switchToDictionary();
+            }
+        } else {
+            appendCode(value);
+            size++;
+        }
+    }
+
+    /**
+     * Adiciona a próxima célula a partir de um registro ainda não convertido
+     * em Strings (campo fora do registro equivale a null em {@link #append(String)})
+     */
+    public void append(CSVRecord record, int field) {
+        if (field >= record.size()) {
+            append((String) null);
+            return;
+        }
+        if (numeric) {
+            appendNumeric(record, field);
+            size++;
+            if (shouldSwitchToDictionary()) {
+                switchToDictionary();
+            }
+        } else {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            codes[size] = codeOf(record, field);
+            size++;
+        }
+    }
+
+    /**
+     * Acrescenta todas as células de uma coluna já montada, na ordem, sem
+     * converter os valores de novo. Usado para juntar blocos lidos em paralelo.
+     */
+    public void appendColumn(Column part) {
+        if (numeric && part instanceof NumericColumn numericPart) {
+            appendNumericColumn(numericPart);
+            if (shouldSwitchToDictionary()) {
+                switchToDictionary();
+            }
+        } else if (part instanceof StringColumn stringPart) {
+            if (numeric) {
+                switchToDictionary();
+            }
+            appendStringColumn(stringPart);
+        } else {
+            for (int i = 0; i < part.size(); i++) {
+                append(part.getString(i));
+            }
+        }
+    }
+
+    public Column build() {
+        if (numeric && isMostlyText()) {
+            switchToDictionary();
+        }
+        if (numeric) {
+            return numericColumn();
+        }
+        return new StringColumn(name, size, Arrays.copyOf(codes, size), (BitSet) missing.clone(),
+                dictionary.toArray(new String[0]));
+    }
+
+    private NumericColumn numericColumn() {
+        return new NumericColumn(name, size, Arrays.copyOf(values, size), (BitSet) absent.clone(),
+                    Arrays.copyOf(exceptionRows, exceptionCount),
+                    Arrays.copyOf(exceptionTexts, exceptionCount), exceptionCount, rejectedCount);
+    }
+
+    private boolean shouldSwitchToDictionary() {
+        return rejectedCount > MIN_REJECTED_BEFORE_SWITCH && isMostlyText();
+    }
+
+    /**
+     * Indica se os textos não numéricos são mais de um quarto das células preenchidas
+     */
+    private boolean isMostlyText() {
+        return rejectedCount * 4L > nonEmptyCount;
+    }
+
+    private void appendNumeric(String value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        if (value == null) {
+            absent.set(size);
+            addException(size, null);
+            return;
+        }
+        if (value.isEmpty()) {
+            absent.set(size);
+            return;
+        }
+
+        nonEmptyCount++;
+        if (parser.parse(value)) {
+            values[size] = parser.getValue();
+            if (!parser.isCanonical()) {
+                addException(size, value);
+            }
+        } else {
+            absent.set(size);
+            rejectedCount++;
+            addException(size, value);
+        }
+    }
+
+    private void appendNumeric(CSVRecord record, int field) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        if (record.parseNumber(field, parser)) {
+            nonEmptyCount++;
+            values[size] = parser.getValue();
+            if (!parser.isCanonical()) {
+                addException(size, record.getString(field));
+            }
+        } else if (record.isEmpty(field)) {
+            absent.set(size);
+        } else {
+            nonEmptyCount++;
+            absent.set(size);
+            rejectedCount++;
+            addException(size, record.getString(field));
+        }
+    }
+
+    private void appendNumericColumn(NumericColumn part) {
+        int offset = size;
+        int rows = part.size();
+        if (values.length < offset + rows) {
+            values = Arrays.copyOf(values, Math.max(offset + rows, values.length * 2));
+        }
+        System.arraycopy(part.values(), 0, values, offset, rows);
+
+        BitSet partAbsent = part.absent();
+        for (int row = partAbsent.nextSetBit(0); row >= 0; row = partAbsent.nextSetBit(row + 1)) {
+            absent.set(offset + row);
+        }
+
+        int missingCells = 0;
+        for (int i = 0; i < part.exceptionCount(); i++) {
+            String text = part.exceptionTexts()[i];
+            addException(offset + part.exceptionRows()[i], text);
+            if (text == null) {
+                missingCells++;
+            }
+        }
+
+        int emptyCells = partAbsent.cardinality() - part.getRejectedCount() - missingCells;
+        nonEmptyCount += rows - emptyCells - missingCells;
+        rejectedCount += part.getRejectedCount();
+        size += rows;
+    }
+
+    private void addException(int row, String text) {
+        if (exceptionCount == exceptionRows.length) {
+            exceptionRows = Arrays.copyOf(exceptionRows, exceptionCount * 2);
+            exceptionTexts = Arrays.copyOf(exceptionTexts, exceptionCount * 2);
+        }
+        exceptionRows[exceptionCount] = row;
+        exceptionTexts[exceptionCount] = text;
+        exceptionCount++;
+    }
+
+    private void appendStringColumn(StringColumn part) {
+        String[] partDictionary = part.getDictionary();
+        int[] remap = new int[partDictionary.length];
+        for (int d = 0; d < partDictionary.length; d++) {
+            remap[d] = codeOf(partDictionary[d]);
+        }
+
+        int offset = size;
+        int rows = part.size();
+        if (codes.length < offset + rows) {
+            codes = Arrays.copyOf(codes, Math.max(offset + rows, codes.length * 2));
+        }
+        for (int i = 0; i < rows; i++) {
+            int code = part.getCode(i);
+            if (code < 0) {
+                missing.set(offset + i);
+            } else {
+                codes[offset + i] = remap[code];
+            }
+        }
+        size += rows;
+    }
+
+    private void appendCode(String value) {
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, size * 2);
+        }
+
+        if (value == null) {
+            missing.set(size);
+            return;
+        }
+
+        codes[size] = codeOf(value);
+    }
+
+    private int codeOf(String value) {
+        int hash = value.hashCode();
+        int slot = findSlot(hash, value, null, 0);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+        return addToDictionary(slot, hash, value);
+    }
+
+    private int codeOf(CSVRecord record, int field) {
+        int hash = record.hashString(field);
+        int slot = findSlot(hash, null, record, field);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+        return addToDictionary(slot, hash, record.getString(field));
+    }
+
+    /**
+     * Procura o texto na tabela (pela String ou pelo campo do registro)
+     *
+     * @return Posição com o código do texto, ou a posição vazia onde ele entraria
+     */
+    private int findSlot(int hash, String value, CSVRecord record, int field) {
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int code = slots[slot] - 1;
+            if (dictionaryHashes[code] == hash) {
+                String known = dictionary.get(code);
+                if (value != null ? known.equals(value) : record.contentEquals(field, known)) {
+                    return slot;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int addToDictionary(int slot, int hash, String value) {
+        int code = dictionary.size();
+        dictionary.add(value);
+        if (code == dictionaryHashes.length) {
+            dictionaryHashes = Arrays.copyOf(dictionaryHashes, code * 2);
+        }
+        dictionaryHashes[code] = hash;
+        slots[slot] = code + 1;
+
+        // Mantém a tabela no máximo meio cheia
+        if (dictionary.size() * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return code;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int code = 0; code < dictionary.size(); code++) {
+            int slot = mix(dictionaryHashes[code]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = code + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Converte o que já foi lido para a representação em dicionário
+     */
+    private void switchToDictionary() {
+        NumericColumn current = numericColumn();
+
+        codes = new int[Math.max(INITIAL_CAPACITY, values.length)];
+        missing = new BitSet();
+        dictionary = new ArrayList<>();
+        dictionaryHashes = new int[64];
+        slots = new int[128];
+        numeric = false;
+
+        int rows = size;
+        size = 0;
+        for (int i = 0; i < rows; i++) {
+            appendCode(current.getString(i));
+            size++;
+        }
+
+        values = null;
+        absent = null;
+        exceptionRows = null;
+        exceptionTexts = null;
+    }
+}
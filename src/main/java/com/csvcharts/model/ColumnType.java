@@ -0,0 +1,19 @@
+package com.csvcharts.model;
+
+/**
+ * Enum que define os tipos de armazenamento de uma coluna
+ */
+public enum ColumnType {
+    NUMERIC("Numérica"),
+    STRING("Texto");
+
+    private final String description;
+
+    ColumnType(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,481 @@
+package com.csvcharts.model;
+
+import com.csvcharts.util.FileFingerprint;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Cópia binária e colunar de um CSV já lido, gravada ao lado do arquivo
+ *
+ * Guarda as colunas tipadas (valores, bitmaps de ausentes, exceções e
+ * dicionários), o número de linhas e o tamanho e a data de modificação do
+ * CSV de origem. Na leitura o arquivo é mapeado em memória e os arrays são
+ * copiados em bloco para as colunas, sem passar pelo parser: o custo é o de
+ * copiar bytes, não o de interpretar texto. Se o CSV mudou, o formato é de
+ * outra versão ou o arquivo está corrompido, a cópia é ignorada. As colunas
+ * fora de uma projeção são puladas sem ser copiadas.
+ *
+ * Formato (little-endian): "CSVC", versão, tamanho e data do CSV, número de
+ * linhas, cabeçalhos e, para cada coluna, nome, tipo e os arrays da coluna.
+ */
+public final class ColumnarSidecar {
+    /** Extensão acrescentada ao nome do CSV */
+    public static final String EXTENSION = ".colunar";
+
+    private static final int MAGIC = 0x43565343;
+    private static final int VERSION = 1;
+    private static final byte NUMERIC = 0;
+    private static final byte STRING = 1;
+    private static final int WINDOW_SIZE = 64 << 20;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    private ColumnarSidecar() {
+    }
+
+    /**
+     * Caminho da cópia colunar de um CSV
+     */
+    public static Path pathFor(Path csvPath) {
+        return csvPath.resolveSibling(csvPath.getFileName() + EXTENSION);
+    }
+
+    /**
+     * Carrega a cópia colunar se ela existir e corresponder à versão atual do CSV
+     *
+     * @param sidecar Caminho da cópia colunar
+     * @param source Versão do CSV de origem
+     * @return Dados do CSV, ou null se não houver cópia válida
+     * @throws IOException Se a cópia existir mas não puder ser lida
+     */
+    public static CSVData read(Path sidecar, FileFingerprint source) throws IOException {
+        return read(sidecar, source, null);
+    }
+
+    /**
+     * Carrega só as colunas informadas da cópia colunar, se ela existir e
+     * corresponder à versão atual do CSV
+     *
+     * @param sidecar Caminho da cópia colunar
+     * @param source Versão do CSV de origem
+     * @param projection Colunas a carregar, ou null para todas
+     * @return Dados do CSV, ou null se não houver cópia válida
+     * @throws IOException Se a cópia existir mas não puder ser lida
+     */
+    public static CSVData read(Path sidecar, FileFingerprint source, Collection<String> projection)
+            throws IOException {
+        if (!Files.isRegularFile(sidecar)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            Input in = new Input(channel);
+            if (in.getInt() != MAGIC || in.getInt() != VERSION
+                    || in.getLong() != source.getSize() || in.getLong() != source.getModified()) {
+                return null;
+            }
+
+            int rowCount = in.getInt();
+            int headerCount = in.getInt();
+            List<String> headers = new ArrayList<>(headerCount);
+            for (int i = 0; i < headerCount; i++) {
+                String header = in.getString();
+                if (projection == null || projection.contains(header)) {
+                    headers.add(header);
+                }
+            }
+
+            int columnCount = in.getInt();
+            List<Column> columns = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                String name = in.getString();
+                byte type = in.getByte();
+                boolean selected = projection == null || projection.contains(name);
+                if (type == NUMERIC) {
+                    if (selected) {
+                        columns.add(readNumeric(in, name, rowCount));
+                    } else {
+                        skipNumeric(in, rowCount);
+                    }
+                } else if (type == STRING) {
+                    if (selected) {
+                        columns.add(readString(in, name, rowCount));
+                    } else {
+                        skipString(in, rowCount);
+                    }
+                } else {
+                    throw new IOException("Tipo de coluna desconhecido na cópia colunar: " + type);
+                }
+            }
+            if (in.position() != channel.size()) {
+                throw new IOException("Cópia colunar com dados além do esperado");
+            }
+            return new CSVData(headers, columns, rowCount);
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Cópia colunar corrompida: " + sidecar, e);
+        }
+    }
+
+    /**
+     * Grava a cópia colunar dos dados, substituindo a anterior de uma vez
+     *
+     * Cada gravação usa o seu próprio arquivo temporário, de modo que duas
+     * gravações simultâneas da mesma cópia (modo servidor) não se misturam.
+     *
+     * @param sidecar Caminho da cópia colunar
+     * @param data Dados lidos do CSV
+     * @param source Versão do CSV da qual os dados foram lidos
+     * @throws IOException Se houver erro na gravação
+     */
+    public static void write(Path sidecar, CSVData data, FileFingerprint source) throws IOException {
+        Path temp = Files.createTempFile(sidecar.toAbsolutePath().getParent(), sidecar.getFileName() + ".", ".tmp");
+        try {
+            writeTo(temp, data, source);
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private static void writeTo(Path temp, CSVData data, FileFingerprint source) throws IOException {
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            Output out = new Output(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putLong(source.getSize());
+            out.putLong(source.getModified());
+            out.putInt(data.getRowCount());
+
+            out.putInt(data.getHeaders().size());
+            for (String header : data.getHeaders()) {
+                out.putString(header);
+            }
+
+            out.putInt(data.getColumns().size());
+            for (Column column : data.getColumns()) {
+                out.putString(column.getName());
+                if (column instanceof NumericColumn numeric) {
+                    out.putByte(NUMERIC);
+                    writeNumeric(out, numeric);
+                } else if (column instanceof StringColumn text) {
+                    out.putByte(STRING);
+                    writeString(out, text);
+                } else {
+                    throw new IOException("Coluna sem formato colunar: " + column);
+                }
+            }
+            out.flush();
+        }
+    }
+
+    private static void writeNumeric(Output out, NumericColumn column) throws IOException {
+        int size = column.size();
+        out.putInt(column.getRejectedCount());
+        out.putDoubles(column.values(), size);
+        out.putBitSet(column.absent());
+
+        int exceptionCount = column.exceptionCount();
+        out.putInt(exceptionCount);
+        out.putInts(column.exceptionRows(), exceptionCount);
+        String[] texts = column.exceptionTexts();
+        for (int i = 0; i < exceptionCount; i++) {
+            out.putString(texts[i]);
+        }
+    }
+
+    private static NumericColumn readNumeric(Input in, String name, int rowCount) throws IOException {
+        int rejectedCount = in.getInt();
+        double[] values = new double[rowCount];
+        in.getDoubles(values);
+        BitSet absent = in.getBitSet();
+
+        int exceptionCount = in.getInt();
+        int[] exceptionRows = new int[exceptionCount];
+        in.getInts(exceptionRows);
+        String[] exceptionTexts = new String[exceptionCount];
+        for (int i = 0; i < exceptionCount; i++) {
+            exceptionTexts[i] = in.getString();
+        }
+        return new NumericColumn(name, rowCount, values, absent, exceptionRows, exceptionTexts,
+                exceptionCount, rejectedCount);
+    }
+
+    private static void skipNumeric(Input in, int rowCount) throws IOException {
+        in.getInt();
+        in.skip((long) rowCount * Double.BYTES);
+        in.skipBitSet();
+        int exceptionCount = in.getInt();
+        in.skip((long) exceptionCount * Integer.BYTES);
+        for (int i = 0; i < exceptionCount; i++) {
+            in.skipString();
+        }
+    }
+
+    private static void writeString(Output out, StringColumn column) throws IOException {
+        String[] dictionary = column.getDictionary();
+        out.putInt(dictionary.length);
+        for (String value : dictionary) {
+            out.putString(value);
+        }
+        out.putInts(column.codes(), column.size());
+        out.putBitSet(column.missing());
+    }
+
+    private static StringColumn readString(Input in, String name, int rowCount) throws IOException {
+        String[] dictionary = new String[in.getInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = in.getString();
+        }
+        int[] codes = new int[rowCount];
+        in.getInts(codes);
+        BitSet missing = in.getBitSet();
+        return new StringColumn(name, rowCount, codes, missing, dictionary);
+    }
+
+    private static void skipString(Input in, int rowCount) throws IOException {
+        int dictionarySize = in.getInt();
+        for (int i = 0; i < dictionarySize; i++) {
+            in.skipString();
+        }
+        in.skip((long) rowCount * Integer.BYTES);
+        in.skipBitSet();
+    }
+
+    /**
+     * Leitura sequencial do arquivo mapeado em janelas; os arrays são
+     * copiados em bloco da janela para o heap
+     */
+    private static final class Input {
+        private final FileChannel channel;
+        private final long fileSize;
+        private MappedByteBuffer buffer;
+        private long base;
+
+        Input(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.fileSize = channel.size();
+            map(0, 0);
+        }
+
+        long position() {
+            return base + buffer.position();
+        }
+
+        byte getByte() throws IOException {
+            ensure(1);
+            return buffer.get();
+        }
+
+        int getInt() throws IOException {
+            ensure(4);
+            return buffer.getInt();
+        }
+
+        long getLong() throws IOException {
+            ensure(8);
+            return buffer.getLong();
+        }
+
+        /**
+         * Texto em UTF-8 precedido do tamanho; -1 representa null
+         */
+        String getString() throws IOException {
+            int length = getInt();
+            if (length < 0) {
+                return null;
+            }
+            ensure(length);
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void skipString() throws IOException {
+            int length = getInt();
+            if (length > 0) {
+                skip(length);
+            }
+        }
+
+        void skipBitSet() throws IOException {
+            skip((long) getInt() * Long.BYTES);
+        }
+
+        /**
+         * Avança sem copiar; remapeia só se o destino estiver fora da janela
+         */
+        void skip(long bytes) throws IOException {
+            long target = position() + bytes;
+            if (bytes < 0 || target > fileSize) {
+                throw new BufferUnderflowException();
+            }
+            if (target <= base + buffer.limit()) {
+                buffer.position((int) (target - base));
+            } else {
+                map(target, 0);
+            }
+        }
+
+        void getDoubles(double[] target) throws IOException {
+            int offset = 0;
+            while (offset < target.length) {
+                ensure(Double.BYTES);
+                int count = Math.min(target.length - offset, buffer.remaining() / Double.BYTES);
+                buffer.asDoubleBuffer().get(target, offset, count);
+                buffer.position(buffer.position() + count * Double.BYTES);
+                offset += count;
+            }
+        }
+
+        void getInts(int[] target) throws IOException {
+            int offset = 0;
+            while (offset < target.length) {
+                ensure(Integer.BYTES);
+                int count = Math.min(target.length - offset, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().get(target, offset, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                offset += count;
+            }
+        }
+
+        BitSet getBitSet() throws IOException {
+            long[] words = new long[getInt()];
+            int offset = 0;
+            while (offset < words.length) {
+                ensure(Long.BYTES);
+                int count = Math.min(words.length - offset, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().get(words, offset, count);
+                buffer.position(buffer.position() + count * Long.BYTES);
+                offset += count;
+            }
+            return BitSet.valueOf(words);
+        }
+
+        /**
+         * Garante que os próximos bytes estão na janela, remapeando a partir da posição atual
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            long position = position();
+            if (position + bytes > fileSize) {
+                throw new BufferUnderflowException();
+            }
+            map(position, bytes);
+        }
+
+        private void map(long position, int minimum) throws IOException {
+            int length = (int) Math.min(Math.max(WINDOW_SIZE, minimum), fileSize - position);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            base = position;
+        }
+    }
+
+    /**
+     * Escrita sequencial com um buffer direto, esvaziado no canal quando enche
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putByte(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int count = Math.min(bytes.length - offset, buffer.remaining());
+                buffer.put(bytes, offset, count);
+                offset += count;
+            }
+        }
+
+        void putDoubles(double[] values, int length) throws IOException {
+            int offset = 0;
+            while (offset < length) {
+                ensure(Double.BYTES);
+                int count = Math.min(length - offset, buffer.remaining() / Double.BYTES);
+                buffer.asDoubleBuffer().put(values, offset, count);
+                buffer.position(buffer.position() + count * Double.BYTES);
+                offset += count;
+            }
+        }
+
+        void putInts(int[] values, int length) throws IOException {
+            int offset = 0;
+            while (offset < length) {
+                ensure(Integer.BYTES);
+                int count = Math.min(length - offset, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, offset, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                offset += count;
+            }
+        }
+
+        void putBitSet(BitSet bits) throws IOException {
+            long[] words = bits.toLongArray();
+            putInt(words.length);
+            int offset = 0;
+            while (offset < words.length) {
+                ensure(Long.BYTES);
+                int count = Math.min(words.length - offset, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().put(words, offset, count);
+                buffer.position(buffer.position() + count * Long.BYTES);
+                offset += count;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.csvcharts.model;
+
+/**
+ * Enum que define os métodos de redução de pontos dos gráficos de linha e dispersão
+ */
+public enum DownsamplingMethod {
+    NONE("Sem redução, todos os pontos são desenhados"),
+    LTTB("Largest-Triangle-Three-Buckets, preserva a forma da série"),
+    MIN_MAX("Mínimo e máximo de cada faixa, preserva os picos");
+
+    private final String description;
+
+    DownsamplingMethod(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return name() + " - " + description;
+    }
+}
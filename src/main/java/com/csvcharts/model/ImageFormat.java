@@ -0,0 +1,37 @@
+package com.csvcharts.model;
+
+/**
+ * Enum que define os formatos de imagem em que os gráficos podem ser gravados
+ */
+public enum ImageFormat {
+    PNG("png", "image/png", "Imagem PNG, sem perdas"),
+    JPEG("jpg", "image/jpeg", "Imagem JPEG, menor e com perdas"),
+    SVG("svg", "image/svg+xml", "Desenho vetorial SVG");
+
+    private final String extension;
+    private final String contentType;
+    private final String description;
+
+    ImageFormat(String extension, String contentType, String description) {
+        this.extension = extension;
+        this.contentType = contentType;
+        this.description = description;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return name() + " - " + description;
+    }
+}
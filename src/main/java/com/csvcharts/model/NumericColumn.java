@@ -0,0 +1,122 @@
+package com.csvcharts.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Coluna numérica armazenada em um array de double
+ *
+ * Células sem valor numérico ficam marcadas no bitmap de ausentes. O texto
+ * original só é guardado para as células em que ele difere da formatação
+ * canônica do número (ex.: "1.50", "N/A" ou célula ausente).
+ */
+public class NumericColumn extends Column {
+    private final double[] values;
+    private final BitSet absent;
+    private final int[] exceptionRows;
+    private final String[] exceptionTexts;
+    private final int exceptionCount;
+    private final int rejectedCount;
+
+    public NumericColumn(String name, int size, double[] values, BitSet absent,
+                         int[] exceptionRows, String[] exceptionTexts, int exceptionCount, int rejectedCount) {
+        super(name, size);
+        this.values = values;
+        this.absent = absent;
+        this.exceptionRows = exceptionRows;
+        this.exceptionTexts = exceptionTexts;
+        this.exceptionCount = exceptionCount;
+        this.rejectedCount = rejectedCount;
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.NUMERIC;
+    }
+
+    @Override
+    public String getString(int rowIndex) {
+        int index = Arrays.binarySearch(exceptionRows, 0, exceptionCount, rowIndex);
+        if (index >= 0) {
+            return exceptionTexts[index];
+        }
+        return absent.get(rowIndex) ? "" : format(values[rowIndex]);
+    }
+
+    @Override
+    public double getDouble(int rowIndex) {
+        return absent.get(rowIndex) ? Double.NaN : values[rowIndex];
+    }
+
+    /**
+     * Quantidade de células com texto que não pôde ser convertido em número
+     */
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Quantidade de células com valor numérico
+     */
+    public int getNumericCount() {
+        return size - absent.cardinality();
+    }
+
+    /**
+     * Primeiros textos distintos que não puderam ser convertidos em número, na ordem das linhas
+     */
+    public List<String> getRejectedSamples(int limit) {
+        List<String> samples = new ArrayList<>(limit);
+        for (int i = 0; i < exceptionCount && samples.size() < limit; i++) {
+            String text = exceptionTexts[i];
+            if (text != null && absent.get(exceptionRows[i]) && !samples.contains(text)) {
+                samples.add(text);
+            }
+        }
+        return samples;
+    }
+
+    @Override
+    public long estimatedHeapBytes() {
+        long bytes = 16 + 8L * values.length + bitmapBytes(size) + 4L * exceptionRows.length + 4L * exceptionTexts.length;
+        for (int i = 0; i < exceptionCount; i++) {
+            if (exceptionTexts[i] != null) {
+                bytes += stringBytes(exceptionTexts[i]);
+            }
+        }
+        return bytes;
+    }
+
+    double[] values() {
+        return values;
+    }
+
+    BitSet absent() {
+        return absent;
+    }
+
+    int[] exceptionRows() {
+        return exceptionRows;
+    }
+
+    String[] exceptionTexts() {
+        return exceptionTexts;
+    }
+
+    int exceptionCount() {
+        return exceptionCount;
+    }
+
+    /**
+     * Formatação canônica de um número: inteiros sem casas decimais,
+     * demais valores como em Double.toString
+     */
+    public static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
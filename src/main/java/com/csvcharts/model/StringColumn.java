@@ -0,0 +1,92 @@
+package com.csvcharts.model;
+
+import com.csvcharts.util.NumberParser;
+
+import java.util.BitSet;
+
+/**
+ * Coluna de texto com codificação por dicionário
+ *
+ * Cada linha guarda apenas o código (int) do valor no dicionário; o valor
+ * numérico de cada entrada do dicionário é calculado uma única vez.
+ */
+public class StringColumn extends Column {
+    private final int[] codes;
+    private final BitSet missing;
+    private final String[] dictionary;
+    private volatile double[] dictionaryValues;
+
+    public StringColumn(String name, int size, int[] codes, BitSet missing, String[] dictionary) {
+        super(name, size);
+        this.codes = codes;
+        this.missing = missing;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.STRING;
+    }
+
+    @Override
+    public String getString(int rowIndex) {
+        return missing.get(rowIndex) ? null : dictionary[codes[rowIndex]];
+    }
+
+    @Override
+    public double getDouble(int rowIndex) {
+        if (missing.get(rowIndex)) {
+            return Double.NaN;
+        }
+        return getDictionaryValues()[codes[rowIndex]];
+    }
+
+    /**
+     * Código da célula no dicionário, ou -1 se a linha não tinha a coluna
+     */
+    public int getCode(int rowIndex) {
+        return missing.get(rowIndex) ? -1 : codes[rowIndex];
+    }
+
+    public String[] getDictionary() {
+        return dictionary;
+    }
+
+    public int getDictionarySize() {
+        return dictionary.length;
+    }
+
+    @Override
+    public long estimatedHeapBytes() {
+        long bytes = 16 + 4L * codes.length + bitmapBytes(size) + 16 + 4L * dictionary.length;
+        for (String value : dictionary) {
+            bytes += stringBytes(value);
+        }
+        if (dictionaryValues != null) {
+            bytes += 16 + 8L * dictionaryValues.length;
+        }
+        return bytes;
+    }
+
+    int[] codes() {
+        return codes;
+    }
+
+    BitSet missing() {
+        return missing;
+    }
+
+    private double[] getDictionaryValues() {
+        double[] result = dictionaryValues;
+        if (result == null) {
+            NumberParser parser = new NumberParser();
+            result = new double[dictionary.length];
+            for (int i = 0; i < dictionary.length; i++) {
+                parser.parse(dictionary[i]);
+                result[i] = parser.getValue();
+            }
+            dictionaryValues = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,38 @@
+package com.csvcharts.model;
+
+/**
+ * Enum que define os intervalos de agrupamento das séries temporais
+ */
+public enum TimeBucket {
+    SECOND(1_000L, "segundo"),
+    MINUTE(60_000L, "minuto"),
+    HOUR(3_600_000L, "hora"),
+    DAY(86_400_000L, "dia");
+
+    private final long millis;
+    private final String unit;
+
+    TimeBucket(long millis, String unit) {
+        this.millis = millis;
+        this.unit = unit;
+    }
+
+    /**
+     * Duração do intervalo em milissegundos
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * Nome do intervalo, usado no título do gráfico
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    @Override
+    public String toString() {
+        return name() + " - um ponto por " + unit;
+    }
+}
@@ -0,0 +1,233 @@
+package com.csvcharts.server;
+
+import com.csvcharts.model.ChartType;
+import com.csvcharts.service.CSVChartService;
+import com.csvcharts.util.CSVDataCache;
+import com.csvcharts.util.ChartImageCache;
+import com.csvcharts.util.ChartMetrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor HTTP que mantém a JVM aquecida e gera gráficos sob demanda
+ *
+ * Endpoints:
+ * <ul>
+ *   <li>{@code POST /grafico?tipo=BAR&x=Cidade&y=Populacao} com o CSV no corpo</li>
+ *   <li>{@code GET /grafico?arquivo=dados.csv&tipo=BAR&x=Cidade&y=Populacao},
+ *       com o caminho relativo ao diretório raiz do servidor</li>
+ *   <li>{@code GET /saude} para verificar se o servidor está no ar</li>
+ *   <li>{@code GET /estatisticas} com os contadores dos caches e as métricas</li>
+ *   <li>{@code GET /metricas} com as métricas em JSON (com --metricas)</li>
+ * </ul>
+ * A resposta de /grafico é a imagem, no formato configurado no gerador. As requisições são atendidas em paralelo
+ * por um pool fixo de threads.
+ *
+ * Por padrão o servidor só escuta na interface local (loopback); outro endereço precisa ser informado
+ * explicitamente. Os arquivos pedidos via GET são resolvidos com os links simbólicos seguidos e recusados
+ * se o caminho real ficar fora do diretório raiz.
+ */
+public class ChartServer {
+    private static final Logger logger = LoggerFactory.getLogger(ChartServer.class);
+
+    private final CSVChartService service;
+    private final Path rootDirectory;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Servidor que só escuta na interface local
+     */
+    public ChartServer(CSVChartService service, int port, Path rootDirectory, int threads) throws IOException {
+        this(service, InetAddress.getLoopbackAddress(), port, rootDirectory, threads);
+    }
+
+    /**
+     * @param address Endereço em que o servidor escuta (0.0.0.0 para todas as interfaces)
+     */
+    public ChartServer(CSVChartService service, InetAddress address, int port, Path rootDirectory, int threads)
+            throws IOException {
+        this.service = service;
+        this.rootDirectory = rootDirectory.toRealPath();
+        this.server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        this.executor = Executors.newFixedThreadPool(threads);
+
+        server.createContext("/grafico", this::handleChart);
+        server.createContext("/saude", exchange -> sendText(exchange, 200, "OK"));
+        server.createContext("/estatisticas", this::handleStatistics);
+        server.createContext("/metricas", this::handleMetrics);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+        logger.info("Servidor de gráficos ouvindo em {}:{} (raiz: {})",
+                server.getAddress().getAddress().getHostAddress(), server.getAddress().getPort(), rootDirectory);
+    }
+
+    /**
+     * Para o servidor, aguardando até o prazo informado as requisições em andamento
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        logger.info("Servidor de gráficos parado");
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public InetAddress getAddress() {
+        return server.getAddress().getAddress();
+    }
+
+    private void handleChart(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = generateChart(exchange);
+        } catch (IllegalArgumentException e) {
+            status = sendText(exchange, 400, e.getMessage());
+        } catch (NoSuchFileException e) {
+            status = sendText(exchange, 404, "Arquivo não encontrado: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Erro ao gerar gráfico: {}", e.getMessage(), e);
+            status = sendText(exchange, 500, "Falha ao gerar gráfico: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+        logger.info("{} {} {} em {} ms", exchange.getRequestMethod(), exchange.getRequestURI(), status,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void handleStatistics(HttpExchange exchange) throws IOException {
+        CSVDataCache dataCache = service.getDataCache();
+        ChartImageCache imageCache = service.getImageCache();
+        ChartMetrics metrics = service.getChartGenerator().getMetrics();
+        sendText(exchange, 200,
+                (dataCache != null ? dataCache.toString() : "Cache de dados desativado") + "\n"
+                + (imageCache != null ? imageCache.toString() : "Cache de gráficos desativado") + "\n"
+                + (metrics.isEnabled() ? metrics.toString() : "Métricas desativadas"));
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        ChartMetrics metrics = service.getChartGenerator().getMetrics();
+        if (!metrics.isEnabled()) {
+            sendText(exchange, 404, "Métricas desativadas: inicie o servidor com --metricas");
+            return;
+        }
+        byte[] json = metrics.toJson().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private int generateChart(HttpExchange exchange) throws Exception {
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        String type = params.get("tipo");
+        if (type == null) {
+            throw new IllegalArgumentException("Parâmetro 'tipo' é obrigatório");
+        }
+        ChartType chartType;
+        try {
+            chartType = ChartType.valueOf(type.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Tipo de gráfico inválido: " + type);
+        }
+
+        // O gráfico é gerado por completo antes do envio para que erros virem status HTTP
+        ByteArrayOutputStream image = new ByteArrayOutputStream(64 * 1024);
+        String method = exchange.getRequestMethod();
+        if ("POST".equals(method)) {
+            try (InputStream body = exchange.getRequestBody()) {
+                service.writeChart(body, chartType, params.get("x"), params.get("y"), image);
+            }
+        } else if ("GET".equals(method)) {
+            String file = params.get("arquivo");
+            if (file == null) {
+                throw new IllegalArgumentException("Informe o parâmetro 'arquivo' ou envie o CSV via POST");
+            }
+            service.writeChart(resolve(file).toString(), chartType, params.get("x"), params.get("y"), image);
+        } else {
+            return sendText(exchange, 405, "Método não suportado: " + method);
+        }
+
+        exchange.getResponseHeaders().set("Content-Type",
+                service.getChartGenerator().getImageWriter().getFormat().getContentType());
+        exchange.sendResponseHeaders(200, image.size());
+        try (OutputStream out = exchange.getResponseBody()) {
+            image.writeTo(out);
+        }
+        return 200;
+    }
+
+    /**
+     * Resolve o caminho dentro do diretório raiz, recusando caminhos fora dele,
+     * inclusive os que só saem dele por um link simbólico
+     */
+    private Path resolve(String file) throws IOException {
+        Path path = rootDirectory.resolve(file).normalize();
+        if (!path.startsWith(rootDirectory)) {
+            throw new IllegalArgumentException("Caminho fora do diretório do servidor: " + file);
+        }
+        Path realPath;
+        try {
+            realPath = path.toRealPath();
+        } catch (NoSuchFileException e) {
+            throw new NoSuchFileException(file);
+        }
+        if (!realPath.startsWith(rootDirectory)) {
+            throw new IllegalArgumentException("Caminho fora do diretório do servidor: " + file);
+        }
+        if (!Files.isRegularFile(realPath)) {
+            throw new NoSuchFileException(file);
+        }
+        return realPath;
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator >= 0 ? pair.substring(0, separator) : pair;
+            String value = separator >= 0 ? pair.substring(separator + 1) : "";
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        return status;
+    }
+}
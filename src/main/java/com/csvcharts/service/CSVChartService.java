@@ -1,14 +1,41 @@
 package com.csvcharts.service;
 
 import com.csvcharts.model.CSVData;
+import com.csvcharts.model.ChartJob;
 import com.csvcharts.model.ChartType;
+import com.csvcharts.util.CSVDataCache;
 import com.csvcharts.util.CSVFileReader;
+import com.csvcharts.util.CSVRecord;
+import com.csvcharts.util.CSVRowHandler;
+import com.csvcharts.util.CSVTailReader;
+import com.csvcharts.util.ChartDataCollector;
 import com.csvcharts.util.ChartGenerator;
+import com.csvcharts.util.ChartImageCache;
+import com.csvcharts.util.ChartMetrics;
+import com.csvcharts.util.FileFingerprint;
+import com.opencsv.exceptions.CsvException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Serviço principal que coordena a leitura do CSV e geração de gráficos
@@ -18,10 +45,45 @@ public class CSVChartService {
     
     private final CSVFileReader csvReader;
     private final ChartGenerator chartGenerator;
+    private CSVDataCache dataCache;
+    private ChartImageCache imageCache;
 
     public CSVChartService() {
-        this.csvReader = new CSVFileReader();
-        this.chartGenerator = new ChartGenerator();
+        this(new CSVFileReader(), new ChartGenerator());
+    }
+
+    public CSVChartService(CSVFileReader csvReader, ChartGenerator chartGenerator) {
+        this.csvReader = csvReader;
+        this.chartGenerator = chartGenerator;
+    }
+
+    /**
+     * Define o cache de dados já lidos (null desativa). Com o cache, os
+     * arquivos são carregados no modelo colunar e reaproveitados entre
+     * chamadas enquanto não forem alterados.
+     */
+    public void setDataCache(CSVDataCache dataCache) {
+        this.dataCache = dataCache;
+    }
+
+    public CSVDataCache getDataCache() {
+        return dataCache;
+    }
+
+    /**
+     * Define o cache de gráficos já gerados (null desativa). Um acerto
+     * reaproveita a imagem sem ler os dados nem passar pelo JFreeChart.
+     */
+    public void setImageCache(ChartImageCache imageCache) {
+        this.imageCache = imageCache;
+    }
+
+    public ChartImageCache getImageCache() {
+        return imageCache;
+    }
+
+    public ChartGenerator getChartGenerator() {
+        return chartGenerator;
     }
 
     /**
@@ -30,62 +92,551 @@ public class CSVChartService {
      * @param csvFilePath Caminho do arquivo CSV
      * @param chartType Tipo de gráfico a ser gerado
      * @param xColumn Nome da coluna X (opcional)
-     * @param yColumn Nome da coluna Y (opcional)
+     * @param yColumn Nome da coluna Y, ou várias separadas por vírgula (opcional)
      */
     public void generateChart(String csvFilePath, ChartType chartType, String xColumn, String yColumn) {
+        ChartMetrics metrics = chartGenerator.getMetrics();
+        long allocation = metrics.allocationMark();
+        boolean success = false;
         try {
             logger.info("Iniciando processamento do arquivo: {}", csvFilePath);
             
-            // Lê o arquivo CSV
-            CSVData csvData = csvReader.readCSV(csvFilePath);
-            logger.info("CSV lido com sucesso: {} linhas, {} colunas", 
-                       csvData.getRowCount(), csvData.getColumnCount());
+            // Lê o cabeçalho para resolver as colunas antes de percorrer os dados
+            long start = metrics.start();
+            List<String> headers = csvReader.readHeaders(csvFilePath);
 
             // Determina as colunas a serem usadas
-            String finalXColumn = determineColumn(csvData, xColumn, 0);
-            String finalYColumn = determineColumn(csvData, yColumn, 1);
+            String finalXColumn = determineColumn(headers, xColumn, 0);
+            List<String> finalYColumns = determineColumns(headers, yColumn, 1);
+            metrics.record(ChartMetrics.Stage.COLUMNS, start);
+
+            logger.info("Usando colunas: X='{}', Y='{}'", finalXColumn, String.join(", ", finalYColumns));
 
-            logger.info("Usando colunas: X='{}', Y='{}'", finalXColumn, finalYColumn);
+            String outputPath = generateOutputPath(csvFilePath, chartType, imageExtension());
 
-            // Gera o gráfico
-            String outputPath = generateOutputPath(csvFilePath, chartType);
-            chartGenerator.generateChart(csvData, chartType, finalXColumn, finalYColumn, outputPath);
+            if (imageCache != null) {
+                chartGenerator.writeImage(cachedChart(csvFilePath, chartType, finalXColumn, finalYColumns), outputPath);
+            } else if (dataCache != null || csvReader.usesColumnarRead(csvFilePath)) {
+                // Cache ativo, arquivo grande ou cópia colunar: usa o modelo colunar e gera a partir dele
+                start = metrics.start();
+                CSVData csvData = readData(csvFilePath, columns(finalXColumn, finalYColumns));
+                metrics.record(ChartMetrics.Stage.READ, start);
+                logger.info("CSV lido com sucesso: {} linhas, {} colunas",
+                           csvData.getRowCount(), headers.size());
+                chartGenerator.generateChart(csvData, chartType, finalXColumn, finalYColumns, outputPath);
+            } else {
+                // Lê o arquivo CSV em streaming, agregando cada linha (todas as séries) no gráfico
+                try (ChartDataCollector collector =
+                             chartGenerator.newCollector(chartType, finalXColumn, finalYColumns)) {
+                    start = metrics.start();
+                    long rowCount = csvReader.streamCSV(csvFilePath, collector);
+                    metrics.record(ChartMetrics.Stage.READ, start);
+                    logger.info("CSV lido com sucesso: {} linhas, {} colunas", rowCount, headers.size());
+                    chartGenerator.generateChart(collector, outputPath);
+                }
+            }
             
             logger.info("Gráfico gerado com sucesso: {}", outputPath);
             System.out.println("Gráfico salvo em: " + outputPath);
+            success = true;
 
         } catch (Exception e) {
             logger.error("Erro ao gerar gráfico: {}", e.getMessage(), e);
             throw new RuntimeException("Falha ao gerar gráfico: " + e.getMessage(), e);
+        } finally {
+            metrics.recordRequest(success, allocation);
+        }
+    }
+
+    /**
+     * Gera o gráfico de um arquivo CSV e escreve a imagem no fluxo informado
+     * 
+     * @param csvFilePath Caminho do arquivo CSV
+     * @param chartType Tipo de gráfico a ser gerado
+     * @param xColumn Nome da coluna X (opcional)
+     * @param yColumn Nome da coluna Y, ou várias separadas por vírgula (opcional)
+     * @param out Fluxo que recebe a imagem (não é fechado)
+     * @throws IOException Se houver erro na leitura ou na escrita
+     * @throws CsvException Se houver erro no parsing do CSV
+     */
+    public void writeChart(String csvFilePath, ChartType chartType, String xColumn, String yColumn,
+                           OutputStream out) throws IOException, CsvException {
+        ChartMetrics metrics = chartGenerator.getMetrics();
+        long allocation = metrics.allocationMark();
+        boolean success = false;
+        try {
+            long start = metrics.start();
+            List<String> headers = dataCache != null
+                    ? dataCache.get(csvFilePath).getHeaders()
+                    : csvReader.readHeaders(csvFilePath);
+            String finalXColumn = determineColumn(headers, xColumn, 0);
+            List<String> finalYColumns = determineColumns(headers, yColumn, 1);
+            metrics.record(ChartMetrics.Stage.COLUMNS, start);
+
+            if (imageCache != null) {
+                out.write(cachedChart(csvFilePath, chartType, finalXColumn, finalYColumns));
+            } else {
+                out.write(encodeChart(csvFilePath, chartType, finalXColumn, finalYColumns));
+            }
+            success = true;
+        } finally {
+            metrics.recordRequest(success, allocation);
+        }
+    }
+
+    /**
+     * Retorna a imagem do cache de gráficos, gerando-a e guardando-a se necessário
+     */
+    private byte[] cachedChart(String csvFilePath, ChartType chartType, String xColumn, List<String> yColumns)
+            throws IOException, CsvException {
+        // A versão do arquivo é lida antes dos dados: se ele mudar durante a leitura, a chave não se repete
+        String key = imageKey(FileFingerprint.of(csvFilePath), chartType, xColumn, yColumns);
+        byte[] png = imageCache.get(key);
+        if (png != null) {
+            logger.info("Gráfico obtido do cache");
+            return png;
+        }
+        png = encodeChart(csvFilePath, chartType, xColumn, yColumns);
+        imageCache.put(key, png);
+        return png;
+    }
+
+    private String imageKey(FileFingerprint fingerprint, ChartType chartType, String xColumn, List<String> yColumns) {
+        return ChartImageCache.key(fingerprint, chartType, xColumn, String.join(",", yColumns),
+                chartGenerator.getRenderSettings());
+    }
+
+    /**
+     * Lê o arquivo e codifica o gráfico em memória, pelo modelo colunar ou em streaming
+     */
+    private byte[] encodeChart(String csvFilePath, ChartType chartType, String xColumn, List<String> yColumns)
+            throws IOException, CsvException {
+        ChartMetrics metrics = chartGenerator.getMetrics();
+        long start = metrics.start();
+        if (dataCache != null || csvReader.usesColumnarRead(csvFilePath)) {
+            CSVData csvData = readData(csvFilePath, columns(xColumn, yColumns));
+            metrics.record(ChartMetrics.Stage.READ, start);
+            return chartGenerator.encodeChart(csvData, chartType, xColumn, yColumns);
+        }
+        try (ChartDataCollector collector = chartGenerator.newCollector(chartType, xColumn, yColumns)) {
+            csvReader.streamCSV(csvFilePath, collector);
+            metrics.record(ChartMetrics.Stage.READ, start);
+            return chartGenerator.encodeChart(collector);
+        }
+    }
+
+    private String imageExtension() {
+        return chartGenerator.getImageWriter().getFormat().getExtension();
+    }
+
+    /**
+     * Gera o gráfico de um CSV recebido como fluxo (por exemplo, um upload)
+     * e escreve a imagem no fluxo de saída. As colunas padrão são resolvidas
+     * quando o cabeçalho é lido, sem guardar o conteúdo do CSV.
+     * 
+     * @param csvInput Conteúdo do CSV em UTF-8; é fechado ao final da leitura
+     * @param chartType Tipo de gráfico a ser gerado
+     * @param xColumn Nome da coluna X (opcional)
+     * @param yColumn Nome da coluna Y, ou várias separadas por vírgula (opcional)
+     * @param out Fluxo que recebe a imagem (não é fechado)
+     * @throws IOException Se houver erro na leitura ou na escrita
+     * @throws CsvException Se houver erro no parsing do CSV
+     */
+    public void writeChart(InputStream csvInput, ChartType chartType, String xColumn, String yColumn,
+                           OutputStream out) throws IOException, CsvException {
+        ChartMetrics metrics = chartGenerator.getMetrics();
+        long allocation = metrics.allocationMark();
+        boolean success = false;
+        try {
+            writeChart(csvInput, chartType, xColumn, yColumn, out, metrics);
+            success = true;
+        } finally {
+            metrics.recordRequest(success, allocation);
+        }
+    }
+
+    private void writeChart(InputStream csvInput, ChartType chartType, String xColumn, String yColumn,
+                            OutputStream out, ChartMetrics metrics) throws IOException, CsvException {
+        ChartDataCollector[] collector = new ChartDataCollector[1];
+        long start = metrics.start();
+        csvReader.streamCSV(csvInput, new CSVRowHandler() {
+            @Override
+            public void onHeader(List<String> headers) {
+                long columnsStart = metrics.start();
+                collector[0] = chartGenerator.newCollector(chartType,
+                        determineColumn(headers, xColumn, 0), determineColumns(headers, yColumn, 1));
+                metrics.record(ChartMetrics.Stage.COLUMNS, columnsStart);
+                collector[0].onHeader(headers);
+            }
+
+            @Override
+            public void onRow(String[] row) {
+                collector[0].onRow(row);
+            }
+
+            @Override
+            public void onEnd() {
+                collector[0].onEnd();
+            }
+        });
+        metrics.record(ChartMetrics.Stage.READ, start);
+        try {
+            chartGenerator.writeChart(collector[0], out);
+        } finally {
+            collector[0].close();
         }
     }
 
+    /**
+     * Acompanha um arquivo CSV que recebe linhas no fim, regerando o gráfico
+     * a cada intervalo só com as linhas novas
+     *
+     * O cabeçalho, as colunas escolhidas e os dados acumulados no coletor
+     * (categorias agregadas, série reduzida) são mantidos entre as leituras,
+     * e cada leitura processa só os bytes acrescentados, de modo que o custo
+     * depende dos dados novos e não do tamanho do arquivo. A imagem só é
+     * regerada quando há linhas novas e é substituída de uma vez, sem que
+     * quem a lê veja um arquivo pela metade. Se o arquivo for truncado ou
+     * substituído, o gráfico é refeito desde o início. Roda até a thread ser
+     * interrompida.
+     *
+     * @param csvFilePath Caminho do arquivo CSV
+     * @param chartType Tipo de gráfico a ser gerado
+     * @param xColumn Nome da coluna X (opcional)
+     * @param yColumn Nome da coluna Y, ou várias separadas por vírgula (opcional)
+     * @param intervalMillis Intervalo entre as leituras, em milissegundos
+     * @throws InterruptedException Quando a thread é interrompida
+     * @throws IllegalArgumentException Se o arquivo for compactado ou se a
+     *         ordenação por X estiver ligada (cada atualização ordenaria de
+     *         novo todas as linhas lidas até então)
+     */
+    public void followChart(String csvFilePath, ChartType chartType, String xColumn, String yColumn,
+                            long intervalMillis) throws InterruptedException {
+        if (CSVFileReader.isCompressed(csvFilePath)) {
+            throw new IllegalArgumentException("Não é possível acompanhar um arquivo compactado: " + csvFilePath);
+        }
+        if (chartGenerator.getSortMemory() > 0) {
+            throw new IllegalArgumentException("Não é possível acompanhar um arquivo com a ordenação por X ligada");
+        }
+        CSVTailReader tail = new CSVTailReader(Paths.get(csvFilePath));
+        Path outputPath = Paths.get(generateOutputPath(csvFilePath, chartType, imageExtension()));
+        ChartMetrics metrics = chartGenerator.getMetrics();
+        ChartDataCollector[] collector = new ChartDataCollector[1];
+        CSVRowHandler handler = new CSVRowHandler() {
+            @Override
+            public void onHeader(List<String> headers) {
+                collector[0] = chartGenerator.newCollector(chartType,
+                        determineColumn(headers, xColumn, 0), determineColumns(headers, yColumn, 1));
+                collector[0].onHeader(headers);
+            }
+
+            @Override
+            public void onRow(String[] row) {
+                collector[0].onRow(row);
+            }
+
+            @Override
+            public void onRecord(CSVRecord record) {
+                collector[0].onRecord(record);
+            }
+        };
+
+        logger.info("Acompanhando o arquivo {} a cada {} ms", csvFilePath, intervalMillis);
+        try {
+            while (true) {
+                long allocation = metrics.allocationMark();
+                try {
+                    if (tail.restartIfReplaced()) {
+                        logger.info("Arquivo truncado ou substituído, relendo do início: {}", csvFilePath);
+                        if (collector[0] != null) {
+                            collector[0].close();
+                        }
+                        collector[0] = null;
+                    }
+
+                    long start = metrics.start();
+                    long offset = tail.getOffset();
+                    long newRows = tail.poll(handler);
+                    metrics.record(ChartMetrics.Stage.READ, start);
+                    metrics.addRowsRead(newRows);
+                    metrics.addBytesRead(tail.getOffset() - offset);
+
+                    if (newRows > 0 || offset == 0 && collector[0] != null) {
+                        logger.info("{} linhas novas ({} no total)", newRows, tail.getRowCount());
+                        replaceImage(chartGenerator.encodeChart(collector[0]), outputPath);
+                        metrics.recordRequest(true, allocation);
+                        System.out.println("Gráfico atualizado em: " + outputPath);
+                    }
+                } catch (IllegalArgumentException e) {
+                    // Coluna inexistente: não adianta tentar de novo
+                    throw e;
+                } catch (Exception e) {
+                    logger.error("Erro ao atualizar gráfico de {}: {}", csvFilePath, e.getMessage());
+                    metrics.recordRequest(false, allocation);
+                }
+                Thread.sleep(intervalMillis);
+            }
+        } finally {
+            // Apaga os arquivos temporários do coletor, se houver
+            if (collector[0] != null) {
+                collector[0].close();
+            }
+        }
+    }
+
+    /**
+     * Grava a imagem em um arquivo temporário e o move sobre o destino
+     */
+    private void replaceImage(byte[] image, Path outputPath) throws IOException {
+        Path temp = outputPath.resolveSibling(outputPath.getFileName() + ".tmp");
+        chartGenerator.writeImage(image, temp.toString());
+        Files.move(temp, outputPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Gera vários gráficos, lendo cada arquivo CSV uma única vez
+     *
+     * Os gráficos são agrupados por arquivo. Cada arquivo é carregado no
+     * modelo colunar e todos os seus gráficos são gerados a partir dele, em
+     * paralelo, antes de passar ao próximo arquivo, de modo que só um arquivo
+     * fica em memória por vez. A fila do executor é limitada: quando está
+     * cheia, a própria thread que lê os arquivos gera o gráfico.
+     *
+     * @param jobs Gráficos a serem gerados
+     * @param renderThreads Número de threads usadas para gerar os gráficos
+     * @return Número de gráficos que falharam
+     */
+    public int generateCharts(List<ChartJob> jobs, int renderThreads) {
+        Map<String, List<ChartJob>> jobsByFile = new LinkedHashMap<>();
+        for (ChartJob job : jobs) {
+            jobsByFile.computeIfAbsent(job.getCsvFilePath(), file -> new ArrayList<>()).add(job);
+        }
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(renderThreads, renderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(renderThreads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        int failures = 0;
+        try {
+            for (Map.Entry<String, List<ChartJob>> entry : jobsByFile.entrySet()) {
+                failures += generateCharts(entry.getKey(), entry.getValue(), executor);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        logger.info("Lote concluído: {} gráficos gerados, {} com falha", jobs.size() - failures, failures);
+        return failures;
+    }
+
+    /**
+     * Gera os gráficos de um arquivo a partir de uma única leitura
+     */
+    private int generateCharts(String csvFilePath, List<ChartJob> jobs, ThreadPoolExecutor executor) {
+        ChartMetrics metrics = chartGenerator.getMetrics();
+        long allocation = metrics.allocationMark();
+        CSVData csvData;
+        FileFingerprint fingerprint;
+        try {
+            logger.info("Iniciando processamento do arquivo: {} ({} gráficos)", csvFilePath, jobs.size());
+            long start = metrics.start();
+            fingerprint = imageCache != null ? FileFingerprint.of(csvFilePath) : null;
+            csvData = readData(csvFilePath, dataCache != null ? null : usedColumns(csvFilePath, jobs));
+            metrics.record(ChartMetrics.Stage.READ, start);
+            logger.info("CSV lido com sucesso: {} linhas, {} colunas",
+                       csvData.getRowCount(), csvData.getColumnCount());
+        } catch (Exception e) {
+            logger.error("Erro ao ler arquivo {}: {}", csvFilePath, e.getMessage());
+            for (int i = 0; i < jobs.size(); i++) {
+                metrics.recordRequest(false, -1);
+            }
+            return jobs.size();
+        } finally {
+            // A leitura é compartilhada pelos gráficos do arquivo e entra só no total alocado
+            metrics.addAllocation(allocation);
+        }
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (ChartJob job : jobs) {
+            futures.add(executor.submit(() -> generateChart(csvData, job, fingerprint)));
+        }
+
+        int failures = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                System.out.println("Gráfico salvo em: " + futures.get(i).get());
+            } catch (ExecutionException e) {
+                logger.error("Erro ao gerar gráfico {}: {}", jobs.get(i), e.getCause().getMessage());
+                failures++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Geração em lote interrompida", e);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Colunas usadas pelos gráficos de um arquivo, resolvidas pelo cabeçalho,
+     * ou null se alguma não puder ser resolvida (o arquivo é lido inteiro e o
+     * erro aparece no gráfico correspondente)
+     */
+    private Set<String> usedColumns(String csvFilePath, List<ChartJob> jobs) throws IOException, CsvException {
+        long start = chartGenerator.getMetrics().start();
+        List<String> headers = csvReader.readHeaders(csvFilePath);
+        Set<String> columns = new HashSet<>();
+        for (ChartJob job : jobs) {
+            String xColumn = job.getXColumn();
+            String yColumn = job.getYColumn();
+            boolean defaults = isBlank(xColumn) || !headers.contains(xColumn);
+            if (isBlank(yColumn) || headers.contains(yColumn)) {
+                defaults |= isBlank(yColumn);
+                if (!isBlank(yColumn)) {
+                    columns.add(yColumn);
+                }
+            } else {
+                // Lista de colunas Y: as inexistentes são ignoradas; se nenhuma existir, vale a padrão
+                defaults = true;
+                for (String column : yColumn.split(",")) {
+                    columns.add(column.trim());
+                }
+            }
+            // Colunas omitidas ou inexistentes usam a primeira e a segunda do arquivo
+            if (defaults) {
+                if (headers.size() < 2) {
+                    return null;
+                }
+                columns.add(headers.get(0));
+                columns.add(headers.get(1));
+            }
+            if (!isBlank(xColumn)) {
+                columns.add(xColumn);
+            }
+        }
+        chartGenerator.getMetrics().record(ChartMetrics.Stage.COLUMNS, start);
+        return columns;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private String generateChart(CSVData csvData, ChartJob job, FileFingerprint fingerprint) throws IOException {
+        ChartMetrics metrics = chartGenerator.getMetrics();
+        long allocation = metrics.allocationMark();
+        boolean success = false;
+        try {
+            String outputPath = generateChart(csvData, job, fingerprint, metrics);
+            success = true;
+            return outputPath;
+        } finally {
+            metrics.recordRequest(success, allocation);
+        }
+    }
+
+    private String generateChart(CSVData csvData, ChartJob job, FileFingerprint fingerprint, ChartMetrics metrics)
+            throws IOException {
+        long start = metrics.start();
+        String finalXColumn = determineColumn(csvData.getHeaders(), job.getXColumn(), 0);
+        List<String> finalYColumns = determineColumns(csvData.getHeaders(), job.getYColumn(), 1);
+        metrics.record(ChartMetrics.Stage.COLUMNS, start);
+
+        String outputPath = job.getOutputPath();
+        if (outputPath == null) {
+            outputPath = generateOutputPath(job.getCsvFilePath(), job.getChartType(), finalXColumn,
+                    String.join(",", finalYColumns), imageExtension());
+        }
+
+        if (imageCache == null) {
+            chartGenerator.generateChart(csvData, job.getChartType(), finalXColumn, finalYColumns, outputPath);
+            return outputPath;
+        }
+
+        String key = imageKey(fingerprint, job.getChartType(), finalXColumn, finalYColumns);
+        byte[] png = imageCache.get(key);
+        if (png == null) {
+            png = chartGenerator.encodeChart(csvData, job.getChartType(), finalXColumn, finalYColumns);
+            imageCache.put(key, png);
+        }
+        chartGenerator.writeImage(png, outputPath);
+        return outputPath;
+    }
+
+    /**
+     * Lê o arquivo para o modelo colunar, passando pelo cache quando ativo.
+     * Sem o cache são lidas só as colunas informadas; o cache guarda o arquivo
+     * inteiro, já que outros gráficos podem usar outras colunas.
+     *
+     * @param columns Colunas usadas pelos gráficos, ou null para todas
+     */
+    private CSVData readData(String csvFilePath, Collection<String> columns) throws IOException, CsvException {
+        return dataCache != null ? dataCache.get(csvFilePath) : csvReader.readCSV(csvFilePath, columns);
+    }
+
+    /**
+     * Colunas X e Y de um gráfico, para a projeção da leitura
+     */
+    static List<String> columns(String xColumn, List<String> yColumns) {
+        List<String> columns = new ArrayList<>(yColumns.size() + 1);
+        columns.add(xColumn);
+        columns.addAll(yColumns);
+        return columns;
+    }
+
+    /**
+     * Determina as colunas Y: uma só ou várias separadas por vírgula. Nomes
+     * inexistentes em uma lista são ignorados; se nenhum existir, usa a
+     * coluna padrão. Um cabeçalho que contenha vírgula continua valendo como
+     * nome de uma única coluna.
+     */
+    static List<String> determineColumns(List<String> headers, String columnNames, int defaultIndex) {
+        if (columnNames == null || columnNames.indexOf(',') < 0 || headers.contains(columnNames)) {
+            return List.of(determineColumn(headers, columnNames, defaultIndex));
+        }
+
+        List<String> columns = new ArrayList<>();
+        for (String name : columnNames.split(",")) {
+            String column = name.trim();
+            if (headers.contains(column)) {
+                if (!columns.contains(column)) {
+                    columns.add(column);
+                }
+            } else if (!column.isEmpty()) {
+                logger.warn("Coluna '{}' não encontrada, ignorada", column);
+            }
+        }
+        return columns.isEmpty() ? List.of(determineColumn(headers, null, defaultIndex)) : columns;
+    }
+
     /**
      * Determina qual coluna usar baseado no parâmetro fornecido ou índice padrão
      */
-    private String determineColumn(CSVData csvData, String columnName, int defaultIndex) {
+    static String determineColumn(List<String> headers, String columnName, int defaultIndex) {
         if (columnName != null && !columnName.trim().isEmpty()) {
-            if (csvData.hasColumn(columnName)) {
+            if (headers.contains(columnName)) {
                 return columnName;
             } else {
                 logger.warn("Coluna '{}' não encontrada, usando coluna padrão", columnName);
             }
         }
         
-        if (defaultIndex < csvData.getHeaders().size()) {
-            return csvData.getHeaders().get(defaultIndex);
+        if (defaultIndex < headers.size()) {
+            return headers.get(defaultIndex);
         }
         
         throw new IllegalArgumentException("Não foi possível determinar a coluna a ser usada");
     }
 
     /**
-     * Gera o caminho de saída para o gráfico
+     * Gera o caminho de saída para o gráfico, com a extensão do formato da imagem
      */
-    private String generateOutputPath(String csvFilePath, ChartType chartType) {
+    static String generateOutputPath(String csvFilePath, ChartType chartType, String extension) {
         Path csvPath = Paths.get(csvFilePath);
         String fileName = csvPath.getFileName().toString();
-        String baseName = fileName.substring(0, fileName.lastIndexOf('.'));
+        if (CSVFileReader.isCompressed(csvFilePath)) {
+            // dados.csv.gz e dados.zip geram dados_line.png, como dados.csv
+            fileName = fileName.substring(0, fileName.lastIndexOf('.'));
+        }
+        int dot = fileName.lastIndexOf('.');
+        String baseName = dot > 0 ? fileName.substring(0, dot) : fileName;
         
         // Se o arquivo está no diretório atual, usar o diretório atual
         Path parentDir = csvPath.getParent();
@@ -93,7 +644,19 @@ public class CSVChartService {
             parentDir = Paths.get(".");
         }
         
-        return parentDir.resolve(baseName + "_" + chartType.name().toLowerCase() + ".png").toString();
+        return parentDir.resolve(baseName + "_" + chartType.name().toLowerCase() + "." + extension).toString();
+    }
+
+    /**
+     * Gera o caminho de saída incluindo as colunas, para que vários gráficos
+     * do mesmo tipo e arquivo não se sobrescrevam
+     */
+    static String generateOutputPath(String csvFilePath, ChartType chartType, String xColumn, String yColumn,
+                                     String extension) {
+        String path = generateOutputPath(csvFilePath, chartType, extension);
+        String suffix = "_" + xColumn + "_" + yColumn;
+        return path.substring(0, path.length() - extension.length() - 1)
+                + suffix.replaceAll("[^\\p{L}\\p{N}_-]", "_") + "." + extension;
     }
 
     /**
@@ -101,10 +664,10 @@ public class CSVChartService {
      */
     public void listColumns(String csvFilePath) {
         try {
-            CSVData csvData = csvReader.readCSV(csvFilePath);
+            List<String> headers = csvReader.readHeaders(csvFilePath);
             System.out.println("\nColunas disponíveis no arquivo:");
-            for (int i = 0; i < csvData.getHeaders().size(); i++) {
-                System.out.printf("%d. %s%n", i + 1, csvData.getHeaders().get(i));
+            for (int i = 0; i < headers.size(); i++) {
+                System.out.printf("%d. %s%n", i + 1, headers.get(i));
             }
         } catch (Exception e) {
             logger.error("Erro ao listar colunas: {}", e.getMessage());
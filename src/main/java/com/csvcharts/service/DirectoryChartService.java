@@ -0,0 +1,185 @@
+package com.csvcharts.service;
+
+import com.csvcharts.model.CSVData;
+import com.csvcharts.model.ChartType;
+import com.csvcharts.util.CSVFileReader;
+import com.csvcharts.util.ChartDataCollector;
+import com.csvcharts.util.ChartGenerator;
+import com.csvcharts.util.ChartMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gera o mesmo tipo de gráfico para todos os arquivos CSV de um diretório
+ *
+ * Cada arquivo é tratado por uma virtual thread, que lê o CSV em streaming
+ * e grava a imagem. O desenho e a codificação da imagem, que são a etapa de
+ * CPU, rodam em um pool fixo com uma thread por núcleo. O número de arquivos em andamento é
+ * limitado, de modo que a leitura não se adianta indefinidamente em relação
+ * ao desenho e a memória fica limitada aos gráficos em andamento.
+ */
+public class DirectoryChartService {
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryChartService.class);
+
+    /** Arquivos em andamento por thread de desenho */
+    private static final int IN_FLIGHT_PER_RENDER_THREAD = 4;
+
+    private final CSVFileReader csvReader;
+    private final ChartGenerator chartGenerator;
+    private final int renderThreads;
+
+    public DirectoryChartService(CSVFileReader csvReader, ChartGenerator chartGenerator, int renderThreads) {
+        this.csvReader = csvReader;
+        this.chartGenerator = chartGenerator;
+        this.renderThreads = renderThreads;
+    }
+
+    /**
+     * Gera um gráfico para cada arquivo do diretório que combina com o padrão
+     *
+     * @param directory Diretório dos arquivos CSV
+     * @param glob Padrão dos nomes dos arquivos (por exemplo, *.csv)
+     * @param chartType Tipo de gráfico a ser gerado
+     * @param xColumn Nome da coluna X (opcional)
+     * @param yColumn Nome da coluna Y (opcional)
+     * @return Número de arquivos que falharam
+     * @throws IOException Se o diretório não puder ser listado
+     */
+    public int generateCharts(Path directory, String glob, ChartType chartType, String xColumn, String yColumn)
+            throws IOException {
+        List<Path> files = listFiles(directory, glob);
+        logger.info("Processando {} arquivos de {} ({} threads de desenho)", files.size(), directory, renderThreads);
+
+        AtomicInteger failures = new AtomicInteger();
+        AtomicLong rows = new AtomicLong();
+        Semaphore inFlight = new Semaphore(renderThreads * IN_FLIGHT_PER_RENDER_THREAD);
+        long start = System.nanoTime();
+
+        ExecutorService renderPool = Executors.newFixedThreadPool(renderThreads);
+        try (ExecutorService ioExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path file : files) {
+                inFlight.acquire();
+                ioExecutor.submit(() -> {
+                    try {
+                        rows.addAndGet(generateChart(file, chartType, xColumn, yColumn, renderPool));
+                    } catch (Exception e) {
+                        logger.error("Erro ao gerar gráfico de {}: {}", file, e.getMessage());
+                        failures.incrementAndGet();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Processamento do diretório interrompido", e);
+        } finally {
+            renderPool.shutdown();
+        }
+
+        double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+        System.out.printf("Arquivos: %d processados, %d com falha em %.2f s (%.1f arquivos/s, %.0f linhas/s)%n",
+                files.size() - failures.get(), failures.get(), seconds,
+                files.size() / seconds, rows.get() / seconds);
+        return failures.get();
+    }
+
+    /**
+     * Lê o arquivo e grava o gráfico na thread atual, delegando o desenho ao pool
+     *
+     * @return Número de linhas de dados lidas
+     */
+    private long generateChart(Path file, ChartType chartType, String xColumn, String yColumn,
+                               ExecutorService renderPool) throws Exception {
+        ChartMetrics metrics = chartGenerator.getMetrics();
+        boolean success = false;
+        try {
+            long rowCount = generateChart(file, chartType, xColumn, yColumn, renderPool, metrics);
+            success = true;
+            return rowCount;
+        } finally {
+            // Threads virtuais não informam a memória alocada: conta só a do desenho, no pool
+            metrics.recordRequest(success, -1);
+        }
+    }
+
+    private long generateChart(Path file, ChartType chartType, String xColumn, String yColumn,
+                               ExecutorService renderPool, ChartMetrics metrics) throws Exception {
+        String csvFilePath = file.toString();
+        long start = metrics.start();
+        List<String> headers = csvReader.readHeaders(csvFilePath);
+        String finalXColumn = CSVChartService.determineColumn(headers, xColumn, 0);
+        List<String> finalYColumns = CSVChartService.determineColumns(headers, yColumn, 1);
+        metrics.record(ChartMetrics.Stage.COLUMNS, start);
+
+        // Com a cópia colunar são carregadas só as colunas do gráfico; sem ela, o arquivo é percorrido em streaming
+        start = metrics.start();
+        CSVData csvData = csvReader.isColumnarSidecar()
+                ? csvReader.readCSV(csvFilePath, CSVChartService.columns(finalXColumn, finalYColumns))
+                : null;
+        ChartDataCollector collector = csvData == null
+                ? chartGenerator.newCollector(chartType, finalXColumn, finalYColumns)
+                : null;
+        long rowCount;
+        byte[] image;
+        try {
+            rowCount = csvData != null ? csvData.getRowCount() : csvReader.streamCSV(csvFilePath, collector);
+            metrics.record(ChartMetrics.Stage.READ, start);
+
+            // Desenho e codificação no pool; a gravação fica na thread virtual
+            image = renderPool.submit(() -> {
+                long allocation = metrics.allocationMark();
+                try {
+                    return csvData != null
+                            ? chartGenerator.encodeChart(csvData, chartType, finalXColumn, finalYColumns)
+                            : chartGenerator.encodeChart(collector);
+                } finally {
+                    metrics.addAllocation(allocation);
+                }
+            }).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            if (collector != null) {
+                collector.close();
+            }
+        }
+
+        String outputPath = CSVChartService.generateOutputPath(csvFilePath, chartType,
+                chartGenerator.getImageWriter().getFormat().getExtension());
+        chartGenerator.writeImage(image, outputPath);
+        System.out.println("Gráfico salvo em: " + outputPath);
+        return rowCount;
+    }
+
+    private List<Path> listFiles(Path directory, String glob) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("Diretório não encontrado: " + directory);
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+}
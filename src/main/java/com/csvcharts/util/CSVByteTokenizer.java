@@ -0,0 +1,326 @@
+package com.csvcharts.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Separa registros e campos CSV diretamente sobre bytes UTF-8
+ *
+ * Segue as mesmas regras do RFC4180Parser do OpenCSV: um campo só é
+ * delimitado por aspas quando começa com aspas, e "" dentro dele representa
+ * uma aspa literal. Os limites de cada campo ficam guardados como posições
+ * no buffer; o tokenizer expõe o registro atual como {@link CSVRecord}, de
+ * modo que números são convertidos e textos comparados sem criar Strings.
+ */
+final class CSVByteTokenizer implements CSVRecord {
+    static final byte QUOTE = '"';
+    static final byte SEPARATOR = ',';
+    static final byte LINE_FEED = '\n';
+    static final byte CARRIAGE_RETURN = '\r';
+
+    private ByteBuffer buffer;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] quoted = new boolean[16];
+    private int fieldCount;
+    private boolean complete;
+    private boolean unterminatedQuote;
+
+    private byte[] scratch = new byte[256];
+    private char[] chars = new char[256];
+    private final ByteChars byteChars = new ByteChars();
+
+    /**
+     * Separa o registro que começa em position
+     *
+     * @return Posição logo após o fim do registro
+     */
+    int nextRecord(ByteBuffer buffer, int position, int limit) {
+        this.buffer = buffer;
+        fieldCount = 0;
+        complete = false;
+        unterminatedQuote = false;
+        int i = position;
+
+        while (true) {
+            int start = i;
+            boolean isQuoted = false;
+
+            if (i < limit && buffer.get(i) == QUOTE) {
+                isQuoted = true;
+                i++;
+                while (true) {
+                    if (i >= limit) {
+                        unterminatedQuote = true;
+                        addField(start, limit, true);
+                        return limit;
+                    }
+                    if (buffer.get(i++) == QUOTE) {
+                        if (i < limit && buffer.get(i) == QUOTE) {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+            }
+
+            byte b = 0;
+            while (i < limit && (b = buffer.get(i)) != SEPARATOR && b != LINE_FEED) {
+                i++;
+            }
+            addField(start, i, isQuoted);
+
+            if (i >= limit) {
+                return limit;
+            }
+            i++;
+            if (b == LINE_FEED) {
+                complete = true;
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Indica se o último registro terminou com quebra de linha (e não no
+     * limite do buffer)
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Indica se o último registro chegou ao limite do buffer dentro de aspas
+     */
+    boolean hasUnterminatedQuote() {
+        return unterminatedQuote;
+    }
+
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    @Override
+    public int size() {
+        return fieldCount;
+    }
+
+    /**
+     * Decodifica o campo, já sem aspas e sem espaços nas extremidades
+     */
+    @Override
+    public String getString(int field) {
+        if (!quoted[field]) {
+            int start = trimStart(field);
+            int end = trimEnd(field, start);
+            return decode(start, end);
+        }
+
+        int start = starts[field];
+        int end = ends[field];
+        ensureScratch(end - start);
+        int length = 0;
+        int i = start + 1;
+        while (i < end) {
+            byte b = buffer.get(i++);
+            if (b == QUOTE) {
+                if (i < end && buffer.get(i) == QUOTE) {
+                    scratch[length++] = QUOTE;
+                    i++;
+                } else {
+                    break;
+                }
+            } else if (b == CARRIAGE_RETURN) {
+                // Como no OpenCSV, quebras de linha dentro de aspas viram '\n'
+                if (i >= end || buffer.get(i) != LINE_FEED) {
+                    scratch[length++] = LINE_FEED;
+                }
+            } else {
+                scratch[length++] = b;
+            }
+        }
+        // Texto após a aspa de fechamento é mantido como está
+        while (i < end) {
+            scratch[length++] = buffer.get(i++);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8).trim();
+    }
+
+    @Override
+    public boolean isEmpty(int field) {
+        if (quoted[field]) {
+            return getString(field).isEmpty();
+        }
+        int start = trimStart(field);
+        return trimEnd(field, start) == start;
+    }
+
+    @Override
+    public boolean parseNumber(int field, NumberParser parser) {
+        if (quoted[field]) {
+            return parser.parse(getString(field));
+        }
+        int start = trimStart(field);
+        int end = trimEnd(field, start);
+        byteChars.buffer = buffer;
+        return parser.parse(byteChars, start, end);
+    }
+
+    @Override
+    public boolean parseTimestamp(int field, TimestampParser parser) {
+        if (quoted[field]) {
+            return parser.parse(getString(field));
+        }
+        int start = trimStart(field);
+        int end = trimEnd(field, start);
+        byteChars.buffer = buffer;
+        return parser.parse(byteChars, start, end);
+    }
+
+    @Override
+    public int hashString(int field) {
+        int length = decodeChars(field);
+        if (length < 0) {
+            return getString(field).hashCode();
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean contentEquals(int field, String value) {
+        int length = decodeChars(field);
+        if (length < 0) {
+            return getString(field).equals(value);
+        }
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars[i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int trimStart(int field) {
+        int start = starts[field];
+        int end = ends[field];
+        while (start < end && (buffer.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimEnd(int field, int start) {
+        int end = ends[field];
+        while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Decodifica um campo sem aspas para o array de chars reaproveitado
+     *
+     * @return Quantidade de chars, ou -1 se o campo precisa do caminho via String
+     *         (campo entre aspas ou UTF-8 inválido)
+     */
+    private int decodeChars(int field) {
+        if (quoted[field]) {
+            return -1;
+        }
+        int i = trimStart(field);
+        int end = trimEnd(field, i);
+        if (chars.length < end - i) {
+            chars = new char[Math.max(end - i, chars.length * 2)];
+        }
+
+        int length = 0;
+        while (i < end) {
+            int b = buffer.get(i) & 0xFF;
+            if (b < 0x80) {
+                chars[length++] = (char) b;
+                i++;
+            } else if ((b & 0xE0) == 0xC0 && i + 1 < end && isContinuation(i + 1)) {
+                chars[length++] = (char) (((b & 0x1F) << 6) | (buffer.get(i + 1) & 0x3F));
+                i += 2;
+            } else if ((b & 0xF0) == 0xE0 && i + 2 < end && isContinuation(i + 1) && isContinuation(i + 2)) {
+                chars[length++] = (char) (((b & 0x0F) << 12) | ((buffer.get(i + 1) & 0x3F) << 6)
+                        | (buffer.get(i + 2) & 0x3F));
+                i += 3;
+            } else if ((b & 0xF8) == 0xF0 && i + 3 < end && isContinuation(i + 1)
+                    && isContinuation(i + 2) && isContinuation(i + 3)) {
+                int codePoint = ((b & 0x07) << 18) | ((buffer.get(i + 1) & 0x3F) << 12)
+                        | ((buffer.get(i + 2) & 0x3F) << 6) | (buffer.get(i + 3) & 0x3F);
+                chars[length++] = Character.highSurrogate(codePoint);
+                chars[length++] = Character.lowSurrogate(codePoint);
+                i += 4;
+            } else {
+                return -1;
+            }
+        }
+        return length;
+    }
+
+    private boolean isContinuation(int index) {
+        return (buffer.get(index) & 0xC0) == 0x80;
+    }
+
+    private String decode(int start, int end) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+        }
+        ensureScratch(end - start);
+        buffer.get(start, scratch, 0, end - start);
+        return new String(scratch, 0, end - start, StandardCharsets.UTF_8);
+    }
+
+    private void addField(int start, int end, boolean isQuoted) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+            quoted = Arrays.copyOf(quoted, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        quoted[fieldCount] = isQuoted;
+        fieldCount++;
+    }
+
+    private void ensureScratch(int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+    }
+
+    /**
+     * Visão ASCII dos bytes do buffer, usada para converter números e datas sem cópia
+     */
+    private static final class ByteChars implements CharSequence {
+        private ByteBuffer buffer;
+
+        @Override
+        public int length() {
+            return buffer.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            buffer.get(start, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.csvcharts.util;
+
+import com.csvcharts.model.CSVData;
+import com.csvcharts.model.Column;
+import com.csvcharts.model.ColumnBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Handler de leitura que monta um {@link CSVData} colunar a partir das linhas
+ *
+ * Com uma projeção, só as colunas informadas são guardadas; os campos das
+ * demais são pulados sem virar String (nos leitores que entregam
+ * {@link CSVRecord}).
+ */
+public class CSVDataBuilder implements CSVRowHandler {
+    private final Collection<String> projection;
+    private List<String> headers;
+    private ColumnBuilder[] builders;
+    private int[] indexes;
+    private int rowCount;
+
+    public CSVDataBuilder() {
+        this(null);
+    }
+
+    /**
+     * @param projection Colunas a guardar, ou null para todas
+     */
+    public CSVDataBuilder(Collection<String> projection) {
+        this.projection = projection;
+    }
+
+    @Override
+    public void onHeader(List<String> headers) {
+        this.headers = new ArrayList<>(headers.size());
+        List<Integer> selected = new ArrayList<>(headers.size());
+        for (int j = 0; j < headers.size(); j++) {
+            if (projection == null || projection.contains(headers.get(j))) {
+                this.headers.add(headers.get(j));
+                selected.add(j);
+            }
+        }
+
+        this.builders = new ColumnBuilder[selected.size()];
+        this.indexes = new int[selected.size()];
+        for (int k = 0; k < builders.length; k++) {
+            indexes[k] = selected.get(k);
+            builders[k] = new ColumnBuilder(headers.get(indexes[k]));
+        }
+    }
+
+    @Override
+    public void onRow(String[] row) {
+        for (int k = 0; k < builders.length; k++) {
+            int j = indexes[k];
+            builders[k].append(j < row.length ? row[j] : null);
+        }
+        rowCount++;
+    }
+
+    @Override
+    public void onRecord(CSVRecord record) {
+        for (int k = 0; k < builders.length; k++) {
+            builders[k].append(record, indexes[k]);
+        }
+        rowCount++;
+    }
+
+    public CSVData build() {
+        List<Column> columns = new ArrayList<>(builders.length);
+        for (ColumnBuilder builder : builders) {
+            columns.add(builder.build());
+        }
+        return new CSVData(headers, columns, rowCount);
+    }
+}
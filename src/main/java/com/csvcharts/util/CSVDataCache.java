@@ -0,0 +1,164 @@
+package com.csvcharts.util;
+
+import com.csvcharts.model.CSVData;
+import com.opencsv.exceptions.CsvException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache de arquivos CSV já convertidos em {@link CSVData}
+ *
+ * As entradas são identificadas pelo caminho do arquivo e validadas pelo
+ * tamanho e pela data de modificação: se o arquivo mudou, a entrada é
+ * descartada e o arquivo é lido de novo. O tamanho total é limitado pela
+ * memória estimada de cada CSVData ({@link CSVData#estimatedHeapBytes()}),
+ * descartando primeiro os arquivos usados há mais tempo.
+ */
+public class CSVDataCache {
+    private static final Logger logger = LoggerFactory.getLogger(CSVDataCache.class);
+
+    private final CSVFileReader csvReader;
+    private final long maxBytes;
+    private final Map<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * @param csvReader Leitor usado quando o arquivo não está no cache
+     * @param maxBytes Memória estimada máxima de todas as entradas
+     */
+    public CSVDataCache(CSVFileReader csvReader, long maxBytes) {
+        this.csvReader = csvReader;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Retorna os dados do arquivo, lendo-o apenas se não estiver no cache ou
+     * se tiver sido alterado desde a leitura
+     *
+     * @param filePath Caminho do arquivo CSV
+     * @return Dados do arquivo
+     * @throws IOException Se houver erro na leitura do arquivo
+     * @throws CsvException Se houver erro no parsing do CSV
+     */
+    public CSVData get(String filePath) throws IOException, CsvException {
+        FileFingerprint fingerprint = FileFingerprint.of(filePath);
+        Path path = fingerprint.getPath();
+
+        synchronized (this) {
+            Entry entry = entries.get(path);
+            if (entry != null) {
+                if (entry.fingerprint.equals(fingerprint)) {
+                    hits++;
+                    logger.debug("Cache de dados: acerto para {}", path);
+                    return entry.data;
+                }
+                remove(path);
+                invalidations++;
+                logger.debug("Cache de dados: {} foi alterado, entrada descartada", path);
+            }
+            misses++;
+        }
+
+        // A leitura fica fora do bloqueio para não travar os demais arquivos
+        CSVData data = csvReader.readCSV(filePath);
+        long bytes = data.estimatedHeapBytes();
+        if (bytes > maxBytes) {
+            logger.debug("Cache de dados: {} ({} bytes) excede o limite e não será guardado", path, bytes);
+            return data;
+        }
+
+        synchronized (this) {
+            Entry previous = entries.remove(path);
+            if (previous != null) {
+                totalBytes -= previous.bytes;
+            }
+            entries.put(path, new Entry(data, fingerprint, bytes));
+            totalBytes += bytes;
+            evictToLimit();
+        }
+        return data;
+    }
+
+    /**
+     * Descarta todas as entradas
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Cache de dados: %d entradas, %d/%d bytes, %d acertos, %d falhas, %d descartes, %d invalidações",
+                entries.size(), totalBytes, maxBytes, hits, misses, evictions, invalidations);
+    }
+
+    private void evictToLimit() {
+        Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Path, Entry> eldest = iterator.next();
+            totalBytes -= eldest.getValue().bytes;
+            iterator.remove();
+            evictions++;
+            logger.debug("Cache de dados: {} descartado por limite de memória", eldest.getKey());
+        }
+    }
+
+    private void remove(Path path) {
+        Entry entry = entries.remove(path);
+        if (entry != null) {
+            totalBytes -= entry.bytes;
+        }
+    }
+
+    private static final class Entry {
+        final CSVData data;
+        final FileFingerprint fingerprint;
+        final long bytes;
+
+        Entry(CSVData data, FileFingerprint fingerprint, long bytes) {
+            this.data = data;
+            this.fingerprint = fingerprint;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -1,26 +1,127 @@
 package com.csvcharts.util;
 
 import com.csvcharts.model.CSVData;
+import com.csvcharts.model.Column;
+import com.csvcharts.model.ColumnarSidecar;
+import com.csvcharts.model.NumericColumn;
 import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.RFC4180ParserBuilder;
 import com.opencsv.exceptions.CsvException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.FileReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utilitário para leitura de arquivos CSV
+ *
+ * Arquivos .csv.gz e .zip (a primeira entrada .csv) são lidos sem gerar
+ * uma cópia descompactada: o conteúdo é descompactado em outra thread
+ * ({@link DecompressingInputStream}) enquanto o parser configurado o lê.
+ * Como não dá para mapear nem dividir um arquivo compactado, eles são
+ * sempre lidos sequencialmente.
  */
 public class CSVFileReader {
     private static final Logger logger = LoggerFactory.getLogger(CSVFileReader.class);
+    private static final LogThrottle REJECTED_LOG = new LogThrottle(10, TimeUnit.SECONDS);
+
+    /** Arquivos menores que isto são sempre lidos sequencialmente */
+    public static final long DEFAULT_PARALLEL_THRESHOLD = 32L << 20;
+
+    private int parallelism = 1;
+    private long parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private ReaderBackend backend = ReaderBackend.OPENCSV;
+    private ChartMetrics metrics = ChartMetrics.DISABLED;
+    private boolean columnarSidecar;
+
+    /**
+     * Define quantas threads a leitura paralela usa (1 desativa o modo paralelo)
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Paralelismo deve ser maior que zero: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Define o tamanho mínimo de arquivo, em bytes, para usar a leitura paralela
+     */
+    public void setParallelThreshold(long parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Define a implementação usada na leitura sequencial (streamCSV, readHeaders
+     * e readCSV abaixo do limite da leitura paralela)
+     */
+    public void setBackend(ReaderBackend backend) {
+        this.backend = backend;
+    }
+
+    public ReaderBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Define onde são contadas as linhas e os bytes lidos (padrão: {@link ChartMetrics#DISABLED})
+     */
+    public void setMetrics(ChartMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Guarda ao lado de cada CSV lido por readCSV uma cópia binária colunar
+     * ({@link ColumnarSidecar}), carregada nas leituras seguintes no lugar do
+     * texto enquanto o CSV não mudar
+     */
+    public void setColumnarSidecar(boolean columnarSidecar) {
+        this.columnarSidecar = columnarSidecar;
+    }
+
+    public boolean isColumnarSidecar() {
+        return columnarSidecar;
+    }
+
+    /**
+     * Indica se vale ler o arquivo inteiro para o modelo colunar (readCSV) em
+     * vez de percorrê-lo em streaming: com a leitura paralela ou com a cópia colunar
+     */
+    public boolean usesColumnarRead(String filePath) throws IOException {
+        return columnarSidecar || usesParallelRead(filePath);
+    }
+
+    /**
+     * Indica se readCSV usará a leitura paralela para o arquivo
+     */
+    public boolean usesParallelRead(String filePath) throws IOException {
+        return parallelism > 1 && !isCompressed(filePath) && Files.size(Paths.get(filePath)) >= parallelThreshold;
+    }
+
+    /**
+     * Indica se o arquivo é compactado (.gz ou .zip), pela extensão
+     */
+    public static boolean isCompressed(String filePath) {
+        return DecompressingInputStream.isCompressed(Paths.get(filePath));
+    }
 
     /**
      * Lê um arquivo CSV e retorna os dados estruturados
@@ -31,45 +132,221 @@ public class CSVFileReader {
      * @throws CsvException Se houver erro no parsing do CSV
      */
     public CSVData readCSV(String filePath) throws IOException, CsvException {
-        Path path = Paths.get(filePath);
-        
-        if (!Files.exists(path)) {
-            throw new IOException("Arquivo não encontrado: " + filePath);
+        return readCSV(filePath, null);
+    }
+
+    /**
+     * Lê só as colunas informadas de um arquivo CSV. O cabeçalho é lido
+     * primeiro e, nas linhas, os campos das demais colunas são pulados sem
+     * virar String (no OpenCSV todos os campos são convertidos, mas só os
+     * projetados são guardados).
+     *
+     * @param filePath Caminho do arquivo CSV
+     * @param columns Colunas a guardar, ou null para todas; nomes inexistentes são ignorados
+     * @return Objeto CSVData só com as colunas pedidas, na ordem do arquivo
+     * @throws IOException Se houver erro na leitura do arquivo
+     * @throws CsvException Se houver erro no parsing do CSV
+     */
+    public CSVData readCSV(String filePath, Collection<String> columns) throws IOException, CsvException {
+        checkExists(filePath);
+
+        CSVData csvData = columnarSidecar ? readWithSidecar(filePath, columns) : parseCSV(filePath, columns);
+
+        logRejectedValues(csvData);
+        logger.debug("Memória estimada dos dados: {} bytes ({} bytes por linha)",
+                csvData.estimatedHeapBytes(),
+                csvData.getRowCount() > 0 ? csvData.estimatedHeapBytes() / csvData.getRowCount() : 0);
+        return csvData;
+    }
+
+    /**
+     * Um resumo por coluna numérica com valores rejeitados, com os primeiros
+     * exemplos. Só entram as colunas em que os números são a maioria: as
+     * demais são rótulos, e os valores delas só são avisados se forem usados
+     * como Y. Em leituras repetidas (servidor, diretório), os resumos são
+     * registrados no máximo uma vez a cada 10 segundos.
+     */
+    private static void logRejectedValues(CSVData csvData) {
+        List<NumericColumn> rejected = new ArrayList<>();
+        for (Column column : csvData.getColumns()) {
+            if (column instanceof NumericColumn numeric && numeric.getRejectedCount() > 0
+                    && numeric.getRejectedCount() < numeric.getNumericCount()) {
+                rejected.add(numeric);
+            }
+        }
+        long suppressed = rejected.isEmpty() ? -1 : REJECTED_LOG.acquire();
+        if (suppressed < 0) {
+            return;
+        }
+        for (NumericColumn column : rejected) {
+            logger.warn("Coluna '{}': {} valores não numéricos ignorados; exemplos: {}{}",
+                    column.getName(), column.getRejectedCount(),
+                    ValueSamples.describe(column.getRejectedSamples(ValueSamples.MAX_SAMPLES)),
+                    LogThrottle.suppressedNote(suppressed));
+            suppressed = 0;
+        }
+    }
+
+    /**
+     * Carrega a cópia colunar do arquivo ou, se ela não existir ou estiver
+     * desatualizada, lê o CSV e grava uma nova cópia. A cópia tem sempre todas
+     * as colunas, para servir a qualquer projeção seguinte.
+     */
+    private CSVData readWithSidecar(String filePath, Collection<String> columns) throws IOException, CsvException {
+        // A versão é lida antes dos dados: se o CSV mudar durante a leitura, a cópia não será reaproveitada
+        FileFingerprint fingerprint = FileFingerprint.of(filePath);
+        Path sidecar = ColumnarSidecar.pathFor(Paths.get(filePath));
+        try {
+            CSVData csvData = ColumnarSidecar.read(sidecar, fingerprint, columns);
+            if (csvData != null) {
+                logger.info("CSV carregado da cópia colunar {}: {} linhas de dados", sidecar, csvData.getRowCount());
+                if (metrics.isEnabled()) {
+                    metrics.addRowsRead(csvData.getRowCount());
+                    metrics.addBytesRead(Files.size(sidecar));
+                }
+                return csvData;
+            }
+        } catch (IOException e) {
+            logger.warn("Cópia colunar ignorada: {}", e.getMessage());
+        }
+
+        CSVData csvData = parseCSV(filePath, null);
+        try {
+            ColumnarSidecar.write(sidecar, csvData, fingerprint);
+            logger.info("Cópia colunar gravada em {}", sidecar);
+        } catch (IOException e) {
+            logger.warn("Não foi possível gravar a cópia colunar {}: {}", sidecar, e.getMessage());
+        }
+        return columns != null ? csvData.select(columns) : csvData;
+    }
+
+    /**
+     * Interpreta o texto do CSV, em paralelo para arquivos grandes (ou em
+     * sequência, se as faixas não puderem ser alinhadas a registros)
+     */
+    private CSVData parseCSV(String filePath, Collection<String> columns) throws IOException, CsvException {
+        if (usesParallelRead(filePath)) {
+            logger.info("Lendo arquivo CSV em paralelo ({} threads): {}", parallelism, filePath);
+            CSVData csvData = new ParallelCSVReader(parallelism).read(Paths.get(filePath), columns);
+            if (csvData != null) {
+                logger.info("CSV lido com sucesso: {} linhas de dados", csvData.getRowCount());
+                countRead(filePath, csvData.getRowCount());
+                return csvData;
+            }
         }
+        CSVDataBuilder builder = new CSVDataBuilder(columns);
+        streamCSV(filePath, builder);
+        return builder.build();
+    }
+
+    /**
+     * Lê um arquivo CSV linha a linha, entregando cada registro ao handler
+     * sem manter o arquivo inteiro em memória
+     * 
+     * @param filePath Caminho do arquivo CSV
+     * @param handler Callback que recebe o cabeçalho e as linhas
+     * @return Número de linhas de dados lidas
+     * @throws IOException Se houver erro na leitura do arquivo
+     * @throws CsvException Se houver erro no parsing do CSV
+     */
+    public long streamCSV(String filePath, CSVRowHandler handler) throws IOException, CsvException {
+        checkExists(filePath);
 
         logger.info("Lendo arquivo CSV: {}", filePath);
 
-        try (com.opencsv.CSVReader reader = new com.opencsv.CSVReader(new FileReader(filePath))) {
-            List<String[]> allRows = reader.readAll();
-            
-            if (allRows.isEmpty()) {
+        if (isCompressed(filePath)) {
+            try (InputStream input = DecompressingInputStream.open(Paths.get(filePath))) {
+                long rowCount;
+                if (backend == ReaderBackend.MAPPED) {
+                    rowCount = new MappedCSVReader().stream(input, handler);
+                    logger.info("CSV lido com sucesso: {} linhas de dados", rowCount);
+                } else {
+                    try (CSVReader reader = openReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+                        rowCount = stream(reader, handler);
+                    }
+                }
+                countRead(filePath, rowCount);
+                return rowCount;
+            } catch (IOException e) {
+                logger.error("Erro ao ler arquivo CSV: {}", e.getMessage());
+                throw e;
+            }
+        }
+
+        if (backend == ReaderBackend.MAPPED) {
+            try {
+                long rowCount = new MappedCSVReader().stream(Paths.get(filePath), handler);
+                logger.info("CSV lido com sucesso: {} linhas de dados", rowCount);
+                countRead(filePath, rowCount);
+                return rowCount;
+            } catch (IOException e) {
+                logger.error("Erro ao ler arquivo CSV: {}", e.getMessage());
+                throw e;
+            }
+        }
+
+        try (CSVReader reader = openReader(new FileReader(filePath, StandardCharsets.UTF_8))) {
+            long rowCount = stream(reader, handler);
+            countRead(filePath, rowCount);
+            return rowCount;
+        }
+    }
+
+    /**
+     * Lê um CSV de um fluxo de bytes UTF-8 (por exemplo, um upload), linha a
+     * linha, entregando cada registro ao handler. Usa sempre o OpenCSV.
+     * 
+     * @param input Conteúdo do CSV; é fechado ao final da leitura
+     * @param handler Callback que recebe o cabeçalho e as linhas
+     * @return Número de linhas de dados lidas
+     * @throws IOException Se houver erro na leitura
+     * @throws CsvException Se houver erro no parsing do CSV
+     */
+    public long streamCSV(InputStream input, CSVRowHandler handler) throws IOException, CsvException {
+        CountingInputStream counting = metrics.isEnabled() ? new CountingInputStream(input) : null;
+        try (CSVReader reader = openReader(new InputStreamReader(
+                counting != null ? counting : input, StandardCharsets.UTF_8))) {
+            long rowCount = stream(reader, handler);
+            if (counting != null) {
+                metrics.addRowsRead(rowCount);
+                metrics.addBytesRead(counting.count);
+            }
+            return rowCount;
+        }
+    }
+
+    private void countRead(String filePath, long rowCount) throws IOException {
+        if (metrics.isEnabled()) {
+            metrics.addRowsRead(rowCount);
+            metrics.addBytesRead(Files.size(Paths.get(filePath)));
+        }
+    }
+
+    private long stream(CSVReader reader, CSVRowHandler handler) throws IOException, CsvException {
+        try {
+            String[] headers = reader.readNext();
+
+            if (headers == null) {
                 throw new IOException("Arquivo CSV está vazio");
             }
 
             // Primeira linha são os cabeçalhos
-            String[] headers = allRows.get(0);
-            List<String> headerList = new ArrayList<>();
-            for (String header : headers) {
-                headerList.add(header.trim());
-            }
+            handler.onHeader(trimHeaders(headers));
 
             // Restante das linhas são os dados
-            List<Map<String, String>> dataRows = new ArrayList<>();
-            for (int i = 1; i < allRows.size(); i++) {
-                String[] row = allRows.get(i);
-                Map<String, String> rowMap = new HashMap<>();
-                
-                for (int j = 0; j < Math.min(headers.length, row.length); j++) {
-                    rowMap.put(headers[j].trim(), row[j] != null ? row[j].trim() : "");
+            long rowCount = 0;
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = row[j] != null ? row[j].trim() : "";
                 }
-                
-                dataRows.add(rowMap);
+                handler.onRow(row);
+                rowCount++;
             }
+            handler.onEnd();
 
-            CSVData csvData = new CSVData(headerList, dataRows);
-            logger.info("CSV lido com sucesso: {} linhas de dados", dataRows.size());
-            
-            return csvData;
+            logger.info("CSV lido com sucesso: {} linhas de dados", rowCount);
+            return rowCount;
 
         } catch (IOException e) {
             logger.error("Erro ao ler arquivo CSV: {}", e.getMessage());
@@ -81,7 +358,72 @@ public class CSVFileReader {
     }
 
     /**
-     * Valida se um arquivo é um CSV válido
+     * Lê apenas a linha de cabeçalho do arquivo CSV
+     * 
+     * @param filePath Caminho do arquivo CSV
+     * @return Lista de cabeçalhos
+     * @throws IOException Se houver erro na leitura do arquivo
+     * @throws CsvException Se houver erro no parsing do CSV
+     */
+    public List<String> readHeaders(String filePath) throws IOException, CsvException {
+        checkExists(filePath);
+
+        if (isCompressed(filePath)) {
+            try (InputStream input = DecompressingInputStream.open(Paths.get(filePath))) {
+                if (backend == ReaderBackend.MAPPED) {
+                    return new MappedCSVReader().readHeaders(input);
+                }
+                return readHeaders(openReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+            }
+        }
+
+        if (backend == ReaderBackend.MAPPED) {
+            return new MappedCSVReader().readHeaders(Paths.get(filePath));
+        }
+
+        return readHeaders(openReader(new FileReader(filePath, StandardCharsets.UTF_8)));
+    }
+
+    private List<String> readHeaders(CSVReader openedReader) throws IOException, CsvException {
+        try (CSVReader reader = openedReader) {
+            String[] headers = reader.readNext();
+
+            if (headers == null) {
+                throw new IOException("Arquivo CSV está vazio");
+            }
+
+            return trimHeaders(headers);
+        }
+    }
+
+    /**
+     * Abre o leitor do OpenCSV seguindo o RFC 4180 (sem caractere de escape),
+     * as mesmas regras usadas pela leitura paralela
+     */
+    private CSVReader openReader(Reader source) {
+        return new CSVReaderBuilder(source)
+                .withCSVParser(new RFC4180ParserBuilder().build())
+                .build();
+    }
+
+    private void checkExists(String filePath) throws IOException {
+        Path path = Paths.get(filePath);
+        
+        if (!Files.exists(path)) {
+            throw new IOException("Arquivo não encontrado: " + filePath);
+        }
+    }
+
+    private List<String> trimHeaders(String[] headers) {
+        List<String> headerList = new ArrayList<>();
+        for (String header : headers) {
+            headerList.add(header.trim());
+        }
+        return headerList;
+    }
+
+    /**
+     * Valida se um arquivo é um CSV válido (.csv, ou compactado como .csv.gz ou .zip)
      * 
      * @param filePath Caminho do arquivo
      * @return true se o arquivo é um CSV válido
@@ -94,7 +436,7 @@ public class CSVFileReader {
             }
 
             String fileName = path.getFileName().toString().toLowerCase();
-            return fileName.endsWith(".csv");
+            return fileName.endsWith(".csv") || fileName.endsWith(".csv.gz") || fileName.endsWith(".zip");
 
         } catch (Exception e) {
             logger.error("Erro ao validar arquivo CSV: {}", e.getMessage());
@@ -120,4 +462,33 @@ public class CSVFileReader {
             return "Erro ao ler arquivo: " + e.getMessage();
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Conta os bytes lidos de um fluxo cujo tamanho não é conhecido de antemão
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.csvcharts.util;
+
+/**
+ * Visão de um registro CSV que ainda não foi convertido em Strings
+ *
+ * Permite converter números e comparar textos direto na origem (por exemplo,
+ * os bytes de um arquivo mapeado), criando Strings apenas quando necessário.
+ * A visão só é válida durante a chamada que a recebeu.
+ */
+public interface CSVRecord {
+
+    /**
+     * Quantidade de campos do registro
+     */
+    int size();
+
+    /**
+     * Texto do campo, sem aspas e sem espaços nas extremidades
+     */
+    String getString(int index);
+
+    /**
+     * Indica se o campo está vazio
+     */
+    boolean isEmpty(int index);
+
+    /**
+     * Converte o campo em número usando o parser informado
+     *
+     * @return true se o campo é um número válido
+     */
+    boolean parseNumber(int index, NumberParser parser);
+
+    /**
+     * Converte o campo em data e hora usando o parser informado
+     *
+     * @return true se o campo é uma data válida
+     */
+    default boolean parseTimestamp(int index, TimestampParser parser) {
+        return parser.parse(getString(index));
+    }
+
+    /**
+     * Hash do campo, igual a getString(index).hashCode()
+     */
+    int hashString(int index);
+
+    /**
+     * Indica se o texto do campo é igual ao valor informado
+     */
+    boolean contentEquals(int index, String value);
+
+    /**
+     * Materializa todos os campos como Strings
+     */
+    default String[] toArray() {
+        String[] row = new String[size()];
+        for (int j = 0; j < row.length; j++) {
+            row[j] = getString(j);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,44 @@
+package com.csvcharts.util;
+
+import java.util.List;
+
+/**
+ * Callback usado na leitura em streaming de arquivos CSV
+ *
+ * O leitor entrega o cabeçalho uma única vez e depois cada linha de dados,
+ * na ordem do arquivo, sem manter as linhas anteriores em memória.
+ */
+public interface CSVRowHandler {
+
+    /**
+     * Recebe os cabeçalhos do arquivo (já sem espaços nas extremidades)
+     *
+     * @param headers Lista de cabeçalhos
+     */
+    void onHeader(List<String> headers);
+
+    /**
+     * Recebe uma linha de dados. Os valores já vêm sem espaços nas extremidades
+     * e o array pode ser reaproveitado pelo leitor após o retorno do método.
+     *
+     * @param row Valores da linha
+     */
+    void onRow(String[] row);
+
+    /**
+     * Recebe uma linha de dados ainda não convertida em Strings. Leitores que
+     * trabalham sobre bytes chamam este método; a implementação padrão
+     * materializa os valores e delega para {@link #onRow(String[])}.
+     *
+     * @param record Registro, válido apenas durante a chamada
+     */
+    default void onRecord(CSVRecord record) {
+        onRow(record.toArray());
+    }
+
+    /**
+     * Chamado após a última linha do arquivo
+     */
+    default void onEnd() {
+    }
+}
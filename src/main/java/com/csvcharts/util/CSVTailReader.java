@@ -0,0 +1,143 @@
+package com.csvcharts.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Acompanha um arquivo CSV que cresce por acréscimos no fim
+ *
+ * Guarda a posição, em bytes, do fim do último registro lido; cada chamada a
+ * {@link #poll(CSVRowHandler)} lê só os bytes acrescentados desde então, com o
+ * mesmo tokenizador do leitor mapeado. Um registro ainda sem quebra de linha
+ * no fim do arquivo é considerado em escrita e fica para a próxima chamada.
+ * O handler recebe o cabeçalho uma vez e depois só os registros novos, de modo
+ * que o estado acumulado nele (agregações, séries reduzidas) continua valendo.
+ *
+ * Se o arquivo for truncado ou substituído (rotação de log), a leitura
+ * recomeça do início; {@link #restartIfReplaced()} avisa o chamador para que
+ * ele descarte o estado acumulado.
+ */
+public class CSVTailReader {
+    private final Path path;
+    private final int windowSize;
+
+    private long offset;
+    private Object fileKey;
+    private List<String> headers;
+    private long rowCount;
+
+    public CSVTailReader(Path path) {
+        this(path, MappedCSVReader.DEFAULT_WINDOW_SIZE);
+    }
+
+    CSVTailReader(Path path, int windowSize) {
+        this.path = path;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Posição do primeiro byte ainda não lido
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Cabeçalho do arquivo, ou null antes da primeira leitura
+     */
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Total de linhas de dados lidas desde o início (ou desde a última rotação)
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Verifica se o arquivo ficou menor que a posição já lida ou foi trocado
+     * por outro; nesse caso volta ao início
+     *
+     * @return true se a leitura recomeçou e o estado acumulado deve ser descartado
+     */
+    public boolean restartIfReplaced() throws IOException {
+        if (offset == 0 && headers == null) {
+            return false;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        boolean replaced = fileKey != null && !Objects.equals(fileKey, attributes.fileKey());
+        if (!replaced && attributes.size() >= offset) {
+            return false;
+        }
+        offset = 0;
+        fileKey = null;
+        headers = null;
+        rowCount = 0;
+        return true;
+    }
+
+    /**
+     * Lê os registros completos acrescentados desde a última chamada
+     *
+     * @return Número de linhas de dados novas
+     */
+    public long poll(CSVRowHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (fileKey == null) {
+                fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+            }
+            long fileSize = channel.size();
+            CSVByteTokenizer tokenizer = new CSVByteTokenizer();
+            long newRows = 0;
+
+            while (offset < fileSize) {
+                long base = offset;
+                int length = (int) Math.min(windowSize, fileSize - base);
+                boolean lastWindow = base + length == fileSize;
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, length);
+
+                int position = 0;
+                while (position < length) {
+                    int next = tokenizer.nextRecord(buffer, position, length);
+                    if (!tokenizer.isComplete()) {
+                        // Sem quebra de linha: ainda em escrita, ou cortado pelo fim da janela
+                        break;
+                    }
+
+                    if (headers != null) {
+                        handler.onRecord(tokenizer);
+                        newRows++;
+                        rowCount++;
+                    } else {
+                        headers = MappedCSVReader.headers(tokenizer);
+                        handler.onHeader(headers);
+                    }
+                    // Avança a cada registro: se o handler falhar, os anteriores não são repetidos
+                    position = next;
+                    offset = base + position;
+                }
+
+                if (position < length) {
+                    if (lastWindow) {
+                        break;
+                    }
+                    if (position == 0) {
+                        throw new IOException("Registro maior que a janela de leitura (" + windowSize
+                                + " bytes) na posição " + base);
+                    }
+                }
+            }
+
+            return newRows;
+        }
+    }
+}
@@ -0,0 +1,1299 @@
+package com.csvcharts.util;
+
+import com.csvcharts.model.AggregationFunction;
+import com.csvcharts.model.ChartType;
+import com.csvcharts.model.Column;
+import com.csvcharts.model.DownsamplingMethod;
+import com.csvcharts.model.StringColumn;
+import com.csvcharts.model.TimeBucket;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartUtils;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.DateAxis;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.general.DefaultPieDataset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Acumula, linha a linha, os dados de um gráfico
+ *
+ * Cada linha recebida é convertida e agregada diretamente no dataset do
+ * gráfico, de forma que a memória usada depende do tamanho do gráfico
+ * e não do tamanho do arquivo CSV.
+ *
+ * Barras, linha e dispersão aceitam várias colunas Y: cada linha é lida uma
+ * vez, X é convertido uma vez e os valores Y vão para um array reaproveitado,
+ * com NaN nas séries sem valor; a linha só é ignorada se X for inválido ou
+ * nenhuma série tiver valor. Todas as séries são desenhadas no mesmo gráfico.
+ *
+ * Nos gráficos de linha e dispersão, se o primeiro valor de X não vazio for
+ * uma data, X passa a ser convertido para milissegundos desde 1970 e o
+ * gráfico é desenhado sobre um eixo de datas. O gráfico de linha pode ainda
+ * agrupar os pontos em intervalos de tempo fixos, durante a mesma passada.
+ *
+ * Com a ordenação ligada, as linhas válidas dos gráficos de linha e
+ * dispersão são guardadas em um {@link RowSorter} e só chegam à redução de
+ * pontos na criação do gráfico, em ordem de X. As partes que a ordenação
+ * grava em disco são apagadas por {@link #close()}.
+ */
+public abstract class ChartDataCollector implements CSVRowHandler, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ChartDataCollector.class);
+    private static final LogThrottle SKIPPED_LOG = new LogThrottle(10, TimeUnit.SECONDS);
+
+    protected final String xColumn;
+    /** Primeira coluna Y */
+    protected final String yColumn;
+    protected final List<String> yColumns;
+
+    private int xIndex = -1;
+    private int[] yIndexes;
+    private final double[] yValues;
+    /** Textos não numéricos de cada coluna Y, na leitura linha a linha */
+    private final ValueSamples[] rejectedValues;
+    private long skippedRows;
+    private long reportedSkippedRows;
+    private final NumberParser parser = new NumberParser();
+    private final TimestampParser timestamps = new TimestampParser();
+    /** Se X é data e hora; null até o primeiro valor de X */
+    private Boolean timeAxis;
+
+    private DownsamplingMethod downsamplingMethod = DownsamplingMethod.NONE;
+    private int downsamplingThreshold = Integer.MAX_VALUE;
+    private int downsamplingTarget;
+
+    private AggregationFunction aggregationFunction = AggregationFunction.LAST;
+    private int aggregationLimit;
+
+    private boolean densityRendering;
+    private int densityWidth;
+    private int densityHeight;
+
+    private TimeBucket timeBucket;
+    private AggregationFunction timeAggregation = AggregationFunction.AVG;
+
+    private long sortMemory;
+    private RowSorter sortedRows;
+
+    protected ChartDataCollector(String xColumn, List<String> yColumns) {
+        if (yColumns.isEmpty()) {
+            throw new IllegalArgumentException("Nenhuma coluna Y informada");
+        }
+        this.xColumn = xColumn;
+        this.yColumns = List.copyOf(yColumns);
+        this.yColumn = this.yColumns.get(0);
+        this.yValues = new double[this.yColumns.size()];
+        this.rejectedValues = new ValueSamples[this.yColumns.size()];
+        for (int s = 0; s < rejectedValues.length; s++) {
+            rejectedValues[s] = new ValueSamples();
+        }
+    }
+
+    /**
+     * Cria o coletor adequado ao tipo de gráfico
+     */
+    public static ChartDataCollector forType(ChartType chartType, String xColumn, String yColumn) {
+        return forType(chartType, xColumn, List.of(yColumn));
+    }
+
+    /**
+     * Cria o coletor adequado ao tipo de gráfico, com uma série por coluna Y
+     *
+     * @throws IllegalArgumentException Se o gráfico de pizza receber mais de uma coluna Y
+     */
+    public static ChartDataCollector forType(ChartType chartType, String xColumn, List<String> yColumns) {
+        switch (chartType) {
+            case BAR:
+                return new BarCollector(xColumn, yColumns);
+            case LINE:
+                return new LineCollector(xColumn, yColumns);
+            case PIE:
+                if (yColumns.size() > 1) {
+                    throw new IllegalArgumentException("O gráfico de pizza aceita uma única coluna Y: " + yColumns);
+                }
+                return new PieCollector(xColumn, yColumns);
+            case SCATTER:
+                return new ScatterCollector(xColumn, yColumns);
+            default:
+                throw new IllegalArgumentException("Tipo de gráfico não suportado: " + chartType);
+        }
+    }
+
+    /**
+     * Número de séries (colunas Y)
+     */
+    public int getSeriesCount() {
+        return yColumns.size();
+    }
+
+    /**
+     * Define a redução de pontos dos gráficos de linha e dispersão. Deve ser
+     * chamado antes da primeira linha; os demais gráficos ignoram a configuração.
+     *
+     * @param method Método de redução
+     * @param threshold Número de pontos a partir do qual a série é reduzida
+     * @param targetPoints Resolução desejada (normalmente a largura da imagem)
+     */
+    public void setDownsampling(DownsamplingMethod method, int threshold, int targetPoints) {
+        this.downsamplingMethod = method;
+        this.downsamplingThreshold = threshold;
+        this.downsamplingTarget = targetPoints;
+    }
+
+    /**
+     * Define como as categorias repetidas são combinadas nos gráficos de
+     * barras e pizza. Deve ser chamado antes da primeira linha; os demais
+     * gráficos ignoram a configuração.
+     *
+     * @param function Função de agregação
+     * @param limit Número máximo de categorias; as demais são somadas em "Outros" (0 = todas)
+     */
+    public void setAggregation(AggregationFunction function, int limit) {
+        this.aggregationFunction = function;
+        this.aggregationLimit = limit;
+    }
+
+    /**
+     * Desenha o gráfico de dispersão como mapa de densidade, com todos os
+     * pontos, em vez de uma forma por ponto. Deve ser chamado antes da
+     * primeira linha; os demais gráficos ignoram a configuração.
+     *
+     * @param densityRendering Se o mapa de densidade é usado
+     * @param width Largura da imagem, que define a resolução da contagem
+     * @param height Altura da imagem, que define a resolução da contagem
+     */
+    public void setDensityRendering(boolean densityRendering, int width, int height) {
+        this.densityRendering = densityRendering;
+        this.densityWidth = width;
+        this.densityHeight = height;
+    }
+
+    public boolean isDensityRendering() {
+        return densityRendering;
+    }
+
+    /**
+     * Agrupa os pontos do gráfico de linha com eixo de datas em intervalos
+     * fixos, combinando os valores de cada intervalo com a função informada.
+     * Deve ser chamado antes da primeira linha; os demais gráficos, e os de
+     * linha cujo X não é data, ignoram a configuração.
+     *
+     * @param bucket Intervalo, ou null para não agrupar
+     * @param function Função de agregação dos valores de cada intervalo
+     */
+    public void setTimeBucket(TimeBucket bucket, AggregationFunction function) {
+        this.timeBucket = bucket;
+        this.timeAggregation = function;
+    }
+
+    public TimeBucket getTimeBucket() {
+        return timeBucket;
+    }
+
+    public AggregationFunction getTimeAggregation() {
+        return timeAggregation;
+    }
+
+    /**
+     * Ordena por X as linhas dos gráficos de linha e dispersão antes de
+     * reduzi-las e desenhá-las, para arquivos fora de ordem; X precisa ser
+     * número ou data. As linhas que não cabem no limite de memória são
+     * ordenadas em partes gravadas em arquivos temporários. Deve ser chamado
+     * antes da primeira linha; os demais gráficos, e a dispersão desenhada
+     * como mapa de densidade, ignoram a configuração.
+     *
+     * @param memoryBytes Memória máxima das linhas em ordenação (0 = não ordena)
+     */
+    public void setSorting(long memoryBytes) {
+        this.sortMemory = memoryBytes;
+    }
+
+    /**
+     * Indica se as linhas são ordenadas por X antes de chegar ao gráfico
+     */
+    public boolean isSorting() {
+        return sortMemory > 0 && sortsByX();
+    }
+
+    /**
+     * Indica se X foi reconhecido como data e hora
+     */
+    public boolean isTimeAxis() {
+        return Boolean.TRUE.equals(timeAxis);
+    }
+
+    public AggregationFunction getAggregationFunction() {
+        return aggregationFunction;
+    }
+
+    public int getAggregationLimit() {
+        return aggregationLimit;
+    }
+
+    protected Downsampler newDownsampler() {
+        return new Downsampler(downsamplingMethod, downsamplingThreshold, downsamplingTarget);
+    }
+
+    protected DensityGrid newDensityGrid() {
+        return new DensityGrid(densityWidth, densityHeight);
+    }
+
+    /**
+     * Registra no log quando a série foi reduzida
+     */
+    protected void logDownsampling(Downsampler points, int keptPoints) {
+        if (points.isReduced()) {
+            logger.info("Série reduzida de {} para {} pontos ({})", points.size(), keptPoints, downsamplingMethod.name());
+        }
+    }
+
+    @Override
+    public void onHeader(List<String> headers) {
+        xIndex = headers.indexOf(xColumn);
+        if (xIndex < 0) {
+            throw new IllegalArgumentException("Coluna não encontrada: " + xColumn);
+        }
+
+        yIndexes = new int[yColumns.size()];
+        for (int s = 0; s < yIndexes.length; s++) {
+            yIndexes[s] = headers.indexOf(yColumns.get(s));
+            if (yIndexes[s] < 0) {
+                throw new IllegalArgumentException("Coluna não encontrada: " + yColumns.get(s));
+            }
+        }
+    }
+
+    @Override
+    public void onRow(String[] row) {
+        String xValue = xIndex < row.length ? row[xIndex] : null;
+        if (xValue == null || xValue.isEmpty()) {
+            skippedRows++;
+            return;
+        }
+
+        for (int s = 0; s < yIndexes.length; s++) {
+            String yValue = yIndexes[s] < row.length ? row[yIndexes[s]] : null;
+            yValues[s] = Double.NaN;
+            if (yValue != null && !yValue.isEmpty()) {
+                if (parser.parse(yValue)) {
+                    yValues[s] = parser.getValue();
+                } else {
+                    rejectedValues[s].add(yValue);
+                }
+            }
+        }
+        double x = Double.NaN;
+        if (isTimeX(xValue)) {
+            x = timestamps.parse(xValue) ? timestamps.getValue() : Double.NaN;
+        } else if (usesNumericX()) {
+            x = parser.parse(xValue) ? parser.getValue() : Double.NaN;
+        }
+        accept(xValue, x, yValues);
+    }
+
+    /**
+     * Versão sobre o registro ainda não convertido: o rótulo de X só vira
+     * String quando alguma série tem um número válido
+     */
+    @Override
+    public void onRecord(CSVRecord record) {
+        if (xIndex >= record.size() || record.isEmpty(xIndex)) {
+            skippedRows++;
+            return;
+        }
+
+        boolean anyValue = false;
+        for (int s = 0; s < yIndexes.length; s++) {
+            int field = yIndexes[s];
+            yValues[s] = Double.NaN;
+            if (field < record.size() && !record.isEmpty(field)) {
+                if (record.parseNumber(field, parser)) {
+                    yValues[s] = parser.getValue();
+                    anyValue = true;
+                } else {
+                    rejectedValues[s].add(record, field);
+                }
+            }
+        }
+        if (!anyValue) {
+            skippedRows++;
+            return;
+        }
+        if (isTimeX(record, xIndex)) {
+            double x = record.parseTimestamp(xIndex, timestamps) ? timestamps.getValue() : Double.NaN;
+            accept(null, x, yValues);
+        } else if (usesNumericX()) {
+            double x = record.parseNumber(xIndex, parser) ? parser.getValue() : Double.NaN;
+            accept(null, x, yValues);
+        } else {
+            collect(record, xIndex, yValues);
+        }
+    }
+
+    /**
+     * Acumula uma linha cujo rótulo de X ainda está no registro (campo não vazio)
+     */
+    protected void collect(CSVRecord record, int xField, double[] values) {
+        accept(record.getString(xField), Double.NaN, values);
+    }
+
+    /**
+     * Adiciona ao gráfico uma linha de colunas já carregadas e tipadas
+     */
+    public void accept(Column x, Column y, int rowIndex) {
+        accept(x, new Column[]{y}, rowIndex);
+    }
+
+    /**
+     * Adiciona ao gráfico uma linha de colunas já carregadas e tipadas, com
+     * uma coluna Y por série
+     */
+    public void accept(Column x, Column[] ys, int rowIndex) {
+        for (int s = 0; s < ys.length; s++) {
+            yValues[s] = ys[s].getDouble(rowIndex);
+        }
+        if (timeAxis == null || isTimeAxis()) {
+            String xValue = x.getString(rowIndex);
+            if (xValue != null && isTimeX(xValue)) {
+                accept(null, timestamps.parse(xValue) ? timestamps.getValue() : Double.NaN, yValues);
+                return;
+            }
+        }
+        if (usesNumericX()) {
+            accept(null, x.getDouble(rowIndex), yValues);
+        } else {
+            accept(x.getString(rowIndex), Double.NaN, yValues);
+        }
+    }
+
+    /**
+     * Adiciona ao gráfico as primeiras linhas de colunas já carregadas e tipadas
+     */
+    public void acceptAll(Column x, Column y, int rowCount) {
+        acceptAll(x, new Column[]{y}, rowCount);
+    }
+
+    /**
+     * Adiciona ao gráfico as primeiras linhas de colunas já carregadas e
+     * tipadas, com uma coluna Y por série, em uma única passada
+     */
+    public void acceptAll(Column x, Column[] ys, int rowCount) {
+        checkSeries(ys);
+        if (x instanceof StringColumn strings && isTimeX(strings, rowCount)) {
+            acceptTimes(strings, ys, rowCount);
+            return;
+        }
+        for (int i = 0; i < rowCount; i++) {
+            accept(x, ys, i);
+        }
+    }
+
+    /**
+     * Coluna X de datas em dicionário: cada texto distinto é convertido uma
+     * única vez, e as linhas só consultam o instante pelo código
+     */
+    private void acceptTimes(StringColumn x, Column[] ys, int rowCount) {
+        String[] dictionary = x.getDictionary();
+        double[] times = new double[dictionary.length];
+        for (int code = 0; code < dictionary.length; code++) {
+            times[code] = timestamps.parse(dictionary[code]) ? timestamps.getValue() : Double.NaN;
+        }
+
+        for (int i = 0; i < rowCount; i++) {
+            for (int s = 0; s < ys.length; s++) {
+                yValues[s] = ys[s].getDouble(i);
+            }
+            int code = x.getCode(i);
+            accept(null, code >= 0 ? times[code] : Double.NaN, yValues);
+        }
+    }
+
+    /**
+     * Indica se X é data e hora, decidindo pelo primeiro valor não vazio nos
+     * gráficos que aceitam eixo de datas
+     */
+    private boolean isTimeX(String xValue) {
+        if (timeAxis == null && !xValue.isEmpty()) {
+            timeAxis = acceptsTimeX() && timestamps.parse(xValue);
+        }
+        return isTimeAxis();
+    }
+
+    private boolean isTimeX(CSVRecord record, int field) {
+        if (timeAxis == null) {
+            timeAxis = acceptsTimeX() && record.parseTimestamp(field, timestamps);
+        }
+        return isTimeAxis();
+    }
+
+    private boolean isTimeX(StringColumn x, int rowCount) {
+        for (int i = 0; timeAxis == null && i < rowCount; i++) {
+            String xValue = x.getString(i);
+            if (xValue != null) {
+                isTimeX(xValue);
+            }
+        }
+        return isTimeAxis();
+    }
+
+    protected void checkSeries(Column[] ys) {
+        if (ys.length != yColumns.size()) {
+            throw new IllegalArgumentException("Esperadas " + yColumns.size() + " colunas Y, recebidas " + ys.length);
+        }
+    }
+
+    /**
+     * Registra o resumo das linhas ignoradas e dos valores não numéricos de
+     * cada coluna Y, com os primeiros exemplos. Quando muitos gráficos são
+     * gerados em sequência (servidor, diretório, --seguir), o resumo é
+     * registrado no máximo uma vez a cada 10 segundos.
+     */
+    @Override
+    public void onEnd() {
+        boolean rejected = false;
+        for (ValueSamples values : rejectedValues) {
+            rejected |= values.getCount() > 0;
+        }
+        if (skippedRows == 0 && !rejected) {
+            return;
+        }
+        long suppressed = SKIPPED_LOG.acquire();
+        if (suppressed < 0) {
+            return;
+        }
+        if (skippedRows > 0) {
+            logger.info("{} linhas ignoradas por valores vazios ou não numéricos (X='{}', Y='{}'){}",
+                    skippedRows, xColumn, String.join(", ", yColumns), LogThrottle.suppressedNote(suppressed));
+        }
+        for (int s = 0; s < rejectedValues.length; s++) {
+            if (rejectedValues[s].getCount() > 0) {
+                logger.warn("Coluna '{}': {} valores não numéricos ignorados; exemplos: {}",
+                        yColumns.get(s), rejectedValues[s].getCount(), rejectedValues[s].describeSamples());
+            }
+        }
+    }
+
+    public long getSkippedRows() {
+        return skippedRows;
+    }
+
+    /**
+     * Linhas ignoradas desde a chamada anterior, para que um coletor que gera
+     * o gráfico várias vezes não as conte de novo nas métricas
+     */
+    long takeNewSkippedRows() {
+        long rows = skippedRows - reportedSkippedRows;
+        reportedSkippedRows = skippedRows;
+        return rows;
+    }
+
+    protected void addSkippedRows(long rows) {
+        skippedRows += rows;
+    }
+
+    private void accept(String xLabel, double xValue, double[] values) {
+        boolean validX = usesNumericX() || isTimeAxis()
+                ? !Double.isNaN(xValue)
+                : xLabel != null && !xLabel.isEmpty();
+        if (!validX || !hasValue(values)) {
+            skippedRows++;
+            return;
+        }
+        if (isSorting()) {
+            if (sortedRows == null) {
+                sortedRows = new RowSorter(values.length, sortMemory);
+            }
+            sortedRows.add(xValue, values);
+            return;
+        }
+        collect(xLabel, xValue, values);
+    }
+
+    /**
+     * Entrega a {@link #collect}, em ordem de X, as linhas guardadas para
+     * ordenação. Como o gráfico pode ser criado de novo depois de mais
+     * linhas, os pontos já acumulados são descartados antes ({@link #clearRows}).
+     */
+    protected void collectSorted() {
+        if (sortedRows == null) {
+            return;
+        }
+        clearRows();
+        sortedRows.forEachSorted((x, values) -> collect(null, x, values));
+        if (sortedRows.getRunCount() > 0) {
+            logger.info("{} linhas ordenadas por X em {} partes gravadas em disco",
+                    sortedRows.size(), sortedRows.getRunCount());
+        }
+    }
+
+    /**
+     * Descarta os pontos acumulados por {@link #collect}
+     */
+    protected void clearRows() {
+    }
+
+    /**
+     * Apaga os arquivos temporários da ordenação, se houver
+     */
+    @Override
+    public void close() {
+        if (sortedRows != null) {
+            sortedRows.close();
+        }
+    }
+
+    private static boolean hasValue(double[] values) {
+        for (double value : values) {
+            if (!Double.isNaN(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indica se o gráfico usa o valor numérico de X em vez do rótulo
+     */
+    protected boolean usesNumericX() {
+        return false;
+    }
+
+    /**
+     * Indica se o gráfico pode ordenar as linhas por X ({@link #setSorting})
+     */
+    protected boolean sortsByX() {
+        return false;
+    }
+
+    /**
+     * Indica se o gráfico aceita X de datas, desenhado sobre um eixo de datas
+     */
+    protected boolean acceptsTimeX() {
+        return false;
+    }
+
+    /**
+     * Início do intervalo de {@link #setTimeBucket} que contém o instante
+     */
+    protected long timeBucketStart(long epochMillis) {
+        return timestamps.floor(epochMillis, timeBucket);
+    }
+
+    /**
+     * Acumula uma linha válida
+     *
+     * @param values Um valor por série (NaN se a série não tem valor na linha);
+     *               o array é reaproveitado na linha seguinte
+     */
+    protected abstract void collect(String xLabel, double xValue, double[] values);
+
+    /**
+     * Título dos valores: a coluna Y, ou as colunas separadas por vírgula
+     */
+    protected String yTitle() {
+        return String.join(", ", yColumns);
+    }
+
+    /**
+     * Rótulo do eixo dos valores: a coluna Y, ou "Valores" com várias séries
+     */
+    protected String yAxisLabel() {
+        return yColumns.size() == 1 ? yColumn : "Valores";
+    }
+
+    /**
+     * Nome da série no dataset: o nome fixo com uma só série (sem legenda),
+     * ou o da coluna Y com várias
+     */
+    protected String seriesName(int series, String singleName) {
+        return yColumns.size() == 1 ? singleName : yColumns.get(series);
+    }
+
+    /**
+     * A legenda só é exibida com várias séries
+     */
+    protected boolean showsLegend() {
+        return yColumns.size() > 1;
+    }
+
+    /**
+     * Cria o gráfico com os dados acumulados até o momento. Pode ser chamado
+     * de novo depois de mais linhas, por exemplo ao acompanhar um arquivo
+     * que cresce.
+     */
+    public abstract JFreeChart createChart();
+
+    /**
+     * Base dos gráficos que agrupam as linhas por categoria (barras e pizza)
+     *
+     * As linhas são agregadas em um {@link GroupAggregator} e só o resultado,
+     * uma entrada por categoria, chega ao dataset do JFreeChart. Colunas já
+     * carregadas com muitas linhas são agregadas em paralelo, em faixas de
+     * linhas que depois são unidas na ordem original.
+     */
+    private abstract static class AggregatingCollector extends ChartDataCollector {
+        private static final int PARALLEL_MIN_ROWS = 1 << 19;
+        private static final int MIN_ROWS_PER_TASK = 1 << 16;
+        private static final String OTHER_LABEL = "Outros";
+
+        private final GroupAggregator groups;
+
+        AggregatingCollector(String xColumn, List<String> yColumns) {
+            super(xColumn, yColumns);
+            groups = new GroupAggregator(yColumns.size());
+        }
+
+        @Override
+        protected void collect(String xLabel, double xValue, double[] values) {
+            groups.add(xLabel, values);
+        }
+
+        @Override
+        protected void collect(CSVRecord record, int xField, double[] values) {
+            groups.add(record, xField, values);
+        }
+
+        @Override
+        public void acceptAll(Column x, Column[] ys, int rowCount) {
+            checkSeries(ys);
+            int tasks = (int) Math.min(Runtime.getRuntime().availableProcessors() * 4L,
+                    rowCount / MIN_ROWS_PER_TASK);
+            if (rowCount < PARALLEL_MIN_ROWS || tasks < 2) {
+                super.acceptAll(x, ys, rowCount);
+                return;
+            }
+
+            if (x instanceof StringColumn categories) {
+                acceptCodes(categories, ys, rowCount, tasks);
+            } else {
+                List<GroupAggregator> parts = IntStream.range(0, tasks).parallel()
+                        .mapToObj(t -> aggregateLabels(x, ys, (int) ((long) rowCount * t / tasks),
+                                (int) ((long) rowCount * (t + 1) / tasks)))
+                        .toList();
+                for (GroupAggregator part : parts) {
+                    groups.merge(part);
+                }
+                addSkippedRows(rowCount - parts.stream().mapToLong(GroupAggregator::getRows).sum());
+            }
+        }
+
+        private static GroupAggregator aggregateLabels(Column x, Column[] ys, int from, int to) {
+            GroupAggregator part = new GroupAggregator(ys.length);
+            double[] values = new double[ys.length];
+            for (int i = from; i < to; i++) {
+                String label = x.getString(i);
+                if (label == null || label.isEmpty()) {
+                    continue;
+                }
+                boolean anyValue = false;
+                for (int s = 0; s < ys.length; s++) {
+                    values[s] = ys[s].getDouble(i);
+                    anyValue |= !Double.isNaN(values[s]);
+                }
+                if (anyValue) {
+                    part.add(label, values);
+                }
+            }
+            return part;
+        }
+
+        /**
+         * Agrega pelo código do dicionário da coluna, em arrays indexados pelo
+         * código, sem comparar textos
+         */
+        private void acceptCodes(StringColumn x, Column[] ys, int rowCount, int tasks) {
+            String[] dictionary = x.getDictionary();
+            int series = ys.length;
+            List<CodeTotals> parts = IntStream.range(0, tasks).parallel()
+                    .mapToObj(t -> new CodeTotals(dictionary.length, series).add(x, ys,
+                            (int) ((long) rowCount * t / tasks), (int) ((long) rowCount * (t + 1) / tasks)))
+                    .toList();
+
+            CodeTotals totals = parts.get(0);
+            for (int t = 1; t < parts.size(); t++) {
+                totals.merge(parts.get(t));
+            }
+
+            // Categorias na ordem da primeira linha em que apareceram
+            long[] order = new long[dictionary.length];
+            int present = 0;
+            for (int code = 0; code < dictionary.length; code++) {
+                if (totals.firstRows[code] >= 0) {
+                    order[present++] = (long) totals.firstRows[code] << 32 | code;
+                }
+            }
+            Arrays.sort(order, 0, present);
+
+            for (int k = 0; k < present; k++) {
+                int code = (int) order[k];
+                for (int s = 0; s < series; s++) {
+                    int i = code * series + s;
+                    if (totals.counts[i] > 0) {
+                        groups.add(dictionary[code], s, totals.counts[i], totals.sums[i], totals.mins[i],
+                                totals.maxs[i], totals.lasts[i]);
+                    }
+                }
+            }
+            groups.addRows(totals.rows);
+            addSkippedRows(rowCount - totals.rows);
+        }
+
+        /**
+         * Entrega ao consumidor as categorias já agregadas
+         */
+        protected void forEachGroup(GroupAggregator.GroupConsumer consumer) {
+            logRepeatedCategories();
+            groups.forEach(getAggregationFunction(), getAggregationLimit(), OTHER_LABEL, consumer);
+        }
+
+        /**
+         * Entrega as categorias já agregadas, com um valor por série (NaN se a
+         * categoria não tem valores na série)
+         */
+        protected void forEachSeries(GroupAggregator.SeriesConsumer consumer) {
+            logRepeatedCategories();
+            groups.forEachSeries(getAggregationFunction(), getAggregationLimit(), OTHER_LABEL, consumer);
+        }
+
+        private void logRepeatedCategories() {
+            if (getAggregationFunction() == AggregationFunction.LAST && groups.getRows() > groups.size()) {
+                logger.info("{} linhas com categoria repetida em '{}' usaram o último valor lido "
+                        + "(veja a opção --agregacao)", groups.getRows() - groups.size(), xColumn);
+            }
+        }
+
+        /**
+         * Nome do valor exibido (a coluna Y, com a função quando há agregação)
+         */
+        protected String valueLabel() {
+            return valueLabel(0);
+        }
+
+        protected String valueLabel(int series) {
+            AggregationFunction function = getAggregationFunction();
+            String column = yColumns.get(series);
+            return function == AggregationFunction.LAST ? column : function.name() + "(" + column + ")";
+        }
+    }
+
+    /**
+     * Totais por código de dicionário de uma faixa de linhas
+     */
+    private static final class CodeTotals {
+        final int series;
+        final long[] counts;
+        final double[] sums;
+        final double[] mins;
+        final double[] maxs;
+        final double[] lasts;
+        /** Primeira linha do código com algum valor, ou -1 */
+        final int[] firstRows;
+        long rows;
+
+        /**
+         * Totais na posição {@code código * séries + série}
+         */
+        CodeTotals(int dictionarySize, int series) {
+            this.series = series;
+            counts = new long[dictionarySize * series];
+            sums = new double[dictionarySize * series];
+            mins = new double[dictionarySize * series];
+            maxs = new double[dictionarySize * series];
+            lasts = new double[dictionarySize * series];
+            firstRows = new int[dictionarySize];
+            Arrays.fill(firstRows, -1);
+        }
+
+        CodeTotals add(StringColumn x, Column[] ys, int from, int to) {
+            String[] dictionary = x.getDictionary();
+            for (int i = from; i < to; i++) {
+                int code = x.getCode(i);
+                if (code < 0 || dictionary[code].isEmpty()) {
+                    continue;
+                }
+                boolean anyValue = false;
+                for (int s = 0; s < series; s++) {
+                    double value = ys[s].getDouble(i);
+                    if (Double.isNaN(value)) {
+                        continue;
+                    }
+                    anyValue = true;
+                    int k = code * series + s;
+                    if (counts[k] == 0) {
+                        mins[k] = value;
+                        maxs[k] = value;
+                    } else {
+                        mins[k] = Math.min(mins[k], value);
+                        maxs[k] = Math.max(maxs[k], value);
+                    }
+                    counts[k]++;
+                    sums[k] += value;
+                    lasts[k] = value;
+                }
+                if (anyValue) {
+                    if (firstRows[code] < 0) {
+                        firstRows[code] = i;
+                    }
+                    rows++;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Une os totais de uma faixa posterior a esta
+         */
+        void merge(CodeTotals later) {
+            for (int code = 0; code < firstRows.length; code++) {
+                if (firstRows[code] < 0) {
+                    firstRows[code] = later.firstRows[code];
+                }
+            }
+            for (int k = 0; k < counts.length; k++) {
+                if (later.counts[k] == 0) {
+                    continue;
+                }
+                if (counts[k] == 0) {
+                    mins[k] = later.mins[k];
+                    maxs[k] = later.maxs[k];
+                } else {
+                    mins[k] = Math.min(mins[k], later.mins[k]);
+                    maxs[k] = Math.max(maxs[k], later.maxs[k]);
+                }
+                counts[k] += later.counts[k];
+                sums[k] += later.sums[k];
+                lasts[k] = later.lasts[k];
+            }
+            rows += later.rows;
+        }
+    }
+
+    /**
+     * Gráfico de barras
+     */
+    private static class BarCollector extends AggregatingCollector {
+
+        BarCollector(String xColumn, List<String> yColumns) {
+            super(xColumn, yColumns);
+        }
+
+        @Override
+        public JFreeChart createChart() {
+            List<String> names = new ArrayList<>(getSeriesCount());
+            for (int s = 0; s < getSeriesCount(); s++) {
+                names.add(getSeriesCount() == 1 ? "Valores" : valueLabel(s));
+            }
+            SeriesCategoryDataset dataset = new SeriesCategoryDataset(names);
+            forEachSeries((label, values) -> {
+                if (hasValue(values)) {
+                    dataset.add(label, values);
+                }
+            });
+
+            String title = getSeriesCount() == 1 ? valueLabel() : valuesTitle();
+            return ChartFactory.createBarChart(
+                "Gráfico de Barras - " + title + " vs " + xColumn,
+                xColumn,
+                getSeriesCount() == 1 ? valueLabel() : valuesAxisLabel(),
+                dataset,
+                PlotOrientation.VERTICAL,
+                showsLegend(), true, false
+            );
+        }
+
+        private String valuesTitle() {
+            StringBuilder title = new StringBuilder();
+            for (int s = 0; s < getSeriesCount(); s++) {
+                title.append(s > 0 ? ", " : "").append(valueLabel(s));
+            }
+            return title.toString();
+        }
+
+        private String valuesAxisLabel() {
+            AggregationFunction function = getAggregationFunction();
+            return function == AggregationFunction.LAST ? "Valores" : function.name();
+        }
+    }
+
+    /**
+     * Gráfico de linha, com os pontos na ordem do arquivo (x é a posição)
+     *
+     * Cada série é reduzida separadamente. Com várias séries, as categorias
+     * são a união das posições mantidas em alguma série, em ordem; uma série
+     * sem ponto numa dessas posições recebe o valor interpolado entre os seus
+     * pontos vizinhos (o mesmo ponto por onde a linha passaria), para que a
+     * linha não seja interrompida.
+     *
+     * Com X de datas, os pontos ficam sobre um eixo de datas (x é o instante)
+     * e cada série vai para o dataset XY com seus próprios instantes. Com
+     * intervalos configurados, as linhas são agregadas por intervalo durante
+     * a leitura e só os intervalos, em ordem cronológica, são reduzidos.
+     *
+     * Com a ordenação ligada, X precisa ser número ou data: os pontos chegam
+     * em ordem de X e o gráfico é desenhado sobre um eixo numérico (x é o
+     * valor de X) ou de datas.
+     */
+    private static class LineCollector extends ChartDataCollector {
+        private Downsampler[] points;
+        private TimeBuckets buckets;
+        private long position;
+
+        LineCollector(String xColumn, List<String> yColumns) {
+            super(xColumn, yColumns);
+        }
+
+        @Override
+        protected boolean usesNumericX() {
+            return isSorting();
+        }
+
+        @Override
+        protected boolean sortsByX() {
+            return true;
+        }
+
+        @Override
+        protected boolean acceptsTimeX() {
+            return true;
+        }
+
+        @Override
+        protected void clearRows() {
+            points = null;
+            buckets = null;
+            position = 0;
+        }
+
+        @Override
+        protected void collect(String xLabel, double xValue, double[] values) {
+            if (isTimeAxis() && getTimeBucket() != null) {
+                if (buckets == null) {
+                    buckets = new TimeBuckets(values.length);
+                }
+                buckets.add(timeBucketStart((long) xValue), values);
+                return;
+            }
+            if (points == null) {
+                points = new Downsampler[values.length];
+                for (int s = 0; s < points.length; s++) {
+                    points[s] = newDownsampler();
+                }
+            }
+            // Com eixo de datas ou numérico o ponto é o próprio X; sem eles, a posição na série
+            double x = isTimeAxis() || usesNumericX() ? xValue : position;
+            for (int s = 0; s < values.length; s++) {
+                if (!Double.isNaN(values[s])) {
+                    points[s].add(x, values[s], xLabel);
+                }
+            }
+            position++;
+        }
+
+        @Override
+        public JFreeChart createChart() {
+            collectSorted();
+            if (isTimeAxis() || usesNumericX()) {
+                return createXYChart();
+            }
+
+            CategoryDataset dataset;
+            if (points != null && points.length > 1) {
+                dataset = mergeSeries();
+            } else {
+                SeriesCategoryDataset single = new SeriesCategoryDataset(List.of("Valores"));
+                if (points != null) {
+                    double[] value = new double[1];
+                    int[] kept = {0};
+                    points[0].forEach((x, y, label) -> {
+                        value[0] = y;
+                        single.add(label, value);
+                        kept[0]++;
+                    });
+                    logDownsampling(points[0], kept[0]);
+                }
+                dataset = single;
+            }
+
+            return ChartFactory.createLineChart(
+                "Gráfico de Linha - " + yTitle() + " vs " + xColumn,
+                xColumn,
+                yAxisLabel(),
+                dataset,
+                PlotOrientation.VERTICAL,
+                showsLegend(), true, false
+            );
+        }
+
+        /**
+         * Gráfico sobre o eixo de datas ou numérico: cada série é reduzida
+         * pelo X dos pontos, depois de agrupada nos intervalos, se configurados
+         */
+        private JFreeChart createXYChart() {
+            Downsampler[] series = points;
+            if (buckets != null) {
+                Downsampler[] rolled = new Downsampler[getSeriesCount()];
+                for (int s = 0; s < rolled.length; s++) {
+                    rolled[s] = newDownsampler();
+                }
+                buckets.forEach(getTimeAggregation(), (start, values) -> {
+                    for (int s = 0; s < values.length; s++) {
+                        if (!Double.isNaN(values[s])) {
+                            rolled[s].add(start, values[s], null);
+                        }
+                    }
+                });
+                series = rolled;
+            }
+
+            SeriesXYDataset dataset = new SeriesXYDataset();
+            for (int s = 0; series != null && s < series.length; s++) {
+                SeriesPoints kept = new SeriesPoints(series[s]);
+                dataset.addSeries(seriesName(s, "Valores"), kept.xs, kept.ys, kept.size);
+                logDownsampling(series[s], kept.size);
+            }
+
+            String title = yTitle();
+            if (buckets != null) {
+                StringJoiner values = new StringJoiner(", ");
+                for (String column : yColumns) {
+                    values.add(getTimeAggregation().name() + "(" + column + ")");
+                }
+                title = values + " por " + getTimeBucket().getUnit();
+            }
+            if (!isTimeAxis()) {
+                return ChartFactory.createXYLineChart(
+                    "Gráfico de Linha - " + title + " vs " + xColumn,
+                    xColumn,
+                    yAxisLabel(),
+                    dataset,
+                    PlotOrientation.VERTICAL,
+                    showsLegend(), true, false
+                );
+            }
+            return ChartFactory.createTimeSeriesChart(
+                "Gráfico de Linha - " + title + " vs " + xColumn,
+                xColumn,
+                yAxisLabel(),
+                dataset,
+                showsLegend(), true, false
+            );
+        }
+
+        /**
+         * Une as séries reduzidas pela posição dos pontos
+         */
+        private SeriesCategoryDataset mergeSeries() {
+            int series = points.length;
+            SeriesCategoryDataset dataset = new SeriesCategoryDataset(yColumns);
+            double[] values = new double[series];
+            SeriesPoints[] kept = new SeriesPoints[series];
+            for (int s = 0; s < series; s++) {
+                kept[s] = new SeriesPoints(points[s]);
+                logDownsampling(points[s], kept[s].size);
+            }
+
+            int[] next = new int[series];
+            while (true) {
+                double x = Double.POSITIVE_INFINITY;
+                String label = null;
+                for (int s = 0; s < series; s++) {
+                    if (next[s] < kept[s].size && kept[s].xs[next[s]] < x) {
+                        x = kept[s].xs[next[s]];
+                        label = kept[s].labels[next[s]];
+                    }
+                }
+                if (label == null) {
+                    return dataset;
+                }
+
+                for (int s = 0; s < series; s++) {
+                    SeriesPoints p = kept[s];
+                    int i = next[s];
+                    if (i < p.size && p.xs[i] == x) {
+                        values[s] = p.ys[i];
+                        next[s]++;
+                    } else if (i > 0 && i < p.size) {
+                        double t = (x - p.xs[i - 1]) / (p.xs[i] - p.xs[i - 1]);
+                        values[s] = p.ys[i - 1] + t * (p.ys[i] - p.ys[i - 1]);
+                    } else {
+                        // Fora do intervalo da série fica sem valor
+                        values[s] = Double.NaN;
+                    }
+                }
+                dataset.add(label, values);
+            }
+        }
+    }
+
+    /**
+     * Pontos mantidos de uma série, em arrays primitivos
+     */
+    private static final class SeriesPoints {
+        double[] xs = new double[256];
+        double[] ys = new double[256];
+        String[] labels = new String[256];
+        int size;
+
+        SeriesPoints(Downsampler points) {
+            points.forEach((x, y, label) -> {
+                if (size == xs.length) {
+                    xs = Arrays.copyOf(xs, size * 2);
+                    ys = Arrays.copyOf(ys, size * 2);
+                    labels = Arrays.copyOf(labels, size * 2);
+                }
+                xs[size] = x;
+                ys[size] = y;
+                labels[size] = label;
+                size++;
+            });
+        }
+    }
+
+    /**
+     * Gráfico de pizza
+     */
+    private static class PieCollector extends AggregatingCollector {
+
+        PieCollector(String xColumn, List<String> yColumns) {
+            super(xColumn, yColumns);
+        }
+
+        @Override
+        public JFreeChart createChart() {
+            DefaultPieDataset<String> dataset = new DefaultPieDataset<>();
+            forEachGroup(dataset::setValue);
+
+            return ChartFactory.createPieChart(
+                "Gráfico de Pizza - " + valueLabel() + " por " + xColumn,
+                dataset,
+                true, true, false
+            );
+        }
+    }
+
+    /**
+     * Gráfico de dispersão, com os pontos guardados em arrays primitivos
+     * (reduzidos na ordem do arquivo quando passam do limite) ou, no mapa de
+     * densidade, contados à medida que chegam ({@link DensityGrid}). Com
+     * várias séries, cada uma é reduzida separadamente; no mapa de densidade
+     * elas são contadas juntas. Com X de datas, o
+     * eixo X é um eixo de datas. Com a ordenação ligada, os pontos são
+     * reduzidos em ordem de X.
+     */
+    private static class ScatterCollector extends ChartDataCollector {
+        private Downsampler[] points;
+        private DensityGrid density;
+
+        ScatterCollector(String xColumn, List<String> yColumns) {
+            super(xColumn, yColumns);
+        }
+
+        @Override
+        protected boolean usesNumericX() {
+            return true;
+        }
+
+        @Override
+        protected boolean sortsByX() {
+            // O mapa de densidade conta todos os pontos, em qualquer ordem
+            return !isDensityRendering();
+        }
+
+        @Override
+        protected boolean acceptsTimeX() {
+            return true;
+        }
+
+        @Override
+        protected void clearRows() {
+            points = null;
+        }
+
+        @Override
+        protected void collect(String xLabel, double xValue, double[] values) {
+            if (isDensityRendering()) {
+                if (density == null) {
+                    density = newDensityGrid();
+                }
+                for (double value : values) {
+                    density.add(xValue, value);
+                }
+                return;
+            }
+            if (points == null) {
+                points = new Downsampler[values.length];
+                for (int s = 0; s < points.length; s++) {
+                    points[s] = newDownsampler();
+                }
+            }
+            for (int s = 0; s < values.length; s++) {
+                if (!Double.isNaN(values[s])) {
+                    points[s].add(xValue, values[s], null);
+                }
+            }
+        }
+
+        @Override
+        public JFreeChart createChart() {
+            collectSorted();
+            SeriesXYDataset dataset = new SeriesXYDataset();
+
+            if (density != null) {
+                // Só os cantos vão para o dataset, para que os eixos se ajustem aos dados
+                dataset.addSeries("Dados", new double[]{density.getMinX(), density.getMaxX()},
+                        new double[]{density.getMinY(), density.getMaxY()}, 2);
+            } else if (points != null) {
+                for (int s = 0; s < points.length; s++) {
+                    if (points.length == 1 && points[s].size() == 0) {
+                        continue;
+                    }
+                    SeriesPoints kept = new SeriesPoints(points[s]);
+                    dataset.addSeries(seriesName(s, "Dados"), kept.xs, kept.ys, kept.size);
+                    logDownsampling(points[s], kept.size);
+                }
+            }
+
+            JFreeChart chart = ChartFactory.createScatterPlot(
+                "Gráfico de Dispersão - " + yTitle() + " vs " + xColumn,
+                xColumn,
+                yAxisLabel(),
+                dataset,
+                PlotOrientation.VERTICAL,
+                showsLegend() && density == null, true, false
+            );
+
+            XYPlot plot = (XYPlot) chart.getPlot();
+            if (isTimeAxis()) {
+                plot.setDomainAxis(new DateAxis(xColumn));
+                // O eixo novo ainda não tem as fontes e cores do tema
+                ChartUtils.applyCurrentTheme(chart);
+            }
+            if (density != null) {
+                // Os pontos são desenhados de uma vez como imagem, sobre a área de dados
+                plot.setRenderer(new XYLineAndShapeRenderer(false, false));
+                plot.addAnnotation(new DensityAnnotation(density));
+                return chart;
+            }
+
+            // Configura o renderer para mostrar apenas pontos
+            XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer(false, true);
+            if (getSeriesCount() == 1) {
+                renderer.setSeriesPaint(0, Color.BLUE);
+            }
+            plot.setRenderer(renderer);
+
+            return chart;
+        }
+    }
+}
@@ -1,27 +1,23 @@
 package com.csvcharts.util;
 
+import com.csvcharts.model.AggregationFunction;
 import com.csvcharts.model.CSVData;
 import com.csvcharts.model.ChartType;
-import org.jfree.chart.ChartFactory;
-import org.jfree.chart.ChartUtils;
+import com.csvcharts.model.Column;
+import com.csvcharts.model.DownsamplingMethod;
+import com.csvcharts.model.TimeBucket;
 import org.jfree.chart.JFreeChart;
-import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.chart.plot.XYPlot;
-import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
-import org.jfree.data.category.DefaultCategoryDataset;
-import org.jfree.data.general.DefaultPieDataset;
-import org.jfree.data.xy.DefaultXYDataset;
-import org.jfree.data.xy.XYDataset;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Gerador de gráficos usando JFreeChart
@@ -31,6 +27,188 @@ public class ChartGenerator {
     
     private static final int DEFAULT_WIDTH = 800;
     private static final int DEFAULT_HEIGHT = 600;
+    private static final int DEFAULT_DOWNSAMPLING_THRESHOLD = 10_000;
+
+    private int width = DEFAULT_WIDTH;
+    private int height = DEFAULT_HEIGHT;
+    private DownsamplingMethod downsamplingMethod = DownsamplingMethod.LTTB;
+    private int downsamplingThreshold = DEFAULT_DOWNSAMPLING_THRESHOLD;
+    private AggregationFunction aggregationFunction = AggregationFunction.LAST;
+    private int aggregationLimit;
+    private boolean densityRendering;
+    private TimeBucket timeBucket;
+    private AggregationFunction timeAggregation = AggregationFunction.AVG;
+    private long sortMemory;
+    private ChartImageWriter imageWriter = new ChartUtilsPngWriter();
+    private ChartMetrics metrics = ChartMetrics.DISABLED;
+
+    /**
+     * Define o tamanho, em pixels, das imagens geradas
+     */
+    public void setSize(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Tamanho de imagem inválido: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Define a redução de pontos dos gráficos de linha e dispersão. Séries com
+     * mais pontos que o limite são reduzidas a cerca de um ponto por pixel de
+     * largura; NONE desenha sempre todos os pontos.
+     */
+    public void setDownsampling(DownsamplingMethod method, int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Limite de redução inválido: " + threshold);
+        }
+        this.downsamplingMethod = method;
+        this.downsamplingThreshold = threshold;
+    }
+
+    public DownsamplingMethod getDownsamplingMethod() {
+        return downsamplingMethod;
+    }
+
+    public int getDownsamplingThreshold() {
+        return downsamplingThreshold;
+    }
+
+    /**
+     * Define como as categorias repetidas dos gráficos de barras e pizza são
+     * combinadas e quantas categorias são exibidas; as de menor valor além do
+     * limite são juntadas em "Outros" (0 = todas)
+     */
+    public void setAggregation(AggregationFunction function, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Número de categorias inválido: " + limit);
+        }
+        this.aggregationFunction = function;
+        this.aggregationLimit = limit;
+    }
+
+    public AggregationFunction getAggregationFunction() {
+        return aggregationFunction;
+    }
+
+    public int getAggregationLimit() {
+        return aggregationLimit;
+    }
+
+    /**
+     * Desenha os gráficos de dispersão como mapa de densidade: os pontos são
+     * contados por pixel e pintados de uma vez, sem redução, o que mantém o
+     * tempo de desenho baixo mesmo com milhões de pontos
+     */
+    public void setDensityRendering(boolean densityRendering) {
+        this.densityRendering = densityRendering;
+    }
+
+    public boolean isDensityRendering() {
+        return densityRendering;
+    }
+
+    /**
+     * Agrupa os gráficos de linha com X de datas em intervalos fixos (um
+     * ponto por segundo, minuto, hora ou dia), calculados durante a leitura
+     *
+     * @param bucket Intervalo, ou null para desenhar todos os pontos
+     * @param function Como os valores de cada intervalo são combinados
+     */
+    public void setTimeBucket(TimeBucket bucket, AggregationFunction function) {
+        this.timeBucket = bucket;
+        this.timeAggregation = function;
+    }
+
+    public TimeBucket getTimeBucket() {
+        return timeBucket;
+    }
+
+    /**
+     * Ordena por X as linhas dos gráficos de linha e dispersão antes de
+     * desenhá-los, para arquivos fora de ordem. O que não cabe no limite de
+     * memória é ordenado em partes gravadas em arquivos temporários.
+     *
+     * @param memoryBytes Memória máxima das linhas em ordenação (0 = não ordena)
+     */
+    public void setSorting(long memoryBytes) {
+        if (memoryBytes < 0) {
+            throw new IllegalArgumentException("Memória de ordenação inválida: " + memoryBytes);
+        }
+        this.sortMemory = memoryBytes;
+    }
+
+    public long getSortMemory() {
+        return sortMemory;
+    }
+
+    public AggregationFunction getTimeAggregation() {
+        return timeAggregation;
+    }
+
+    /**
+     * Define o formato e a codificação das imagens geradas (padrão: PNG do JFreeChart)
+     */
+    public void setImageWriter(ChartImageWriter imageWriter) {
+        this.imageWriter = imageWriter;
+    }
+
+    public ChartImageWriter getImageWriter() {
+        return imageWriter;
+    }
+
+    /**
+     * Define onde são registrados os tempos de montagem, desenho e codificação
+     * (padrão: {@link ChartMetrics#DISABLED})
+     */
+    public void setMetrics(ChartMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public ChartMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Descreve as configurações que mudam a imagem gerada, para compor chaves de cache
+     */
+    public String getRenderSettings() {
+        return width + "x" + height + "|" + downsamplingMethod.name() + "|" + downsamplingThreshold
+                + "|" + aggregationFunction.name() + "|" + aggregationLimit
+                + (densityRendering ? "|densidade" : "")
+                + (timeBucket != null ? "|" + timeBucket.name() + "|" + timeAggregation.name() : "")
+                + (sortMemory > 0 ? "|ordenado" : "")
+                + "|" + imageWriter.getSettings();
+    }
+
+    /**
+     * Cria o coletor do tipo de gráfico com a redução de pontos e a agregação configuradas
+     */
+    public ChartDataCollector newCollector(ChartType chartType, String xColumn, String yColumn) {
+        return newCollector(chartType, xColumn, List.of(yColumn));
+    }
+
+    /**
+     * Cria o coletor de um gráfico com uma série por coluna Y, todas
+     * alimentadas na mesma passada pelos dados
+     */
+    public ChartDataCollector newCollector(ChartType chartType, String xColumn, List<String> yColumns) {
+        ChartDataCollector collector = ChartDataCollector.forType(chartType, xColumn, yColumns);
+        collector.setDownsampling(downsamplingMethod, downsamplingThreshold, width);
+        collector.setAggregation(aggregationFunction, aggregationLimit);
+        collector.setDensityRendering(densityRendering, width, height);
+        collector.setTimeBucket(timeBucket, timeAggregation);
+        collector.setSorting(sortMemory);
+        return collector;
+    }
 
     /**
      * Gera um gráfico baseado nos dados CSV
@@ -42,10 +220,40 @@ public class ChartGenerator {
      * @param outputPath Caminho de saída
      */
     public void generateChart(CSVData csvData, ChartType chartType, String xColumn, String yColumn, String outputPath) {
+        generateChart(csvData, chartType, xColumn, List.of(yColumn), outputPath);
+    }
+
+    /**
+     * Gera um gráfico com uma série por coluna Y
+     * 
+     * @param csvData Dados do CSV
+     * @param chartType Tipo de gráfico
+     * @param xColumn Coluna X
+     * @param yColumns Colunas Y
+     * @param outputPath Caminho de saída
+     */
+    public void generateChart(CSVData csvData, ChartType chartType, String xColumn, List<String> yColumns,
+                              String outputPath) {
+        logger.info("Gerando gráfico do tipo: {}", chartType);
+        long start = metrics.start();
+        try (ChartDataCollector collector = createCollector(csvData, chartType, xColumn, yColumns)) {
+            generateChart(collector, outputPath, start);
+        }
+    }
+
+    /**
+     * Gera um gráfico a partir de um coletor já alimentado com as linhas do CSV
+     * 
+     * @param collector Coletor com os dados do gráfico
+     * @param outputPath Caminho de saída
+     */
+    public void generateChart(ChartDataCollector collector, String outputPath) {
+        generateChart(collector, outputPath, metrics.start());
+    }
+
+    private void generateChart(ChartDataCollector collector, String outputPath, long datasetStart) {
         try {
-            logger.info("Gerando gráfico do tipo: {}", chartType);
-            
-            JFreeChart chart = createChart(csvData, chartType, xColumn, yColumn);
+            JFreeChart chart = buildChart(collector, datasetStart);
             
             // Salva o gráfico como imagem
             saveChartAsImage(chart, outputPath);
@@ -59,177 +267,135 @@ public class ChartGenerator {
     }
 
     /**
-     * Cria o gráfico baseado no tipo especificado
+     * Desenha o gráfico do coletor e o codifica no formato configurado, em
+     * memória, sem gravá-lo (etapa de CPU)
+     * 
+     * @param collector Coletor com os dados do gráfico
+     * @return Bytes da imagem
+     * @throws IOException Se houver erro na codificação
      */
-    private JFreeChart createChart(CSVData csvData, ChartType chartType, String xColumn, String yColumn) {
-        switch (chartType) {
-            case BAR:
-                return createBarChart(csvData, xColumn, yColumn);
-            case LINE:
-                return createLineChart(csvData, xColumn, yColumn);
-            case PIE:
-                return createPieChart(csvData, xColumn, yColumn);
-            case SCATTER:
-                return createScatterChart(csvData, xColumn, yColumn);
-            default:
-                throw new IllegalArgumentException("Tipo de gráfico não suportado: " + chartType);
-        }
+    public byte[] encodeChart(ChartDataCollector collector) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        writeChart(collector, out);
+        return out.toByteArray();
     }
 
     /**
-     * Cria gráfico de barras
+     * Desenha e codifica em memória o gráfico de dados já carregados
+     * 
+     * @param csvData Dados do CSV
+     * @param chartType Tipo de gráfico
+     * @param xColumn Coluna X
+     * @param yColumn Coluna Y
+     * @return Bytes da imagem
+     * @throws IOException Se houver erro na codificação
      */
-    private JFreeChart createBarChart(CSVData csvData, String xColumn, String yColumn) {
-        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-        
-        for (Map<String, String> row : csvData.getRows()) {
-            String xValue = row.get(xColumn);
-            String yValue = row.get(yColumn);
-            
-            if (xValue != null && yValue != null && !xValue.isEmpty() && !yValue.isEmpty()) {
-                try {
-                    double yNumeric = Double.parseDouble(yValue);
-                    dataset.addValue(yNumeric, "Valores", xValue);
-                } catch (NumberFormatException e) {
-                    logger.warn("Valor não numérico ignorado: {}", yValue);
-                }
-            }
-        }
-
-        return ChartFactory.createBarChart(
-            "Gráfico de Barras - " + yColumn + " vs " + xColumn,
-            xColumn,
-            yColumn,
-            dataset,
-            PlotOrientation.VERTICAL,
-            false, true, false
-        );
+    public byte[] encodeChart(CSVData csvData, ChartType chartType, String xColumn, String yColumn)
+            throws IOException {
+        return encodeChart(csvData, chartType, xColumn, List.of(yColumn));
     }
 
     /**
-     * Cria gráfico de linha
+     * Desenha e codifica em memória o gráfico de dados já carregados, com uma série por coluna Y
+     * 
+     * @param csvData Dados do CSV
+     * @param chartType Tipo de gráfico
+     * @param xColumn Coluna X
+     * @param yColumns Colunas Y
+     * @return Bytes da imagem
+     * @throws IOException Se houver erro na codificação
      */
-    private JFreeChart createLineChart(CSVData csvData, String xColumn, String yColumn) {
-        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-        
-        for (Map<String, String> row : csvData.getRows()) {
-            String xValue = row.get(xColumn);
-            String yValue = row.get(yColumn);
-            
-            if (xValue != null && yValue != null && !xValue.isEmpty() && !yValue.isEmpty()) {
-                try {
-                    double yNumeric = Double.parseDouble(yValue);
-                    dataset.addValue(yNumeric, "Valores", xValue);
-                } catch (NumberFormatException e) {
-                    logger.warn("Valor não numérico ignorado: {}", yValue);
-                }
-            }
+    public byte[] encodeChart(CSVData csvData, ChartType chartType, String xColumn, List<String> yColumns)
+            throws IOException {
+        long start = metrics.start();
+        try (ChartDataCollector collector = createCollector(csvData, chartType, xColumn, yColumns)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+            writeChart(collector, out, start);
+            return out.toByteArray();
         }
-
-        return ChartFactory.createLineChart(
-            "Gráfico de Linha - " + yColumn + " vs " + xColumn,
-            xColumn,
-            yColumn,
-            dataset,
-            PlotOrientation.VERTICAL,
-            false, true, false
-        );
     }
 
     /**
-     * Cria gráfico de pizza
+     * Desenha o gráfico do coletor e escreve a imagem no fluxo informado (que não é fechado)
+     * 
+     * @param collector Coletor com os dados do gráfico
+     * @param out Fluxo de saída
+     * @throws IOException Se houver erro na escrita
      */
-    private JFreeChart createPieChart(CSVData csvData, String xColumn, String yColumn) {
-        DefaultPieDataset dataset = new DefaultPieDataset();
-        
-        for (Map<String, String> row : csvData.getRows()) {
-            String xValue = row.get(xColumn);
-            String yValue = row.get(yColumn);
-            
-            if (xValue != null && yValue != null && !xValue.isEmpty() && !yValue.isEmpty()) {
-                try {
-                    double yNumeric = Double.parseDouble(yValue);
-                    dataset.setValue(xValue, yNumeric);
-                } catch (NumberFormatException e) {
-                    logger.warn("Valor não numérico ignorado: {}", yValue);
-                }
-            }
-        }
+    public void writeChart(ChartDataCollector collector, OutputStream out) throws IOException {
+        writeChart(collector, out, metrics.start());
+    }
 
-        return ChartFactory.createPieChart(
-            "Gráfico de Pizza - " + yColumn + " por " + xColumn,
-            dataset,
-            true, true, false
-        );
+    private void writeChart(ChartDataCollector collector, OutputStream out, long datasetStart) throws IOException {
+        imageWriter.write(buildChart(collector, datasetStart), width, height, out, metrics);
     }
 
     /**
-     * Cria gráfico de dispersão
+     * Grava uma imagem já codificada (por exemplo, vinda do cache de gráficos)
+     * 
+     * @param image Bytes da imagem
+     * @param outputPath Caminho de saída
+     * @throws IOException Se houver erro na gravação
      */
-    private JFreeChart createScatterChart(CSVData csvData, String xColumn, String yColumn) {
-        DefaultXYDataset dataset = new DefaultXYDataset();
-        
-        List<Double> xValues = new java.util.ArrayList<>();
-        List<Double> yValues = new java.util.ArrayList<>();
-        
-        for (Map<String, String> row : csvData.getRows()) {
-            String xValue = row.get(xColumn);
-            String yValue = row.get(yColumn);
-            
-            if (xValue != null && yValue != null && !xValue.isEmpty() && !yValue.isEmpty()) {
-                try {
-                    double xNumeric = Double.parseDouble(xValue);
-                    double yNumeric = Double.parseDouble(yValue);
-                    xValues.add(xNumeric);
-                    yValues.add(yNumeric);
-                } catch (NumberFormatException e) {
-                    logger.warn("Valor não numérico ignorado: x={}, y={}", xValue, yValue);
-                }
-            }
-        }
+    public void writeImage(byte[] image, String outputPath) throws IOException {
+        Files.write(createOutputFile(outputPath).toPath(), image);
+        logger.debug("Gráfico salvo em: {}", outputPath);
+    }
 
-        if (!xValues.isEmpty()) {
-            double[][] data = new double[2][xValues.size()];
-            for (int i = 0; i < xValues.size(); i++) {
-                data[0][i] = xValues.get(i);
-                data[1][i] = yValues.get(i);
+    /**
+     * Alimenta o coletor do tipo de gráfico com as linhas já carregadas em memória
+     */
+    private ChartDataCollector createCollector(CSVData csvData, ChartType chartType, String xColumn,
+                                               List<String> yColumns) {
+        ChartDataCollector collector = newCollector(chartType, xColumn, yColumns);
+        Column x = csvData.getColumn(xColumn);
+        Column[] ys = new Column[yColumns.size()];
+        for (int s = 0; s < ys.length; s++) {
+            ys[s] = csvData.getColumn(yColumns.get(s));
+            if (ys[s] == null) {
+                return collector;
             }
-            dataset.addSeries("Dados", data);
         }
+        if (x == null) {
+            return collector;
+        }
+        
+        collector.acceptAll(x, ys, csvData.getRowCount());
+        collector.onEnd();
+        
+        return collector;
+    }
 
-        JFreeChart chart = ChartFactory.createScatterPlot(
-            "Gráfico de Dispersão - " + yColumn + " vs " + xColumn,
-            xColumn,
-            yColumn,
-            dataset,
-            PlotOrientation.VERTICAL,
-            false, true, false
-        );
-
-        // Configura o renderer para mostrar apenas pontos
-        XYPlot plot = (XYPlot) chart.getPlot();
-        XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer(false, true);
-        renderer.setSeriesPaint(0, Color.BLUE);
-        plot.setRenderer(renderer);
-
+    /**
+     * Monta o gráfico do coletor, registrando o tempo desde o início da montagem do dataset
+     */
+    private JFreeChart buildChart(ChartDataCollector collector, long datasetStart) {
+        JFreeChart chart = collector.createChart();
+        metrics.addRowsSkipped(collector.takeNewSkippedRows());
+        metrics.record(ChartMetrics.Stage.DATASET, datasetStart);
         return chart;
     }
 
     /**
-     * Salva o gráfico como imagem PNG
+     * Salva o gráfico no formato configurado
      */
     private void saveChartAsImage(JFreeChart chart, String outputPath) throws IOException {
-        File outputFile = new File(outputPath);
+        File outputFile = createOutputFile(outputPath);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            imageWriter.write(chart, width, height, out, metrics);
+        }
         
+        logger.info("Gráfico salvo como {}: {}x{}", imageWriter.getFormat().name(), width, height);
+    }
+
+    private File createOutputFile(String outputPath) {
+        File outputFile = new File(outputPath);
+
         // Cria o diretório se não existir
         File parentDir = outputFile.getParentFile();
         if (parentDir != null && !parentDir.exists()) {
             parentDir.mkdirs();
         }
-
-        // Salva como PNG
-        ChartUtils.saveChartAsPNG(outputFile, chart, DEFAULT_WIDTH, DEFAULT_HEIGHT);
-        
-        logger.info("Gráfico salvo como PNG: {}x{}", DEFAULT_WIDTH, DEFAULT_HEIGHT);
+        return outputFile;
     }
-} 
\ No newline at end of file
+}
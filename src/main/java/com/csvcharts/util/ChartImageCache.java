@@ -0,0 +1,277 @@
+package com.csvcharts.util;
+
+import com.csvcharts.model.ChartType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cache de gráficos já gerados, guardados como imagem codificada (PNG, JPEG ou SVG)
+ *
+ * A chave combina a versão do arquivo de entrada ({@link FileFingerprint})
+ * com o tipo de gráfico, as colunas e as configurações de desenho (tamanho
+ * da imagem, redução de pontos), de modo que um
+ * acerto devolve os bytes da imagem sem passar pelo JFreeChart. Há uma camada
+ * em memória e, opcionalmente, uma em disco; cada uma tem seu limite de
+ * bytes e descarta primeiro as imagens usadas há mais tempo.
+ */
+public class ChartImageCache {
+    private static final Logger logger = LoggerFactory.getLogger(ChartImageCache.class);
+    /** Um disco com problema falharia em toda requisição */
+    private static final LogThrottle DISK_FAILURE_LOG = new LogThrottle(10, TimeUnit.SECONDS);
+    /** Neutra quanto ao formato: o formato de saída faz parte da chave */
+    private static final String EXTENSION = ".img";
+    private static final Pattern ENTRY_NAME = Pattern.compile("[0-9a-f]{64}\\" + EXTENSION);
+    /** Arquivo temporário deixado por uma gravação interrompida (ver {@link #put}) */
+    private static final Pattern TEMP_NAME = Pattern.compile("[0-9a-f]{64}[0-9]*\\.tmp");
+
+    private final long maxMemoryBytes;
+    private final Map<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+
+    private final Path directory;
+    private final long maxDiskBytes;
+    private final Map<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes;
+
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Cache apenas em memória
+     *
+     * @param maxMemoryBytes Total máximo de bytes de imagens em memória
+     */
+    public ChartImageCache(long maxMemoryBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = null;
+        this.maxDiskBytes = 0;
+    }
+
+    /**
+     * Cache em memória com uma segunda camada em disco. As imagens já
+     * presentes no diretório são reaproveitadas; só são considerados os
+     * arquivos com nome de chave, e os demais nunca são apagados.
+     *
+     * @param maxMemoryBytes Total máximo de bytes de imagens em memória
+     * @param directory Diretório das imagens em disco
+     * @param maxDiskBytes Total máximo de bytes de imagens em disco
+     * @throws IOException Se o diretório não puder ser criado ou listado
+     */
+    public ChartImageCache(long maxMemoryBytes, Path directory, long maxDiskBytes) throws IOException {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        Files.createDirectories(directory);
+        loadDiskIndex();
+    }
+
+    /**
+     * Monta a chave de um gráfico
+     *
+     * @param renderSettings Configurações que mudam a imagem (ver {@link ChartGenerator#getRenderSettings()})
+     * @return Hash SHA-256 em hexadecimal, usado também como nome do arquivo em disco
+     */
+    public static String key(FileFingerprint input, ChartType chartType, String xColumn, String yColumn,
+                             String renderSettings) {
+        String description = String.join("\u0000", input.toString(), chartType.name(), xColumn, yColumn,
+                renderSettings);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(description.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /**
+     * Retorna a imagem guardada para a chave, ou null se não houver
+     */
+    public byte[] get(String key) {
+        synchronized (this) {
+            byte[] image = memory.get(key);
+            if (image != null) {
+                memoryHits++;
+                return image;
+            }
+            if (directory == null || !disk.containsKey(key)) {
+                misses++;
+                return null;
+            }
+        }
+
+        try {
+            Path file = directory.resolve(key + EXTENSION);
+            byte[] image = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            synchronized (this) {
+                diskHits++;
+                putInMemory(key, image);
+            }
+            return image;
+        } catch (NoSuchFileException e) {
+            // Descartado por outra thread entre a consulta e a leitura
+            synchronized (this) {
+                removeFromDisk(key);
+                misses++;
+            }
+            return null;
+        } catch (IOException e) {
+            long suppressed = DISK_FAILURE_LOG.acquire();
+            if (suppressed >= 0) {
+                logger.warn("Falha ao ler gráfico do cache em disco: {}{}", e.getMessage(),
+                        LogThrottle.suppressedNote(suppressed));
+            }
+            synchronized (this) {
+                misses++;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Guarda a imagem gerada para a chave
+     */
+    public void put(String key, byte[] image) {
+        synchronized (this) {
+            putInMemory(key, image);
+        }
+        if (directory == null || image.length > maxDiskBytes) {
+            return;
+        }
+
+        try {
+            Path file = directory.resolve(key + EXTENSION);
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temp, image);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            List<String> evicted = new ArrayList<>();
+            synchronized (this) {
+                removeFromDisk(key);
+                disk.put(key, (long) image.length);
+                diskBytes += image.length;
+                Iterator<Map.Entry<String, Long>> iterator = disk.entrySet().iterator();
+                while (diskBytes > maxDiskBytes && iterator.hasNext()) {
+                    Map.Entry<String, Long> eldest = iterator.next();
+                    diskBytes -= eldest.getValue();
+                    evicted.add(eldest.getKey());
+                    iterator.remove();
+                    evictions++;
+                }
+            }
+            for (String old : evicted) {
+                Files.deleteIfExists(directory.resolve(old + EXTENSION));
+            }
+        } catch (IOException e) {
+            long suppressed = DISK_FAILURE_LOG.acquire();
+            if (suppressed >= 0) {
+                logger.warn("Falha ao gravar gráfico no cache em disco: {}{}", e.getMessage(),
+                        LogThrottle.suppressedNote(suppressed));
+            }
+        }
+    }
+
+    public synchronized long getMemoryHits() {
+        return memoryHits;
+    }
+
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Cache de gráficos: %d em memória (%d/%d bytes), %d em disco (%d/%d bytes), "
+                        + "%d acertos em memória, %d acertos em disco, %d falhas, %d descartes",
+                memory.size(), memoryBytes, maxMemoryBytes, disk.size(), diskBytes, maxDiskBytes,
+                memoryHits, diskHits, misses, evictions);
+    }
+
+    private void putInMemory(String key, byte[] image) {
+        if (image.length > maxMemoryBytes) {
+            return;
+        }
+        byte[] previous = memory.put(key, image);
+        if (previous != null) {
+            memoryBytes -= previous.length;
+        }
+        memoryBytes += image.length;
+
+        Iterator<Map.Entry<String, byte[]>> iterator = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+            memoryBytes -= iterator.next().getValue().length;
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private void removeFromDisk(String key) {
+        Long size = disk.remove(key);
+        if (size != null) {
+            diskBytes -= size;
+        }
+    }
+
+    /**
+     * Lê as imagens já presentes no diretório, das mais antigas para as mais
+     * recentes, e apaga os temporários de gravações interrompidas
+     */
+    private void loadDiskIndex() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (ENTRY_NAME.matcher(name).matches() && Files.isRegularFile(file)) {
+                    files.add(file);
+                } else if (TEMP_NAME.matcher(name).matches()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparing(file -> {
+            try {
+                return Files.getLastModifiedTime(file);
+            } catch (IOException e) {
+                return FileTime.fromMillis(0);
+            }
+        }));
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long size = Files.size(file);
+            disk.put(name.substring(0, name.length() - EXTENSION.length()), size);
+            diskBytes += size;
+        }
+        logger.debug("Cache de gráficos em disco: {} imagens ({} bytes) em {}", disk.size(), diskBytes, directory);
+    }
+}
@@ -0,0 +1,62 @@
+package com.csvcharts.util;
+
+import com.csvcharts.model.ImageFormat;
+import org.jfree.chart.JFreeChart;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Desenha um gráfico e o codifica em um formato de imagem
+ *
+ * As implementações podem ser usadas por várias threads ao mesmo tempo.
+ */
+public interface ChartImageWriter {
+
+    /**
+     * Compressão padrão do {@link PngImageWriter}, quando não informada
+     */
+    int DEFAULT_PNG_COMPRESSION = -1;
+
+    ImageFormat getFormat();
+
+    /**
+     * Descreve o formato e seus parâmetros, para compor chaves de cache
+     */
+    String getSettings();
+
+    /**
+     * Desenha o gráfico no tamanho informado e escreve a imagem no fluxo (que não é fechado)
+     */
+    default void write(JFreeChart chart, int width, int height, OutputStream out) throws IOException {
+        write(chart, width, height, out, ChartMetrics.DISABLED);
+    }
+
+    /**
+     * Como {@link #write(JFreeChart, int, int, OutputStream)}, registrando
+     * separadamente o tempo do desenho e o da codificação
+     */
+    void write(JFreeChart chart, int width, int height, OutputStream out, ChartMetrics metrics) throws IOException;
+
+    /**
+     * Cria o gravador do formato
+     *
+     * @param format Formato da imagem
+     * @param compressionLevel Nível de compressão do PNG (0 a 9); com
+     *                         {@link #DEFAULT_PNG_COMPRESSION} o PNG é gravado pelo JFreeChart
+     */
+    static ChartImageWriter create(ImageFormat format, int compressionLevel) {
+        switch (format) {
+            case PNG:
+                return compressionLevel == DEFAULT_PNG_COMPRESSION
+                        ? new ChartUtilsPngWriter()
+                        : new PngImageWriter(compressionLevel);
+            case JPEG:
+                return new JpegImageWriter();
+            case SVG:
+                return new SvgImageWriter();
+            default:
+                throw new IllegalArgumentException("Formato de imagem não suportado: " + format);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.csvcharts.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas da geração de gráficos: tempo de cada etapa, linhas e bytes lidos
+ * e memória alocada por requisição
+ *
+ * Uma mesma instância é compartilhada pelo leitor, pelo gerador e pelos
+ * serviços, e pode ser usada por várias threads ao mesmo tempo. Com a
+ * instância {@link #DISABLED} cada chamada se resume a testar um campo final.
+ *
+ * Os tempos de cada etapa são guardados em um histograma com quatro faixas
+ * por potência de 2, o que dá percentis com erro de até 25%. A memória
+ * alocada é a da thread que atende a requisição: as threads auxiliares da
+ * leitura paralela e da agregação paralela não entram na conta.
+ */
+public class ChartMetrics implements ChartMetricsMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(ChartMetrics.class);
+
+    /** Métricas desligadas */
+    public static final ChartMetrics DISABLED = new ChartMetrics(false);
+
+    public static final String OBJECT_NAME = "com.csvcharts:type=ChartMetrics";
+
+    /**
+     * Etapas da geração de um gráfico
+     */
+    public enum Stage {
+        /** Leitura do CSV; em streaming inclui a coleta das linhas no gráfico */
+        READ,
+        /** Leitura do cabeçalho e escolha das colunas X e Y */
+        COLUMNS,
+        /** Montagem do dataset e do JFreeChart */
+        DATASET,
+        /** Desenho do gráfico na imagem */
+        RENDER,
+        /** Codificação da imagem no formato configurado, incluindo a gravação */
+        ENCODE
+    }
+
+    private static final int BUCKETS = 248;
+
+    private final boolean enabled;
+    private final Timer[] timers = new Timer[Stage.values().length];
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder rowsSkipped = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final com.sun.management.ThreadMXBean threadBean;
+
+    public ChartMetrics() {
+        this(true);
+    }
+
+    private ChartMetrics(boolean enabled) {
+        this.enabled = enabled;
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = new Timer();
+        }
+
+        ThreadMXBean bean = enabled ? ManagementFactory.getThreadMXBean() : null;
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+            sunBean.setThreadAllocatedMemoryEnabled(true);
+            this.threadBean = sunBean;
+        } else {
+            this.threadBean = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Registra as métricas no servidor JMX da plataforma
+     */
+    public void registerMBean() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            logger.warn("Métricas já registradas no JMX como {}", OBJECT_NAME);
+        } catch (JMException e) {
+            logger.warn("Não foi possível registrar as métricas no JMX: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Marca o início de uma etapa, para {@link #record(Stage, long)}
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Registra o tempo da etapa iniciada em {@code start}
+     */
+    public void record(Stage stage, long start) {
+        if (enabled) {
+            timers[stage.ordinal()].add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Marca a memória já alocada pela thread atual, para {@link #addAllocation(long)}
+     * e {@link #recordRequest(boolean, long)}
+     */
+    public long allocationMark() {
+        if (threadBean == null) {
+            return 0;
+        }
+        // Threads virtuais não informam a memória alocada (-1)
+        return threadBean.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Soma a memória alocada pela thread atual desde a marca
+     */
+    public void addAllocation(long mark) {
+        if (threadBean != null && mark >= 0) {
+            long now = threadBean.getCurrentThreadAllocatedBytes();
+            if (now >= mark) {
+                allocatedBytes.add(now - mark);
+            }
+        }
+    }
+
+    /**
+     * Conta uma requisição concluída e soma a memória alocada desde a marca
+     */
+    public void recordRequest(boolean success, long allocationMark) {
+        if (enabled) {
+            requests.increment();
+            if (!success) {
+                failures.increment();
+            }
+            addAllocation(allocationMark);
+        }
+    }
+
+    public void addRowsRead(long rows) {
+        if (enabled) {
+            rowsRead.add(rows);
+        }
+    }
+
+    public void addRowsSkipped(long rows) {
+        if (enabled && rows > 0) {
+            rowsSkipped.add(rows);
+        }
+    }
+
+    public void addBytesRead(long bytes) {
+        if (enabled) {
+            bytesRead.add(bytes);
+        }
+    }
+
+    @Override
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getRowsRead() {
+        return rowsRead.sum();
+    }
+
+    @Override
+    public long getRowsSkipped() {
+        return rowsSkipped.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    @Override
+    public long getAllocatedBytesPerRequest() {
+        long count = getRequests();
+        return count > 0 ? getAllocatedBytes() / count : 0;
+    }
+
+    @Override
+    public double getReadMillis() {
+        return timer(Stage.READ).totalMillis();
+    }
+
+    @Override
+    public double getColumnsMillis() {
+        return timer(Stage.COLUMNS).totalMillis();
+    }
+
+    @Override
+    public double getDatasetMillis() {
+        return timer(Stage.DATASET).totalMillis();
+    }
+
+    @Override
+    public double getRenderMillis() {
+        return timer(Stage.RENDER).totalMillis();
+    }
+
+    @Override
+    public double getEncodeMillis() {
+        return timer(Stage.ENCODE).totalMillis();
+    }
+
+    @Override
+    public String[] getStageSummaries() {
+        String[] summaries = new String[timers.length];
+        for (Stage stage : Stage.values()) {
+            Timer timer = timer(stage);
+            summaries[stage.ordinal()] = String.format(Locale.ROOT,
+                    "%s: %d vezes, total %.1f ms, média %.2f ms, p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, máx %.2f ms",
+                    stage, timer.count.sum(), timer.totalMillis(), timer.meanMillis(),
+                    timer.percentileMillis(0.50), timer.percentileMillis(0.95), timer.percentileMillis(0.99),
+                    timer.max.get() / 1e6);
+        }
+        return summaries;
+    }
+
+    @Override
+    public String toJson() {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\n");
+        json.append("  \"requisicoes\": ").append(getRequests()).append(",\n");
+        json.append("  \"falhas\": ").append(getFailures()).append(",\n");
+        json.append("  \"linhasLidas\": ").append(getRowsRead()).append(",\n");
+        json.append("  \"linhasIgnoradas\": ").append(getRowsSkipped()).append(",\n");
+        json.append("  \"bytesLidos\": ").append(getBytesRead()).append(",\n");
+        json.append("  \"bytesAlocados\": ").append(getAllocatedBytes()).append(",\n");
+        json.append("  \"bytesAlocadosPorRequisicao\": ").append(getAllocatedBytesPerRequest()).append(",\n");
+        json.append("  \"etapas\": {\n");
+        for (Stage stage : Stage.values()) {
+            Timer timer = timer(stage);
+            json.append(String.format(Locale.ROOT,
+                    "    \"%s\": {\"contagem\": %d, \"totalMs\": %.3f, \"mediaMs\": %.3f, "
+                            + "\"p50Ms\": %.3f, \"p95Ms\": %.3f, \"p99Ms\": %.3f, \"maxMs\": %.3f}",
+                    stage, timer.count.sum(), timer.totalMillis(), timer.meanMillis(),
+                    timer.percentileMillis(0.50), timer.percentileMillis(0.95), timer.percentileMillis(0.99),
+                    timer.max.get() / 1e6));
+            json.append(stage.ordinal() < timers.length - 1 ? ",\n" : "\n");
+        }
+        json.append("  }\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (Timer timer : timers) {
+            timer.reset();
+        }
+        requests.reset();
+        failures.reset();
+        rowsRead.reset();
+        rowsSkipped.reset();
+        bytesRead.reset();
+        allocatedBytes.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Métricas: %d requisições (%d falhas), %d linhas lidas, %d ignoradas, %d bytes lidos, "
+                        + "%d bytes alocados por requisição%n%s",
+                getRequests(), getFailures(), getRowsRead(), getRowsSkipped(), getBytesRead(),
+                getAllocatedBytesPerRequest(), String.join(System.lineSeparator(), getStageSummaries()));
+    }
+
+    private Timer timer(Stage stage) {
+        return timers[stage.ordinal()];
+    }
+
+    /**
+     * Histograma dos tempos de uma etapa
+     */
+    private static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        void add(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            max.accumulate(nanos);
+            buckets.incrementAndGet(bucket(nanos));
+        }
+
+        double totalMillis() {
+            return totalNanos.sum() / 1e6;
+        }
+
+        double meanMillis() {
+            long n = count.sum();
+            return n > 0 ? totalMillis() / n : 0;
+        }
+
+        /**
+         * Limite superior da faixa que contém o percentil, sem passar do máximo
+         */
+        double percentileMillis(double quantile) {
+            long n = 0;
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = buckets.get(i);
+                n += snapshot[i];
+            }
+            if (n == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(quantile * n));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max.get()) / 1e6;
+                }
+            }
+            return max.get() / 1e6;
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            max.reset();
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+        }
+
+        /**
+         * Faixa do tempo: os dois bits seguintes ao mais alto dividem cada potência de 2 em quatro
+         */
+        static int bucket(long nanos) {
+            if (nanos < 4) {
+                return (int) Math.max(nanos, 0);
+            }
+            int log = 63 - Long.numberOfLeadingZeros(nanos);
+            return (log - 1) * 4 + (int) (nanos >>> (log - 2) & 3);
+        }
+
+        static long upperBound(int bucket) {
+            if (bucket < 4) {
+                return bucket;
+            }
+            int log = bucket / 4 + 1;
+            return ((4L + bucket % 4 + 1) << (log - 2)) - 1;
+        }
+    }
+}
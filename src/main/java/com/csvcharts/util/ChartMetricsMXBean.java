@@ -0,0 +1,43 @@
+package com.csvcharts.util;
+
+/**
+ * Interface JMX das métricas de geração de gráficos ({@link ChartMetrics#OBJECT_NAME})
+ */
+public interface ChartMetricsMXBean {
+
+    long getRequests();
+
+    long getFailures();
+
+    long getRowsRead();
+
+    long getRowsSkipped();
+
+    long getBytesRead();
+
+    long getAllocatedBytes();
+
+    long getAllocatedBytesPerRequest();
+
+    double getReadMillis();
+
+    double getColumnsMillis();
+
+    double getDatasetMillis();
+
+    double getRenderMillis();
+
+    double getEncodeMillis();
+
+    /**
+     * Uma linha por etapa com contagem, tempo total, média, percentis e máximo
+     */
+    String[] getStageSummaries();
+
+    /**
+     * Todas as métricas em JSON, no formato de --metricas
+     */
+    String toJson();
+
+    void reset();
+}
@@ -0,0 +1,258 @@
+package com.csvcharts.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Conteúdo descompactado de um arquivo .gz ou de um CSV dentro de um .zip,
+ * produzido em outra thread
+ *
+ * Uma thread de descompactação lê o arquivo e escreve os bytes já
+ * descompactados direto em um buffer circular; quem lê este fluxo (o
+ * parser) copia de lá. Assim a descompactação de um trecho acontece ao
+ * mesmo tempo em que o trecho anterior é interpretado, em dois núcleos.
+ * Cada lado só espera o outro quando o buffer está cheio ou vazio, e as
+ * cópias são feitas fora da trava, em trechos contínuos do buffer.
+ *
+ * Um erro na descompactação é relançado na leitura seguinte, depois dos
+ * bytes já produzidos. Fechar o fluxo encerra a thread e fecha o arquivo.
+ */
+final class DecompressingInputStream extends InputStream {
+    static final int DEFAULT_RING_SIZE = 4 << 20;
+
+    /** Buffer de entrada do inflater e tamanho máximo de cada escrita no buffer circular */
+    private static final int CHUNK_SIZE = 256 << 10;
+
+    private final byte[] ring;
+    private final InputStream source;
+    private final Thread producer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    // Totais de bytes escritos e lidos; a posição no buffer é o total módulo o tamanho
+    private long written;
+    private long read;
+    private boolean finished;
+    private boolean closed;
+    private IOException failure;
+
+    private DecompressingInputStream(InputStream source, int ringSize, String name) {
+        this.ring = new byte[ringSize];
+        this.source = source;
+        this.producer = new Thread(this::produce, "descompactacao-" + name);
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    /**
+     * Indica se o arquivo é compactado (.gz ou .zip), pela extensão
+     */
+    static boolean isCompressed(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".gz") || name.endsWith(".zip");
+    }
+
+    /**
+     * Abre o arquivo compactado e começa a descompactá-lo. De um .zip é lida
+     * a primeira entrada terminada em .csv.
+     *
+     * @throws IOException Se o arquivo não puder ser aberto ou o .zip não tiver um CSV
+     */
+    static DecompressingInputStream open(Path path) throws IOException {
+        return open(path, DEFAULT_RING_SIZE);
+    }
+
+    static DecompressingInputStream open(Path path, int ringSize) throws IOException {
+        InputStream file = Files.newInputStream(path);
+        try {
+            String name = path.getFileName().toString();
+            if (name.toLowerCase(Locale.ROOT).endsWith(".zip")) {
+                ZipInputStream zip = new ZipInputStream(new BufferedInputStream(file, CHUNK_SIZE));
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    if (!entry.isDirectory() && entry.getName().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                        return new DecompressingInputStream(zip, ringSize, name);
+                    }
+                }
+                throw new IOException("Nenhum arquivo .csv dentro de " + path);
+            }
+            return new DecompressingInputStream(new GZIPInputStream(file, CHUNK_SIZE), ringSize, name);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Laço da thread de descompactação: espera espaço livre e descompacta
+     * direto no trecho livre seguinte. Termine como terminar, o fluxo é
+     * marcado como concluído, para que quem lê nunca fique esperando.
+     */
+    private void produce() {
+        boolean completed = false;
+        try (InputStream in = source) {
+            while (true) {
+                int offset;
+                int length;
+                lock.lock();
+                try {
+                    while (!closed && written - read == ring.length) {
+                        notFull.await();
+                    }
+                    if (closed) {
+                        completed = true;
+                        return;
+                    }
+                    offset = (int) (written % ring.length);
+                    length = (int) Math.min(ring.length - (written - read), ring.length - offset);
+                } finally {
+                    lock.unlock();
+                }
+
+                int n = in.read(ring, offset, Math.min(length, CHUNK_SIZE));
+
+                lock.lock();
+                try {
+                    if (n < 0) {
+                        finished = true;
+                    } else {
+                        written += n;
+                    }
+                    notEmpty.signal();
+                } finally {
+                    lock.unlock();
+                }
+                if (n < 0) {
+                    completed = true;
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new InterruptedIOException("Descompactação interrompida"));
+        } catch (Throwable e) {
+            // RuntimeException de um formato corrompido, OutOfMemoryError...
+            fail(new IOException(e.toString(), e));
+        } finally {
+            finish(completed);
+        }
+    }
+
+    private void fail(IOException e) {
+        lock.lock();
+        try {
+            if (failure == null) {
+                failure = e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void finish(boolean completed) {
+        lock.lock();
+        try {
+            if (!completed && failure == null) {
+                failure = new IOException("Descompactação encerrada antes do fim do arquivo");
+            }
+            finished = true;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        int start;
+        int n;
+        lock.lock();
+        try {
+            while (written == read && !finished && !closed) {
+                notEmpty.await();
+            }
+            if (closed) {
+                throw new IOException("Fluxo fechado");
+            }
+            if (written == read) {
+                if (failure != null) {
+                    throw new IOException("Falha ao descompactar: " + failure.getMessage(), failure);
+                }
+                return -1;
+            }
+            start = (int) (read % ring.length);
+            n = (int) Math.min(Math.min(length, written - read), ring.length - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Leitura interrompida");
+        } finally {
+            lock.unlock();
+        }
+
+        System.arraycopy(ring, start, buffer, offset, n);
+
+        lock.lock();
+        try {
+            read += n;
+            notFull.signal();
+        } finally {
+            lock.unlock();
+        }
+        return n;
+    }
+
+    @Override
+    public int available() {
+        lock.lock();
+        try {
+            return (int) Math.min(Integer.MAX_VALUE, written - read);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Encerra a descompactação e espera a thread fechar o arquivo
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notFull.signal();
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            producer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido ao fechar a descompactação");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.csvcharts.util;
+
+import org.jfree.chart.annotations.AbstractXYAnnotation;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.plot.PlotRenderingInfo;
+import org.jfree.chart.plot.XYPlot;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Desenha os pontos de um gráfico de dispersão como um mapa de densidade
+ *
+ * Em vez de uma forma Java2D por ponto, os pontos acumulados em uma
+ * {@link DensityGrid} são somados por pixel da área de dados; a soma é
+ * convertida em cores (escala logarítmica) e desenhada como uma única
+ * imagem. Eixos, título e grade continuam sendo desenhados pelo JFreeChart.
+ * A soma por pixel e a imagem são as da thread ({@link RasterBuffers}).
+ */
+class DensityAnnotation extends AbstractXYAnnotation {
+    private static final long serialVersionUID = 1L;
+    private static final int[] PALETTE = palette(256);
+
+    private final transient DensityGrid points;
+
+    DensityAnnotation(DensityGrid points) {
+        this.points = points;
+    }
+
+    @Override
+    public void draw(Graphics2D g2, XYPlot plot, Rectangle2D dataArea, ValueAxis domainAxis, ValueAxis rangeAxis,
+                     int rendererIndex, PlotRenderingInfo info) {
+        int width = (int) Math.ceil(dataArea.getWidth());
+        int height = (int) Math.ceil(dataArea.getHeight());
+        if (width <= 0 || height <= 0 || points.isEmpty()) {
+            return;
+        }
+
+        double[] density = RasterBuffers.density(width * height);
+        points.render(density, width, height, domainAxis.getLowerBound(), domainAxis.getUpperBound(),
+                rangeAxis.getLowerBound(), rangeAxis.getUpperBound());
+        g2.drawImage(colorize(density, width, height), (int) Math.floor(dataArea.getX()),
+                (int) Math.floor(dataArea.getY()), null);
+    }
+
+    private static BufferedImage colorize(double[] density, int width, int height) {
+        int pixelCount = width * height;
+        double max = 0;
+        for (int p = 0; p < pixelCount; p++) {
+            max = Math.max(max, density[p]);
+        }
+
+        BufferedImage image = RasterBuffers.densityImage(width, height);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        double scale = (PALETTE.length - 1) / Math.log1p(max);
+        for (int p = 0; p < pixelCount; p++) {
+            pixels[p] = density[p] > 0 ? PALETTE[(int) (Math.log1p(density[p]) * scale)] : 0;
+        }
+        return image;
+    }
+
+    /**
+     * Do azul claro (poucos pontos) ao azul escuro (muitos pontos)
+     */
+    private static int[] palette(int levels) {
+        int[] colors = new int[levels];
+        Color light = new Color(90, 120, 255);
+        Color dark = new Color(0, 0, 140);
+        for (int i = 0; i < levels; i++) {
+            double t = (double) i / (levels - 1);
+            int red = (int) Math.round(light.getRed() + t * (dark.getRed() - light.getRed()));
+            int green = (int) Math.round(light.getGreen() + t * (dark.getGreen() - light.getGreen()));
+            int blue = (int) Math.round(light.getBlue() + t * (dark.getBlue() - light.getBlue()));
+            colors[i] = 0xFF000000 | red << 16 | green << 8 | blue;
+        }
+        return colors;
+    }
+}
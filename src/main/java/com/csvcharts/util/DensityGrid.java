@@ -0,0 +1,297 @@
+package com.csvcharts.util;
+
+import java.util.Arrays;
+
+/**
+ * Pontos de um mapa de densidade, acumulados à medida que as linhas chegam,
+ * com memória limitada
+ *
+ * Os primeiros pontos são guardados como estão e desenhados exatamente.
+ * Passando de {@link #MAX_POINTS}, eles são contados em uma grade de tamanho
+ * fixo no espaço dos dados (o dobro da resolução da imagem em cada eixo),
+ * com limites iniciais tirados dos pontos já guardados; daí em diante cada
+ * ponto só incrementa uma célula. Quando um ponto cai fora da grade, ela é
+ * deslocada e, se preciso, a largura das células do eixo é multiplicada por
+ * uma potência de 2, com as células antigas somadas nas novas; assim os
+ * dados ocupam ao menos cerca de metade da grade. No desenho, cada célula é repartida entre os
+ * pixels que cobre, proporcionalmente à área.
+ */
+final class DensityGrid {
+    static final int MAX_POINTS = 1 << 18;
+
+    private final int columns;
+    private final int rows;
+
+    private double[] xs = new double[1024];
+    private double[] ys = new double[1024];
+    private int size;
+
+    private int[] counts;
+    private Axis xAxis;
+    private Axis yAxis;
+
+    private double minX = Double.POSITIVE_INFINITY;
+    private double maxX = Double.NEGATIVE_INFINITY;
+    private double minY = Double.POSITIVE_INFINITY;
+    private double maxY = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param width Largura da imagem em pixels
+     * @param height Altura da imagem em pixels
+     */
+    DensityGrid(int width, int height) {
+        this.columns = 2 * Math.max(width, 1);
+        this.rows = 2 * Math.max(height, 1);
+    }
+
+    /**
+     * Acrescenta um ponto; pontos com coordenada NaN ou infinita são ignorados
+     */
+    void add(double x, double y) {
+        if (!Double.isFinite(x) || !Double.isFinite(y)) {
+            return;
+        }
+        minX = Math.min(minX, x);
+        maxX = Math.max(maxX, x);
+        minY = Math.min(minY, y);
+        maxY = Math.max(maxY, y);
+
+        if (counts != null) {
+            count(x, y);
+            return;
+        }
+        if (size == xs.length) {
+            if (size == MAX_POINTS) {
+                toGrid();
+                count(x, y);
+                return;
+            }
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    boolean isEmpty() {
+        return minX > maxX;
+    }
+
+    double getMinX() {
+        return minX;
+    }
+
+    double getMaxX() {
+        return maxX;
+    }
+
+    double getMinY() {
+        return minY;
+    }
+
+    double getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * Soma os pontos em uma grade de pixels (linha 0 no topo, como na
+     * imagem) cobrindo os limites dos eixos do gráfico; o que fica fora dos
+     * limites é ignorado
+     */
+    void render(double[] density, int width, int height, double lowerX, double upperX,
+                double lowerY, double upperY) {
+        double scaleX = width / (upperX - lowerX);
+        double scaleY = height / (upperY - lowerY);
+        if (counts == null) {
+            for (int i = 0; i < size; i++) {
+                double x = xs[i];
+                double y = ys[i];
+                if (!(x >= lowerX && x <= upperX && y >= lowerY && y <= upperY)) {
+                    continue;
+                }
+                int column = Math.min((int) ((x - lowerX) * scaleX), width - 1);
+                int row = Math.min((int) ((upperY - y) * scaleY), height - 1);
+                density[row * width + column]++;
+            }
+            return;
+        }
+
+        Coverage xCoverage = new Coverage(xAxis, width, lowerX, scaleX, false);
+        Coverage yCoverage = new Coverage(yAxis, height, upperY, scaleY, true);
+        for (int row = 0; row < rows; row++) {
+            for (int k = yCoverage.start[row]; k < yCoverage.start[row + 1]; k++) {
+                int pixelRow = yCoverage.pixels[k] * width;
+                double rowWeight = yCoverage.weights[k];
+                for (int column = 0; column < columns; column++) {
+                    int count = counts[row * columns + column];
+                    if (count == 0) {
+                        continue;
+                    }
+                    for (int m = xCoverage.start[column]; m < xCoverage.start[column + 1]; m++) {
+                        density[pixelRow + xCoverage.pixels[m]] += count * rowWeight * xCoverage.weights[m];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Troca os pontos guardados pela grade, com limites iniciais tirados deles
+     */
+    private void toGrid() {
+        xAxis = new Axis(columns, minX, maxX);
+        yAxis = new Axis(rows, minY, maxY);
+        counts = new int[columns * rows];
+        for (int i = 0; i < size; i++) {
+            count(xs[i], ys[i]);
+        }
+        xs = null;
+        ys = null;
+        size = 0;
+    }
+
+    private void count(double x, double y) {
+        int column = xAxis.index(x);
+        int row = yAxis.index(y);
+        if (column < 0 || row < 0) {
+            rebin(x, y);
+            column = xAxis.index(x);
+            row = yAxis.index(y);
+            if (column < 0 || row < 0) {
+                return;
+            }
+        }
+        counts[row * columns + column]++;
+    }
+
+    /**
+     * Amplia os eixos até incluir o ponto e soma as células antigas nas novas
+     */
+    private void rebin(double x, double y) {
+        int[] columnMap = xAxis.index(x) < 0 ? xAxis.grow(minX, maxX) : null;
+        int[] rowMap = yAxis.index(y) < 0 ? yAxis.grow(minY, maxY) : null;
+
+        int[] previous = counts;
+        counts = new int[previous.length];
+        for (int row = 0; row < rows; row++) {
+            int newRow = rowMap != null ? rowMap[row] : row;
+            for (int column = 0; column < columns; column++) {
+                int count = previous[row * columns + column];
+                if (count != 0) {
+                    counts[newRow * columns + (columnMap != null ? columnMap[column] : column)] += count;
+                }
+            }
+        }
+    }
+
+    /**
+     * Divisão de um eixo da grade em células de mesma largura
+     */
+    private static final class Axis {
+        final int cells;
+        double origin;
+        double cellWidth;
+
+        Axis(int cells, double min, double max) {
+            this.cells = cells;
+            if (max > min) {
+                // Uma célula de folga para que o máximo caia dentro da grade
+                cellWidth = (max - min) / (cells - 1);
+                origin = min;
+            } else {
+                // Todos os valores iguais: a menor largura possível, ampliada se vierem outros
+                cellWidth = Math.max(Math.ulp(min), Double.MIN_NORMAL);
+                origin = min - cellWidth * (cells / 2);
+            }
+        }
+
+        /**
+         * Célula do valor, ou -1 se ele cai fora da grade
+         */
+        int index(double value) {
+            double position = Math.floor((value - origin) / cellWidth);
+            return position >= 0 && position < cells ? (int) position : -1;
+        }
+
+        /**
+         * Desloca a grade e multiplica a largura das células pela menor
+         * potência de 2 (possivelmente 1) que faz caber os dados, mantendo
+         * as bordas das células antigas alinhadas às novas
+         *
+         * @param min Menor valor dos dados, incluindo o que não coube
+         * @param max Maior valor dos dados, incluindo o que não coube
+         * @return Nova célula de cada célula antiga
+         */
+        int[] grow(double min, double max) {
+            double previousOrigin = origin;
+            double previousWidth = cellWidth;
+            boolean fits = false;
+            for (double factor = 1; !fits && Double.isFinite(previousWidth * factor * cells); factor *= 2) {
+                double width = previousWidth * factor;
+                // Dados no centro, para que uma série que avança aos poucos não desloque a grade a cada célula
+                double start = (min + max) / 2 - width * cells / 2;
+                origin = previousOrigin + Math.floor((start - previousOrigin) / width) * width;
+                cellWidth = width;
+                fits = index(min) >= 0 && index(max) >= 0;
+            }
+
+            int[] map = new int[cells];
+            if (!fits) {
+                // Extensão além do maior double: o ponto é descartado (ver count)
+                origin = previousOrigin;
+                cellWidth = previousWidth;
+                Arrays.setAll(map, cell -> cell);
+                return map;
+            }
+            for (int cell = 0; cell < cells; cell++) {
+                int index = index(previousOrigin + (cell + 0.5) * previousWidth);
+                map[cell] = index >= 0 ? index : (cell < cells / 2 ? 0 : cells - 1);
+            }
+            return map;
+        }
+    }
+
+    /**
+     * Pixels cobertos por cada célula de um eixo, com a fração da célula em
+     * cada um (células ou partes fora da imagem não cobrem nenhum)
+     */
+    private static final class Coverage {
+        final int[] start;
+        final int[] pixels;
+        final double[] weights;
+
+        Coverage(Axis axis, int size, double reference, double scale, boolean inverted) {
+            start = new int[axis.cells + 1];
+            int[] pixelList = new int[axis.cells * 2];
+            double[] weightList = new double[axis.cells * 2];
+            int count = 0;
+            for (int cell = 0; cell < axis.cells; cell++) {
+                start[cell] = count;
+                double low = axis.origin + cell * axis.cellWidth;
+                double high = low + axis.cellWidth;
+                double from = inverted ? (reference - high) * scale : (low - reference) * scale;
+                double to = inverted ? (reference - low) * scale : (high - reference) * scale;
+                double span = to - from;
+                int first = Math.max((int) Math.floor(from), 0);
+                int last = Math.min((int) Math.ceil(to), size) - 1;
+                for (int pixel = first; pixel <= last; pixel++) {
+                    double overlap = Math.min(to, pixel + 1) - Math.max(from, pixel);
+                    if (overlap <= 0) {
+                        continue;
+                    }
+                    if (count == pixelList.length) {
+                        pixelList = Arrays.copyOf(pixelList, count * 2);
+                        weightList = Arrays.copyOf(weightList, count * 2);
+                    }
+                    pixelList[count] = pixel;
+                    weightList[count] = overlap / span;
+                    count++;
+                }
+            }
+            start[axis.cells] = count;
+            pixels = pixelList;
+            weights = weightList;
+        }
+    }
+}
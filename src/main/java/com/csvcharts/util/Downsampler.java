@@ -0,0 +1,328 @@
+package com.csvcharts.util;
+
+import com.csvcharts.model.DownsamplingMethod;
+
+import java.util.Arrays;
+
+/**
+ * Reduz, em streaming, uma série de pontos à resolução da imagem
+ *
+ * Os pontos são agrupados, na ordem de chegada, em faixas de largura fixa
+ * (em número de pontos), guardando o mínimo e o máximo de cada faixa.
+ * Enquanto a série não passa do limite, ela é devolvida sem alteração.
+ * Quando o número de faixas chega à capacidade (o limite, mas ao menos o
+ * dobro da resolução, para que cada pixel tenha mais de uma faixa), faixas
+ * vizinhas são unidas duas a duas e a largura dobra; como mínimo e máximo
+ * se combinam sem perda, a memória fica limitada qualquer que seja o
+ * tamanho da série.
+ *
+ * No fim, o método MIN_MAX agrupa as faixas em uma por pixel e devolve o
+ * mínimo e o máximo de cada uma. O método LTTB aplica o
+ * Largest-Triangle-Three-Buckets sobre os mínimos e máximos das faixas
+ * (a variante MinMaxLTTB), escolhendo um ponto por pixel.
+ */
+public final class Downsampler {
+
+    /**
+     * Recebe os pontos resultantes, na ordem original
+     */
+    public interface PointConsumer {
+        void accept(double x, double y, String label);
+    }
+
+    private final DownsamplingMethod method;
+    private final int threshold;
+    private final int targetPoints;
+    private final int capacity;
+
+    private long bucketWidth = 1;
+    private int bucketCount;
+    private long count;
+
+    private long[] minIndex = new long[1024];
+    private double[] minX = new double[1024];
+    private double[] minY = new double[1024];
+    private String[] minLabel = new String[1024];
+    private long[] maxIndex = new long[1024];
+    private double[] maxX = new double[1024];
+    private double[] maxY = new double[1024];
+    private String[] maxLabel = new String[1024];
+
+    private double firstX;
+    private double firstY;
+    private String firstLabel;
+    private double lastX;
+    private double lastY;
+    private String lastLabel;
+
+    /**
+     * @param method Método de redução (NONE guarda todos os pontos)
+     * @param threshold Número de pontos a partir do qual a série é reduzida
+     * @param targetPoints Resolução desejada, normalmente a largura da imagem em pixels
+     */
+    public Downsampler(DownsamplingMethod method, int threshold, int targetPoints) {
+        this.method = method;
+        this.threshold = threshold;
+        this.targetPoints = Math.max(3, targetPoints);
+        // Capacidade par, para que as faixas sempre se unam duas a duas
+        this.capacity = method == DownsamplingMethod.NONE
+                ? Integer.MAX_VALUE
+                : Math.min(Math.max(threshold, 2 * this.targetPoints), 1 << 30) + 1 & ~1;
+    }
+
+    /**
+     * Acrescenta o próximo ponto da série
+     */
+    public void add(double x, double y, String label) {
+        if (count == 0) {
+            firstX = x;
+            firstY = y;
+            firstLabel = label;
+        }
+        lastX = x;
+        lastY = y;
+        lastLabel = label;
+
+        if (count % bucketWidth == 0) {
+            if (bucketCount == capacity) {
+                mergePairs();
+            }
+            if (bucketCount == minX.length) {
+                grow();
+            }
+            int b = bucketCount++;
+            setMin(b, count, x, y, label);
+            setMax(b, count, x, y, label);
+        } else {
+            int b = bucketCount - 1;
+            if (y < minY[b]) {
+                setMin(b, count, x, y, label);
+            }
+            if (y > maxY[b]) {
+                setMax(b, count, x, y, label);
+            }
+        }
+        count++;
+    }
+
+    /**
+     * Número de pontos recebidos
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Indica se a série será reduzida: se passou do limite e tem mais pontos
+     * do que o método devolve (um por pixel no LTTB, dois no MIN_MAX)
+     */
+    public boolean isReduced() {
+        int output = method == DownsamplingMethod.MIN_MAX ? 2 * targetPoints : targetPoints;
+        return method != DownsamplingMethod.NONE && count > Math.max(threshold, output);
+    }
+
+    /**
+     * Entrega os pontos resultantes ao consumidor, na ordem original
+     */
+    public void forEach(PointConsumer consumer) {
+        if (!isReduced()) {
+            forEachBucketExtreme(consumer);
+        } else if (method == DownsamplingMethod.MIN_MAX) {
+            forEachMinMax(consumer);
+        } else {
+            forEachLttb(consumer);
+        }
+    }
+
+    /**
+     * Mínimo e máximo de cada faixa (com faixas de um ponto, a série original)
+     */
+    private void forEachBucketExtreme(PointConsumer consumer) {
+        for (int b = 0; b < bucketCount; b++) {
+            emitExtremes(consumer, minIndex[b], minX[b], minY[b], minLabel[b],
+                    maxIndex[b], maxX[b], maxY[b], maxLabel[b]);
+        }
+    }
+
+    private void forEachMinMax(PointConsumer consumer) {
+        boolean firstEmitted = false;
+        long lastEmittedIndex = -1;
+
+        for (int g = 0; g < targetPoints; g++) {
+            int from = (int) ((long) g * bucketCount / targetPoints);
+            int to = (int) ((long) (g + 1) * bucketCount / targetPoints);
+            if (from == to) {
+                continue;
+            }
+            int lo = from;
+            int hi = from;
+            for (int b = from + 1; b < to; b++) {
+                if (minY[b] < minY[lo]) {
+                    lo = b;
+                }
+                if (maxY[b] > maxY[hi]) {
+                    hi = b;
+                }
+            }
+            if (!firstEmitted && minIndex[lo] > 0 && maxIndex[hi] > 0) {
+                consumer.accept(firstX, firstY, firstLabel);
+            }
+            firstEmitted = true;
+            lastEmittedIndex = emitExtremes(consumer, minIndex[lo], minX[lo], minY[lo], minLabel[lo],
+                    maxIndex[hi], maxX[hi], maxY[hi], maxLabel[hi]);
+        }
+        if (lastEmittedIndex < count - 1) {
+            consumer.accept(lastX, lastY, lastLabel);
+        }
+    }
+
+    private void forEachLttb(PointConsumer consumer) {
+        // Candidatos: primeiro ponto, mínimo e máximo de cada faixa e último ponto
+        int capacity = 2 * bucketCount + 2;
+        double[] xs = new double[capacity];
+        double[] ys = new double[capacity];
+        String[] labels = new String[capacity];
+        int[] n = {0};
+        PointConsumer collect = (x, y, label) -> {
+            xs[n[0]] = x;
+            ys[n[0]] = y;
+            labels[n[0]] = label;
+            n[0]++;
+        };
+
+        if (minIndex[0] > 0 && maxIndex[0] > 0) {
+            collect.accept(firstX, firstY, firstLabel);
+        }
+        long lastEmittedIndex = -1;
+        for (int b = 0; b < bucketCount; b++) {
+            lastEmittedIndex = emitExtremes(collect, minIndex[b], minX[b], minY[b], minLabel[b],
+                    maxIndex[b], maxX[b], maxY[b], maxLabel[b]);
+        }
+        if (lastEmittedIndex < count - 1) {
+            collect.accept(lastX, lastY, lastLabel);
+        }
+
+        for (int i : lttb(xs, ys, n[0], targetPoints)) {
+            consumer.accept(xs[i], ys[i], labels[i]);
+        }
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets: escolhe, em cada faixa, o ponto que forma
+     * o maior triângulo com o ponto escolhido na faixa anterior e a média da
+     * faixa seguinte
+     *
+     * @return Índices escolhidos, em ordem crescente
+     */
+    static int[] lttb(double[] xs, double[] ys, int n, int threshold) {
+        if (threshold >= n || threshold < 3) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] sampled = new int[threshold];
+        int sampledCount = 0;
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        sampled[sampledCount++] = a;
+
+        for (int i = 0; i < threshold - 2; i++) {
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += xs[j];
+                avgY += ys[j];
+            }
+            int avgLength = avgEnd - avgStart;
+            avgX /= avgLength;
+            avgY /= avgLength;
+
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((xs[a] - avgX) * (ys[j] - ys[a]) - (xs[a] - xs[j]) * (avgY - ys[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            sampled[sampledCount++] = next;
+            a = next;
+        }
+        sampled[sampledCount] = n - 1;
+        return sampled;
+    }
+
+    /**
+     * Entrega o mínimo e o máximo na ordem em que apareceram (uma vez só se forem o mesmo ponto)
+     *
+     * @return Índice do último ponto entregue
+     */
+    private static long emitExtremes(PointConsumer consumer,
+                                     long loIndex, double loX, double loY, String loLabel,
+                                     long hiIndex, double hiX, double hiY, String hiLabel) {
+        if (loIndex == hiIndex) {
+            consumer.accept(loX, loY, loLabel);
+            return loIndex;
+        }
+        if (loIndex < hiIndex) {
+            consumer.accept(loX, loY, loLabel);
+            consumer.accept(hiX, hiY, hiLabel);
+            return hiIndex;
+        }
+        consumer.accept(hiX, hiY, hiLabel);
+        consumer.accept(loX, loY, loLabel);
+        return loIndex;
+    }
+
+    /**
+     * Une as faixas vizinhas duas a duas, dobrando a largura das faixas
+     */
+    private void mergePairs() {
+        int merged = 0;
+        for (int b = 0; b + 1 < bucketCount; b += 2) {
+            int lo = minY[b + 1] < minY[b] ? b + 1 : b;
+            int hi = maxY[b + 1] > maxY[b] ? b + 1 : b;
+            setMin(merged, minIndex[lo], minX[lo], minY[lo], minLabel[lo]);
+            setMax(merged, maxIndex[hi], maxX[hi], maxY[hi], maxLabel[hi]);
+            merged++;
+        }
+        Arrays.fill(minLabel, merged, bucketCount, null);
+        Arrays.fill(maxLabel, merged, bucketCount, null);
+        bucketCount = merged;
+        bucketWidth *= 2;
+    }
+
+    private void setMin(int b, long index, double x, double y, String label) {
+        minIndex[b] = index;
+        minX[b] = x;
+        minY[b] = y;
+        minLabel[b] = label;
+    }
+
+    private void setMax(int b, long index, double x, double y, String label) {
+        maxIndex[b] = index;
+        maxX[b] = x;
+        maxY[b] = y;
+        maxLabel[b] = label;
+    }
+
+    private void grow() {
+        int length = (int) Math.min((long) minX.length * 2, capacity);
+        minIndex = Arrays.copyOf(minIndex, length);
+        minX = Arrays.copyOf(minX, length);
+        minY = Arrays.copyOf(minY, length);
+        minLabel = Arrays.copyOf(minLabel, length);
+        maxIndex = Arrays.copyOf(maxIndex, length);
+        maxX = Arrays.copyOf(maxX, length);
+        maxY = Arrays.copyOf(maxY, length);
+        maxLabel = Arrays.copyOf(maxLabel, length);
+    }
+}
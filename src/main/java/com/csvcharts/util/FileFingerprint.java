@@ -0,0 +1,68 @@
+package com.csvcharts.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Identifica uma versão de um arquivo pelo caminho, tamanho e data de modificação
+ *
+ * Usado pelos caches para detectar que um arquivo mudou sem precisar ler o
+ * seu conteúdo.
+ */
+public final class FileFingerprint {
+    private final Path path;
+    private final long size;
+    private final long modified;
+
+    private FileFingerprint(Path path, long size, long modified) {
+        this.path = path;
+        this.size = size;
+        this.modified = modified;
+    }
+
+    /**
+     * Lê os atributos atuais do arquivo
+     *
+     * @throws IOException Se o arquivo não existir ou não puder ser lido
+     */
+    public static FileFingerprint of(String filePath) throws IOException {
+        Path path = Paths.get(filePath).toAbsolutePath().normalize();
+        if (!Files.exists(path)) {
+            throw new IOException("Arquivo não encontrado: " + filePath);
+        }
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return new FileFingerprint(path, attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getModified() {
+        return modified;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FileFingerprint other)) return false;
+        return size == other.size && modified == other.modified && path.equals(other.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * path.hashCode() + Long.hashCode(size)) + Long.hashCode(modified);
+    }
+
+    @Override
+    public String toString() {
+        return path + "@" + size + ":" + modified;
+    }
+}
@@ -0,0 +1,438 @@
+package com.csvcharts.util;
+
+import com.csvcharts.model.AggregationFunction;
+
+import java.util.Arrays;
+
+/**
+ * Agrupa valores por categoria em uma única passada
+ *
+ * Cada categoria recebe um número (na ordem em que apareceu) por meio de
+ * uma tabela de endereçamento aberto indexada pelo hash do texto, como o
+ * dicionário de {@link com.csvcharts.model.ColumnBuilder}; uma categoria
+ * vinda de um {@link CSVRecord} é procurada sem criar a String. O estado
+ * de cada categoria (contagem, soma, mínimo, máximo e último valor) fica em
+ * arrays primitivos indexados por esse número, de modo que qualquer função
+ * de agregação pode ser escolhida no fim e agregadores parciais podem ser
+ * unidos.
+ *
+ * Com várias séries (várias colunas Y), cada linha traz um valor por série
+ * e o estado fica lado a lado nos mesmos arrays, na posição
+ * {@code categoria * séries + série}: a categoria é procurada uma vez por
+ * linha, qualquer que seja o número de séries.
+ */
+public final class GroupAggregator {
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Recebe as categorias resultantes e o valor agregado de cada uma
+     */
+    public interface GroupConsumer {
+        void accept(String label, double value);
+    }
+
+    /**
+     * Recebe as categorias resultantes e o valor agregado de cada série (NaN
+     * se a categoria não tem valores na série). O array é reaproveitado.
+     */
+    public interface SeriesConsumer {
+        void accept(String label, double[] values);
+    }
+
+    private final int series;
+
+    private String[] labels = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private long[] counts;
+    private double[] sums;
+    private double[] mins;
+    private double[] maxs;
+    private double[] lasts;
+    private int[] slots = new int[2 * INITIAL_CAPACITY];
+    private int size;
+    private long rows;
+
+    public GroupAggregator() {
+        this(1);
+    }
+
+    /**
+     * @param series Número de valores por linha (colunas Y)
+     */
+    public GroupAggregator(int series) {
+        if (series < 1) {
+            throw new IllegalArgumentException("Número de séries inválido: " + series);
+        }
+        this.series = series;
+        counts = new long[INITIAL_CAPACITY * series];
+        sums = new double[INITIAL_CAPACITY * series];
+        mins = new double[INITIAL_CAPACITY * series];
+        maxs = new double[INITIAL_CAPACITY * series];
+        lasts = new double[INITIAL_CAPACITY * series];
+    }
+
+    public int getSeries() {
+        return series;
+    }
+
+    /**
+     * Acrescenta um valor à categoria (na primeira série)
+     */
+    public void add(String label, double value) {
+        update(group(label) * series, value);
+        rows++;
+    }
+
+    /**
+     * Acrescenta um valor à categoria do campo do registro (na primeira série).
+     * A String só é criada na primeira vez que a categoria aparece.
+     */
+    public void add(CSVRecord record, int field, double value) {
+        update(group(record, field) * series, value);
+        rows++;
+    }
+
+    /**
+     * Acrescenta uma linha com um valor por série; séries com NaN não recebem valor
+     */
+    public void add(String label, double[] values) {
+        update(group(label), values);
+    }
+
+    /**
+     * Acrescenta uma linha com um valor por série à categoria do campo do registro
+     */
+    public void add(CSVRecord record, int field, double[] values) {
+        update(group(record, field), values);
+    }
+
+    /**
+     * Acrescenta à série da categoria o estado já agregado de várias linhas.
+     * As linhas são contadas à parte, em {@link #addRows(long)}.
+     */
+    public void add(String label, int seriesIndex, long count, double sum, double min, double max, double last) {
+        int hash = label.hashCode();
+        int slot = findSlot(hash, label, null, 0);
+        boolean existing = slots[slot] != 0;
+        int k = (existing ? slots[slot] - 1 : addGroup(slot, hash, label)) * series + seriesIndex;
+        if (existing && counts[k] > 0) {
+            sums[k] += sum;
+            mins[k] = Math.min(mins[k], min);
+            maxs[k] = Math.max(maxs[k], max);
+        } else {
+            sums[k] = sum;
+            mins[k] = min;
+            maxs[k] = max;
+        }
+        counts[k] += count;
+        lasts[k] = last;
+    }
+
+    /**
+     * Soma linhas agregadas fora de {@code add} (por exemplo, em totais por código)
+     */
+    public void addRows(long rows) {
+        this.rows += rows;
+    }
+
+    /**
+     * Une um agregador parcial, com as mesmas séries, de linhas posteriores às deste
+     */
+    public void merge(GroupAggregator other) {
+        for (int g = 0; g < other.size; g++) {
+            for (int s = 0; s < series; s++) {
+                int k = g * series + s;
+                if (other.counts[k] > 0) {
+                    add(other.labels[g], s, other.counts[k], other.sums[k], other.mins[k], other.maxs[k],
+                            other.lasts[k]);
+                }
+            }
+        }
+        rows += other.rows;
+    }
+
+    /**
+     * Número de categorias distintas
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Número de linhas agregadas
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Entrega as categorias com o valor agregado, na ordem em que apareceram.
+     * Com limite, entrega só as de maior valor, em ordem decrescente, e
+     * junta as demais em uma única categoria.
+     *
+     * @param function Função de agregação
+     * @param limit Número máximo de categorias (0 = todas)
+     * @param otherLabel Nome da categoria que junta as demais
+     */
+    public void forEach(AggregationFunction function, int limit, String otherLabel, GroupConsumer consumer) {
+        forEachSeries(function, limit, otherLabel, (label, values) -> consumer.accept(label, values[0]));
+    }
+
+    /**
+     * Entrega as categorias com o valor agregado de cada série. Com limite,
+     * as categorias são escolhidas pelo valor da primeira série.
+     *
+     * @param function Função de agregação
+     * @param limit Número máximo de categorias (0 = todas)
+     * @param otherLabel Nome da categoria que junta as demais
+     */
+    public void forEachSeries(AggregationFunction function, int limit, String otherLabel, SeriesConsumer consumer) {
+        double[] values = new double[series];
+        if (limit <= 0 || size <= limit) {
+            for (int g = 0; g < size; g++) {
+                consumer.accept(labels[g], values(function, g, values));
+            }
+            return;
+        }
+
+        double[] ranks = new double[size];
+        for (int g = 0; g < size; g++) {
+            double value = value(function, g * series);
+            ranks[g] = Double.isNaN(value) ? Double.NEGATIVE_INFINITY : value;
+        }
+        int[] top = top(ranks, limit);
+        boolean[] kept = new boolean[size];
+        for (int g : top) {
+            kept[g] = true;
+            consumer.accept(labels[g], values(function, g, values));
+        }
+
+        for (int s = 0; s < series; s++) {
+            long otherCount = 0;
+            double otherSum = 0;
+            double otherMin = Double.POSITIVE_INFINITY;
+            double otherMax = Double.NEGATIVE_INFINITY;
+            double otherLasts = 0;
+            for (int g = 0; g < size; g++) {
+                int k = g * series + s;
+                if (!kept[g] && counts[k] > 0) {
+                    otherCount += counts[k];
+                    otherSum += sums[k];
+                    otherMin = Math.min(otherMin, mins[k]);
+                    otherMax = Math.max(otherMax, maxs[k]);
+                    otherLasts += lasts[k];
+                }
+            }
+            // Para LAST, a categoria que junta as demais soma o último valor de cada uma
+            values[s] = otherCount > 0
+                    ? value(function, otherCount, otherSum, otherMin, otherMax, otherLasts)
+                    : Double.NaN;
+        }
+        consumer.accept(otherLabel, values);
+    }
+
+    private double[] values(AggregationFunction function, int group, double[] target) {
+        for (int s = 0; s < series; s++) {
+            target[s] = value(function, group * series + s);
+        }
+        return target;
+    }
+
+    private double value(AggregationFunction function, int k) {
+        return counts[k] > 0 ? value(function, counts[k], sums[k], mins[k], maxs[k], lasts[k]) : Double.NaN;
+    }
+
+    /**
+     * Valor agregado a partir do estado de uma categoria (contagem maior que zero)
+     */
+    static double value(AggregationFunction function, long count, double sum, double min, double max,
+                        double last) {
+        switch (function) {
+            case SUM:
+                return sum;
+            case COUNT:
+                return count;
+            case AVG:
+                return sum / count;
+            case MIN:
+                return min;
+            case MAX:
+                return max;
+            default:
+                return last;
+        }
+    }
+
+    /**
+     * Índices dos maiores valores, em ordem decrescente (empates pela ordem de chegada)
+     */
+    private static int[] top(double[] values, int limit) {
+        // Heap de mínimo com os melhores até o momento; a raiz é o pior deles
+        int[] heap = new int[limit];
+        int heapSize = 0;
+        for (int g = 0; g < values.length; g++) {
+            if (heapSize < limit) {
+                heap[heapSize] = g;
+                siftUp(heap, heapSize++, values);
+            } else if (isBetter(g, heap[0], values)) {
+                heap[0] = g;
+                siftDown(heap, heapSize, values);
+            }
+        }
+
+        int[] result = new int[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            result[i] = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, values);
+        }
+        return result;
+    }
+
+    private static boolean isBetter(int a, int b, double[] values) {
+        int cmp = Double.compare(values[a], values[b]);
+        return cmp > 0 || (cmp == 0 && a < b);
+    }
+
+    private static void siftUp(int[] heap, int i, double[] values) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!isBetter(heap[parent], heap[i], values)) {
+                break;
+            }
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int heapSize, double[] values) {
+        int i = 0;
+        while (true) {
+            int worst = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < heapSize && isBetter(heap[worst], heap[left], values)) {
+                worst = left;
+            }
+            if (right < heapSize && isBetter(heap[worst], heap[right], values)) {
+                worst = right;
+            }
+            if (worst == i) {
+                return;
+            }
+            swap(heap, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int t = heap[i];
+        heap[i] = heap[j];
+        heap[j] = t;
+    }
+
+    private int group(String label) {
+        int hash = label.hashCode();
+        int slot = findSlot(hash, label, null, 0);
+        return slots[slot] != 0 ? slots[slot] - 1 : addGroup(slot, hash, label);
+    }
+
+    private int group(CSVRecord record, int field) {
+        int hash = record.hashString(field);
+        int slot = findSlot(hash, null, record, field);
+        return slots[slot] != 0 ? slots[slot] - 1 : addGroup(slot, hash, record.getString(field));
+    }
+
+    private void update(int group, double[] values) {
+        int base = group * series;
+        for (int s = 0; s < series; s++) {
+            if (!Double.isNaN(values[s])) {
+                update(base + s, values[s]);
+            }
+        }
+        rows++;
+    }
+
+    /**
+     * Acrescenta um valor na posição {@code categoria * séries + série}
+     */
+    private void update(int k, double value) {
+        if (counts[k] == 0) {
+            mins[k] = value;
+            maxs[k] = value;
+        } else {
+            if (value < mins[k]) {
+                mins[k] = value;
+            }
+            if (value > maxs[k]) {
+                maxs[k] = value;
+            }
+        }
+        counts[k]++;
+        sums[k] += value;
+        lasts[k] = value;
+    }
+
+    /**
+     * Procura a categoria na tabela (pela String ou pelo campo do registro)
+     *
+     * @return Posição com o número da categoria, ou a posição vazia onde ela entraria
+     */
+    private int findSlot(int hash, String label, CSVRecord record, int field) {
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int group = slots[slot] - 1;
+            if (hashes[group] == hash
+                    && (label != null ? labels[group].equals(label) : record.contentEquals(field, labels[group]))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int addGroup(int slot, int hash, String label) {
+        if (size == labels.length) {
+            grow();
+        }
+        int group = size++;
+        labels[group] = label;
+        hashes[group] = hash;
+        slots[slot] = group + 1;
+
+        // Mantém a tabela no máximo meio cheia
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return group;
+    }
+
+    private void grow() {
+        int capacity = labels.length * 2;
+        labels = Arrays.copyOf(labels, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        counts = Arrays.copyOf(counts, capacity * series);
+        sums = Arrays.copyOf(sums, capacity * series);
+        mins = Arrays.copyOf(mins, capacity * series);
+        maxs = Arrays.copyOf(maxs, capacity * series);
+        lasts = Arrays.copyOf(lasts, capacity * series);
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int group = 0; group < size; group++) {
+            int slot = mix(hashes[group]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = group + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
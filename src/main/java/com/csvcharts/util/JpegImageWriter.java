@@ -0,0 +1,57 @@
+package com.csvcharts.util;
+
+import com.csvcharts.model.ImageFormat;
+import org.jfree.chart.JFreeChart;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * JPEG gravado pelo ImageIO, reaproveitando por thread a imagem e o codificador
+ */
+public class JpegImageWriter implements ChartImageWriter {
+    private static final float QUALITY = 0.9f;
+
+    private final ThreadLocal<ImageWriter> writers = ThreadLocal.withInitial(
+            () -> ImageIO.getImageWritersByFormatName("jpeg").next());
+
+    @Override
+    public ImageFormat getFormat() {
+        return ImageFormat.JPEG;
+    }
+
+    @Override
+    public String getSettings() {
+        return "JPEG-" + QUALITY;
+    }
+
+    @Override
+    public void write(JFreeChart chart, int width, int height, OutputStream out, ChartMetrics metrics)
+            throws IOException {
+        // JPEG não tem transparência: o gráfico é desenhado direto em RGB
+        long start = metrics.start();
+        BufferedImage image = RasterBuffers.draw(chart, width, height, BufferedImage.TYPE_INT_RGB);
+        metrics.record(ChartMetrics.Stage.RENDER, start);
+
+        start = metrics.start();
+
+        ImageWriter writer = writers.get();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(QUALITY);
+        try (ImageOutputStream output = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.reset();
+        }
+        metrics.record(ChartMetrics.Stage.ENCODE, start);
+    }
+}
@@ -0,0 +1,48 @@
+package com.csvcharts.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita a frequência de uma mensagem de log que pode se repetir a cada
+ * arquivo ou requisição (modo servidor, diretório, --seguir)
+ *
+ * A primeira ocorrência é sempre registrada; as seguintes, no máximo uma
+ * por intervalo. As ocorrências suprimidas são contadas e informadas junto
+ * com a próxima mensagem registrada. Pode ser usado por várias threads.
+ */
+final class LogThrottle {
+    private final long intervalNanos;
+    private boolean logged;
+    private long next;
+    private long suppressed;
+
+    LogThrottle(long interval, TimeUnit unit) {
+        this.intervalNanos = unit.toNanos(interval);
+    }
+
+    /**
+     * Indica se a mensagem pode ser registrada agora
+     *
+     * @return -1 se a mensagem deve ser suprimida; senão, quantas foram
+     *         suprimidas desde a última registrada
+     */
+    synchronized long acquire() {
+        long now = System.nanoTime();
+        if (logged && now - next < 0) {
+            suppressed++;
+            return -1;
+        }
+        logged = true;
+        next = now + intervalNanos;
+        long count = suppressed;
+        suppressed = 0;
+        return count;
+    }
+
+    /**
+     * Complemento da mensagem com as ocorrências suprimidas, ou vazio se não houve
+     */
+    static String suppressedNote(long suppressed) {
+        return suppressed > 0 ? " (" + suppressed + " mensagens semelhantes suprimidas)" : "";
+    }
+}
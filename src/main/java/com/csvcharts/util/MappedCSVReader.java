@@ -0,0 +1,206 @@
+package com.csvcharts.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Leitura sequencial de CSV sobre o arquivo mapeado em memória
+ *
+ * O arquivo é mapeado em janelas e cada registro é entregue ao handler como
+ * {@link CSVRecord} apontando para os bytes da janela, sem decodificar o
+ * arquivo para char[] nem criar uma String por célula. Quando um registro
+ * atravessa o fim da janela, a próxima janela começa no início dele.
+ *
+ * Fluxos que não podem ser mapeados (arquivos compactados) são lidos com o
+ * mesmo tokenizador, em blocos de um array reaproveitado.
+ */
+class MappedCSVReader {
+    static final int DEFAULT_WINDOW_SIZE = 256 << 20;
+    static final int STREAM_BLOCK_SIZE = 1 << 20;
+
+    private final int windowSize;
+
+    MappedCSVReader() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedCSVReader(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Lê o arquivo, entregando o cabeçalho e cada registro ao handler
+     *
+     * @return Número de linhas de dados lidas
+     */
+    long stream(Path path, CSVRowHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            CSVByteTokenizer tokenizer = new CSVByteTokenizer();
+            boolean headerRead = false;
+            long rowCount = 0;
+            long base = 0;
+
+            while (base < fileSize) {
+                int length = (int) Math.min(windowSize, fileSize - base);
+                boolean lastWindow = base + length == fileSize;
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, length);
+
+                int position = 0;
+                while (position < length) {
+                    int next = tokenizer.nextRecord(buffer, position, length);
+                    if (!tokenizer.isComplete() && !lastWindow) {
+                        // Registro cortado pelo fim da janela: relido na próxima
+                        break;
+                    }
+                    ParallelCSVReader.checkQuotes(tokenizer);
+
+                    if (headerRead) {
+                        handler.onRecord(tokenizer);
+                        rowCount++;
+                    } else {
+                        handler.onHeader(headers(tokenizer));
+                        headerRead = true;
+                    }
+                    position = next;
+                }
+
+                if (position == 0 && !lastWindow) {
+                    throw new IOException("Registro maior que a janela de leitura (" + windowSize
+                            + " bytes) na posição " + base);
+                }
+                base += position;
+            }
+
+            if (!headerRead) {
+                throw new IOException("Arquivo CSV está vazio");
+            }
+            handler.onEnd();
+            return rowCount;
+        }
+    }
+
+    /**
+     * Lê um CSV de um fluxo em blocos: os registros completos de cada bloco
+     * são entregues e o registro cortado no fim é movido para o início do
+     * bloco antes da leitura seguinte. Um registro maior que o bloco faz o
+     * bloco crescer.
+     *
+     * @return Número de linhas de dados lidas
+     */
+    long stream(InputStream input, CSVRowHandler handler) throws IOException {
+        CSVByteTokenizer tokenizer = new CSVByteTokenizer();
+        byte[] block = new byte[STREAM_BLOCK_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        int length = 0;
+        boolean end = false;
+        boolean headerRead = false;
+        long rowCount = 0;
+
+        while (!end) {
+            if (length == block.length) {
+                block = Arrays.copyOf(block, block.length * 2);
+                buffer = ByteBuffer.wrap(block);
+            }
+            while (length < block.length) {
+                int n = input.read(block, length, block.length - length);
+                if (n < 0) {
+                    end = true;
+                    break;
+                }
+                length += n;
+            }
+
+            int position = 0;
+            while (position < length) {
+                int next = tokenizer.nextRecord(buffer, position, length);
+                if (!tokenizer.isComplete() && !end) {
+                    // Registro cortado pelo fim do bloco: completado na próxima leitura
+                    break;
+                }
+                ParallelCSVReader.checkQuotes(tokenizer);
+
+                if (headerRead) {
+                    handler.onRecord(tokenizer);
+                    rowCount++;
+                } else {
+                    handler.onHeader(headers(tokenizer));
+                    headerRead = true;
+                }
+                position = next;
+            }
+            System.arraycopy(block, position, block, 0, length - position);
+            length -= position;
+        }
+
+        if (!headerRead) {
+            throw new IOException("Arquivo CSV está vazio");
+        }
+        handler.onEnd();
+        return rowCount;
+    }
+
+    /**
+     * Lê apenas o cabeçalho de um fluxo
+     */
+    List<String> readHeaders(InputStream input) throws IOException {
+        CSVByteTokenizer tokenizer = new CSVByteTokenizer();
+        byte[] block = new byte[64 << 10];
+        int length = 0;
+        while (true) {
+            int n = input.read(block, length, block.length - length);
+            if (n >= 0) {
+                length += n;
+            }
+            if (length == 0 && n < 0) {
+                throw new IOException("Arquivo CSV está vazio");
+            }
+            tokenizer.nextRecord(ByteBuffer.wrap(block), 0, length);
+            if (tokenizer.isComplete() || n < 0) {
+                ParallelCSVReader.checkQuotes(tokenizer);
+                return headers(tokenizer);
+            }
+            if (length == block.length) {
+                block = Arrays.copyOf(block, block.length * 2);
+            }
+        }
+    }
+
+    /**
+     * Lê apenas o cabeçalho do arquivo
+     */
+    List<String> readHeaders(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize == 0) {
+                throw new IOException("Arquivo CSV está vazio");
+            }
+
+            int length = (int) Math.min(windowSize, fileSize);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            CSVByteTokenizer tokenizer = new CSVByteTokenizer();
+            tokenizer.nextRecord(buffer, 0, length);
+            if (!tokenizer.isComplete() && length < fileSize) {
+                throw new IOException("Cabeçalho maior que a janela de leitura (" + windowSize + " bytes)");
+            }
+            ParallelCSVReader.checkQuotes(tokenizer);
+            return headers(tokenizer);
+        }
+    }
+
+    static List<String> headers(CSVByteTokenizer tokenizer) {
+        List<String> headers = new ArrayList<>(tokenizer.size());
+        for (int j = 0; j < tokenizer.size(); j++) {
+            headers.add(tokenizer.getString(j));
+        }
+        return headers;
+    }
+}
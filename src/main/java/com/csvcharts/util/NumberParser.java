@@ -0,0 +1,178 @@
+package com.csvcharts.util;
+
+/**
+ * Conversor de texto para double sem alocação e sem exceções
+ *
+ * Lê os caracteres diretamente, acumulando a mantissa em um long. Quando a
+ * mantissa cabe em 53 bits e o expoente decimal é pequeno, o resultado é
+ * calculado com uma única multiplicação ou divisão exata (sempre
+ * arredondada corretamente); os demais casos, raros, usam
+ * {@link Double#parseDouble(String)} sobre um texto já validado.
+ *
+ * Uma instância guarda o resultado da última conversão e não é thread-safe.
+ */
+public final class NumberParser {
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_CANONICAL_DIGITS = 15;
+
+    private double value;
+    private boolean canonical;
+
+    /**
+     * Converte o texto inteiro
+     *
+     * @return true se o texto é um número válido
+     */
+    public boolean parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Converte o trecho [start, end) do texto
+     *
+     * @return true se o trecho é um número válido
+     */
+    public boolean parse(CharSequence text, int start, int end) {
+        value = Double.NaN;
+        canonical = false;
+
+        int i = start;
+        if (i >= end) {
+            return false;
+        }
+
+        boolean negative = false;
+        boolean plusSign = false;
+        char c = text.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            plusSign = c == '+';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int droppedDigits = 0;
+        int integerDigits = 0;
+        int fractionDigits = 0;
+        boolean leadingZero = false;
+        boolean trailingFractionZero = false;
+        boolean hasPoint = false;
+
+        int integerStart = i;
+        while (i < end && (c = text.charAt(i)) >= '0' && c <= '9') {
+            if (i == integerStart && c == '0') {
+                leadingZero = true;
+            }
+            if (mantissa != 0 || c != '0') {
+                if (significantDigits < 19) {
+                    mantissa = mantissa * 10 + (c - '0');
+                } else {
+                    droppedDigits++;
+                }
+                significantDigits++;
+            }
+            integerDigits++;
+            i++;
+        }
+
+        if (i < end && text.charAt(i) == '.') {
+            hasPoint = true;
+            i++;
+            while (i < end && (c = text.charAt(i)) >= '0' && c <= '9') {
+                if (mantissa != 0 || c != '0') {
+                    if (significantDigits < 19) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        fractionDigits++;
+                    }
+                    significantDigits++;
+                } else {
+                    fractionDigits++;
+                }
+                trailingFractionZero = c == '0';
+                i++;
+            }
+        }
+
+        int scanned = i - integerStart - (hasPoint ? 1 : 0);
+        if (scanned == 0) {
+            return false;
+        }
+
+        int exponent = 0;
+        boolean hasExponent = false;
+        if (i < end && ((c = text.charAt(i)) == 'e' || c == 'E')) {
+            hasExponent = true;
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && ((c = text.charAt(i)) == '-' || c == '+')) {
+                negativeExponent = c == '-';
+                i++;
+            }
+            int exponentStart = i;
+            while (i < end && (c = text.charAt(i)) >= '0' && c <= '9') {
+                if (exponent < 100_000) {
+                    exponent = exponent * 10 + (c - '0');
+                }
+                i++;
+            }
+            if (i == exponentStart) {
+                return false;
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+
+        if (i != end) {
+            return false;
+        }
+
+        int decimalExponent = exponent + droppedDigits - fractionDigits;
+        if (mantissa == 0) {
+            value = negative ? -0.0 : 0.0;
+        } else if (mantissa < MAX_EXACT_MANTISSA && Math.abs(decimalExponent) < POWERS_OF_TEN.length) {
+            double result = decimalExponent >= 0
+                    ? mantissa * POWERS_OF_TEN[decimalExponent]
+                    : mantissa / POWERS_OF_TEN[-decimalExponent];
+            value = negative ? -result : result;
+        } else {
+            value = Double.parseDouble(text.subSequence(start, end).toString());
+        }
+
+        canonical = !plusSign && !hasExponent
+                && significantDigits <= MAX_CANONICAL_DIGITS
+                && (!leadingZero || integerDigits == 1)
+                && (hasPoint ? isCanonicalDecimal(fractionDigits, trailingFractionZero, integerDigits)
+                             : !(negative && mantissa == 0));
+        return true;
+    }
+
+    /**
+     * Indica se o número tem casas decimais escritas como em Double.toString
+     */
+    private boolean isCanonicalDecimal(int fractionDigits, boolean trailingFractionZero, int integerDigits) {
+        double magnitude = Math.abs(value);
+        return integerDigits > 0 && fractionDigits > 0 && !trailingFractionZero
+                && magnitude >= 1e-3 && magnitude < 1e7;
+    }
+
+    /**
+     * Valor da última conversão (NaN se ela falhou)
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Indica se o texto da última conversão é idêntico à formatação canônica
+     * do valor (ver NumericColumn.format), dispensando guardar o original
+     */
+    public boolean isCanonical() {
+        return canonical;
+    }
+}
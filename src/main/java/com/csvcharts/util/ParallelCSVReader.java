@@ -0,0 +1,343 @@
+package com.csvcharts.util;
+
+import com.csvcharts.model.CSVData;
+import com.csvcharts.model.Column;
+import com.csvcharts.model.ColumnBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Leitura de CSV em paralelo, dividindo o arquivo em faixas de bytes
+ *
+ * As faixas são alinhadas ao início de registros em três etapas, todas em
+ * paralelo: (1) conta as aspas de cada faixa nominal, o que dá o estado
+ * "dentro de aspas" no início de cada faixa; (2) avança de cada limite
+ * nominal até a primeira quebra de linha fora de aspas; (3) converte cada
+ * faixa alinhada em colunas parciais. As colunas parciais são então
+ * concatenadas na ordem original das linhas. Com uma projeção, só as colunas
+ * informadas são convertidas.
+ *
+ * A contagem de aspas supõe que toda aspa abre ou fecha um campo entre
+ * aspas. Uma aspa literal no meio de um campo sem aspas (ex.: 5" tela)
+ * inverte o estado dali em diante, e um limite pode cair no meio de um
+ * registro. Por isso cada faixa é conferida: o primeiro registro precisa
+ * ter o número de campos do cabeçalho, e nenhuma faixa pode terminar dentro
+ * de aspas. Uma aspa literal sem outras depois dela faz o alinhamento
+ * correr até o fim do arquivo; por isso uma faixa alinhada também não pode
+ * passar de {@link #MAX_RANGE_FACTOR} vezes o tamanho nominal. Se alguma
+ * conferência falhar, a leitura é descartada e o arquivo deve ser lido em
+ * sequência.
+ *
+ * As tarefas rodam em um ForkJoinPool por nível de paralelismo, criado na
+ * primeira leitura e reaproveitado pelas seguintes; as threads ociosas são
+ * encerradas pelo próprio pool.
+ */
+class ParallelCSVReader {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelCSVReader.class);
+
+    private static final int SCAN_BLOCK_SIZE = 1 << 20;
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    private static final long MAX_CHUNK_SIZE = 64L << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MAX_RANGE_FACTOR = 2;
+    private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private final int parallelism;
+
+    ParallelCSVReader(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    CSVData read(Path path) throws IOException {
+        return read(path, null);
+    }
+
+    /**
+     * @param projection Colunas a guardar, ou null para todas
+     * @return Os dados, ou null se alguma faixa não começou no início de um
+     *         registro (o arquivo deve então ser lido em sequência)
+     */
+    CSVData read(Path path, Collection<String> projection) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+
+            // Cabeçalho
+            CSVByteTokenizer tokenizer = new CSVByteTokenizer();
+            ByteBuffer headerBuffer = readHeaderBlock(channel);
+            if (headerBuffer.limit() == 0) {
+                throw new IOException("Arquivo CSV está vazio");
+            }
+            int dataStart = tokenizer.nextRecord(headerBuffer, 0, headerBuffer.limit());
+            checkQuotes(tokenizer);
+            List<String> headers = trimmedHeaders(tokenizer);
+
+            long[] nominal = nominalBoundaries(dataStart, fileSize);
+            int chunkCount = nominal.length - 1;
+            long maxRangeSize = MAX_RANGE_FACTOR * (nominal[1] - nominal[0]);
+
+            ForkJoinPool pool = POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+
+            // Etapa 1: paridade das aspas em cada faixa nominal
+            List<Callable<Boolean>> parityTasks = new ArrayList<>();
+            for (int k = 0; k < chunkCount; k++) {
+                long from = nominal[k];
+                long to = nominal[k + 1];
+                parityTasks.add(() -> hasOddQuotes(channel, from, to));
+            }
+            List<Boolean> oddQuotes = collect(pool.invokeAll(parityTasks));
+
+            // Etapa 2: alinhamento dos limites ao início de registros
+            List<Callable<Long>> alignTasks = new ArrayList<>();
+            boolean insideQuotes = false;
+            for (int k = 1; k < chunkCount; k++) {
+                insideQuotes ^= oddQuotes.get(k - 1);
+                long boundary = nominal[k];
+                boolean quotedAtBoundary = insideQuotes;
+                long scanLimit = Math.min(fileSize, boundary + maxRangeSize);
+                alignTasks.add(() -> alignToRecord(channel, boundary, quotedAtBoundary, scanLimit, fileSize));
+            }
+            List<Long> aligned = collect(pool.invokeAll(alignTasks));
+
+            long[] ranges = new long[chunkCount + 1];
+            ranges[0] = dataStart;
+            for (int k = 1; k < chunkCount; k++) {
+                ranges[k] = aligned.get(k - 1);
+            }
+            ranges[chunkCount] = fileSize;
+            for (int k = 0; k < chunkCount; k++) {
+                if (ranges[k + 1] < 0 || ranges[k + 1] - ranges[k] > maxRangeSize) {
+                    logger.info("Faixas desalinhadas por aspas dentro de campos sem aspas; lendo em sequência");
+                    return null;
+                }
+            }
+
+            // Etapa 3: conversão de cada faixa em colunas parciais
+            List<Callable<CSVData>> parseTasks = new ArrayList<>();
+            for (int k = 0; k < chunkCount; k++) {
+                long from = ranges[k];
+                long to = ranges[k + 1];
+                boolean checkFirst = k > 0;
+                boolean last = k == chunkCount - 1;
+                parseTasks.add(() -> parseRange(channel, headers, projection, from, to, checkFirst, last));
+            }
+            List<CSVData> parts = collect(pool.invokeAll(parseTasks));
+            if (parts.contains(null)) {
+                logger.info("Faixas desalinhadas por aspas dentro de campos sem aspas; lendo em sequência");
+                return null;
+            }
+
+            logger.debug("Arquivo lido em {} faixas com paralelismo {}", chunkCount, parallelism);
+            return merge(parts);
+        }
+    }
+
+    /**
+     * Divide a área de dados em faixas de tamanho aproximadamente igual
+     */
+    private long[] nominalBoundaries(long dataStart, long fileSize) {
+        long dataSize = Math.max(0, fileSize - dataStart);
+        long chunkSize = dataSize / ((long) parallelism * CHUNKS_PER_THREAD);
+        chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, chunkSize));
+        int chunkCount = (int) Math.max(1, (dataSize + chunkSize - 1) / chunkSize);
+
+        long[] boundaries = new long[chunkCount + 1];
+        for (int k = 0; k < chunkCount; k++) {
+            boundaries[k] = dataStart + k * chunkSize;
+        }
+        boundaries[chunkCount] = fileSize;
+        return boundaries;
+    }
+
+    private ByteBuffer readHeaderBlock(FileChannel channel) throws IOException {
+        int blockSize = 64 * 1024;
+        while (true) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(blockSize, channel.size()));
+            readFully(channel, buffer, 0);
+            buffer.flip();
+
+            // O cabeçalho está completo se terminar antes do fim do bloco lido
+            if (buffer.limit() == channel.size() || containsRecordEnd(buffer)) {
+                return buffer;
+            }
+            blockSize *= 2;
+        }
+    }
+
+    private boolean containsRecordEnd(ByteBuffer buffer) {
+        boolean insideQuotes = false;
+        for (int i = 0; i < buffer.limit(); i++) {
+            byte b = buffer.get(i);
+            if (b == CSVByteTokenizer.QUOTE) {
+                insideQuotes = !insideQuotes;
+            } else if (b == CSVByteTokenizer.LINE_FEED && !insideQuotes) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<String> trimmedHeaders(CSVByteTokenizer tokenizer) {
+        List<String> headers = new ArrayList<>();
+        for (int j = 0; j < tokenizer.getFieldCount(); j++) {
+            headers.add(tokenizer.getString(j));
+        }
+        return headers;
+    }
+
+    static void checkQuotes(CSVByteTokenizer tokenizer) throws IOException {
+        if (tokenizer.hasUnterminatedQuote()) {
+            throw new IOException("Campo entre aspas não terminado no fim do arquivo");
+        }
+    }
+
+    private boolean hasOddQuotes(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(SCAN_BLOCK_SIZE);
+        boolean odd = false;
+        long position = from;
+        while (position < to) {
+            buffer.clear();
+            buffer.limit((int) Math.min(SCAN_BLOCK_SIZE, to - position));
+            readFully(channel, buffer, position);
+            if (buffer.position() == 0) {
+                break;
+            }
+            for (int i = 0; i < buffer.position(); i++) {
+                if (buffer.get(i) == CSVByteTokenizer.QUOTE) {
+                    odd = !odd;
+                }
+            }
+            position += buffer.position();
+        }
+        return odd;
+    }
+
+    /**
+     * Encontra o primeiro início de registro em uma posição >= boundary
+     *
+     * @param scanLimit Posição até onde procurar
+     * @return A posição, fileSize se o arquivo acabar antes, ou -1 se nenhum
+     *         início de registro aparecer antes de scanLimit
+     */
+    private long alignToRecord(FileChannel channel, long boundary, boolean insideQuotes, long scanLimit,
+                               long fileSize) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long position = boundary - 1;
+        while (position < scanLimit) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), scanLimit - position));
+            readFully(channel, buffer, position);
+            if (buffer.position() == 0) {
+                break;
+            }
+            for (int i = 0; i < buffer.position(); i++) {
+                byte b = buffer.get(i);
+                if (i == 0 && position == boundary - 1) {
+                    // O byte anterior ao limite já foi contado na paridade da faixa anterior
+                    if (b == CSVByteTokenizer.LINE_FEED && !insideQuotes) {
+                        return boundary;
+                    }
+                    continue;
+                }
+                if (b == CSVByteTokenizer.QUOTE) {
+                    insideQuotes = !insideQuotes;
+                } else if (b == CSVByteTokenizer.LINE_FEED && !insideQuotes) {
+                    return position + i + 1;
+                }
+            }
+            position += buffer.position();
+        }
+        return scanLimit == fileSize ? fileSize : -1;
+    }
+
+    /**
+     * Converte uma faixa alinhada em colunas parciais
+     *
+     * @param checkFirst Se o primeiro registro deve ter o número de campos do cabeçalho
+     * @param last Se a faixa vai até o fim do arquivo (só ela pode terminar dentro de aspas)
+     * @return As colunas, ou null se a faixa não está alinhada a registros
+     */
+    private CSVData parseRange(FileChannel channel, List<String> headers, Collection<String> projection,
+                               long from, long to, boolean checkFirst, boolean last) throws IOException {
+        CSVDataBuilder builder = new CSVDataBuilder(projection);
+        builder.onHeader(headers);
+
+        int length = (int) (to - from);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(channel, buffer, from);
+
+        CSVByteTokenizer tokenizer = new CSVByteTokenizer();
+        int position = 0;
+        while (position < length) {
+            position = tokenizer.nextRecord(buffer, position, length);
+            if (checkFirst && tokenizer.getFieldCount() != headers.size()
+                    || !last && tokenizer.hasUnterminatedQuote()) {
+                return null;
+            }
+            checkFirst = false;
+            checkQuotes(tokenizer);
+            builder.onRecord(tokenizer);
+        }
+        return builder.build();
+    }
+
+    private CSVData merge(List<CSVData> parts) {
+        // Todas as faixas têm as mesmas colunas, já projetadas
+        List<String> headers = parts.get(0).getHeaders();
+        List<Column> columns = new ArrayList<>(headers.size());
+        int rowCount = 0;
+        for (CSVData part : parts) {
+            rowCount += part.getRowCount();
+        }
+
+        for (int j = 0; j < headers.size(); j++) {
+            ColumnBuilder builder = new ColumnBuilder(headers.get(j));
+            for (CSVData part : parts) {
+                builder.appendColumn(part.getColumns().get(j));
+            }
+            columns.add(builder.build());
+        }
+        return new CSVData(headers, columns, rowCount);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+    }
+
+    private static <T> List<T> collect(List<Future<T>> futures) throws IOException {
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Leitura paralela interrompida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Falha na leitura paralela: " + e.getCause().getMessage(), e.getCause());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,406 @@
+package com.csvcharts.util;
+
+import com.csvcharts.model.ImageFormat;
+import org.jfree.chart.JFreeChart;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Codificador PNG próprio, com nível de compressão configurável
+ *
+ * Cada thread reaproveita a imagem em que o gráfico é desenhado, os buffers
+ * e o {@link Deflater} entre um gráfico e outro. Imagens sem transparência
+ * são gravadas em RGB (3 bytes por pixel), e cada linha usa o filtro PNG que
+ * minimiza a soma dos resíduos, como o codificador do ImageIO. No nível 0
+ * os dados são gravados sem compressão.
+ *
+ * Imagens grandes são comprimidas em paralelo, no esquema do pigz: os dados
+ * filtrados são divididos em blocos comprimidos de forma independente, cada
+ * um usando os últimos 32 KB do bloco anterior como dicionário e terminando
+ * em um flush de sincronização, o que permite concatená-los em um único
+ * fluxo zlib.
+ */
+public class PngImageWriter implements ChartImageWriter {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int PARALLEL_MIN_BYTES = 4 << 20;
+    private static final int PARALLEL_BLOCK_BYTES = 1 << 20;
+    private static final int DICTIONARY_BYTES = 32 * 1024;
+
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+    private static final int FILTER_AVERAGE = 3;
+    private static final int FILTER_PAETH = 4;
+
+    private final int compressionLevel;
+    private final ThreadLocal<Buffers> buffers;
+
+    /**
+     * @param compressionLevel Nível de compressão do zlib, de 0 (sem compressão) a 9
+     */
+    public PngImageWriter(int compressionLevel) {
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException("Nível de compressão inválido: " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+        this.buffers = ThreadLocal.withInitial(Buffers::new);
+    }
+
+    @Override
+    public ImageFormat getFormat() {
+        return ImageFormat.PNG;
+    }
+
+    @Override
+    public String getSettings() {
+        return "PNG-" + compressionLevel;
+    }
+
+    @Override
+    public void write(JFreeChart chart, int width, int height, OutputStream out, ChartMetrics metrics)
+            throws IOException {
+        long start = metrics.start();
+        BufferedImage image = RasterBuffers.draw(chart, width, height, BufferedImage.TYPE_INT_ARGB);
+        metrics.record(ChartMetrics.Stage.RENDER, start);
+
+        start = metrics.start();
+        write(image, out);
+        metrics.record(ChartMetrics.Stage.ENCODE, start);
+    }
+
+    /**
+     * Codifica uma imagem já desenhada
+     */
+    public void write(BufferedImage image, OutputStream out) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels;
+        boolean alpha;
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB || image.getType() == BufferedImage.TYPE_INT_RGB) {
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            alpha = image.getType() == BufferedImage.TYPE_INT_ARGB && hasTransparency(pixels, width * height);
+        } else {
+            pixels = image.getRGB(0, 0, width, height, null, 0, width);
+            alpha = image.getColorModel().hasAlpha() && hasTransparency(pixels, width * height);
+        }
+
+        int bytesPerPixel = alpha ? 4 : 3;
+        int rowLength = 1 + width * bytesPerPixel;
+        int length = rowLength * height;
+        Buffers buffer = buffers.get();
+        byte[] filtered = buffer.filtered(length);
+
+        boolean parallel = length >= PARALLEL_MIN_BYTES && Runtime.getRuntime().availableProcessors() > 1;
+        if (parallel) {
+            int rowsPerTask = Math.max(1, PARALLEL_BLOCK_BYTES / rowLength);
+            IntStream.range(0, (height + rowsPerTask - 1) / rowsPerTask).parallel()
+                    .forEach(t -> filterRows(pixels, width, alpha, t * rowsPerTask,
+                            Math.min(height, (t + 1) * rowsPerTask), filtered));
+        } else {
+            filterRows(pixels, width, alpha, 0, height, filtered);
+        }
+
+        out.write(SIGNATURE);
+        writeHeader(out, width, height, alpha);
+        if (parallel) {
+            writeParallelData(out, filtered, length);
+        } else {
+            int compressedLength = buffer.deflate(compressionLevel, filtered, length);
+            writeChunk(out, "IDAT", buffer.compressed, compressedLength);
+        }
+        writeChunk(out, "IEND", new byte[0], 0);
+    }
+
+    private static boolean hasTransparency(int[] pixels, int count) {
+        for (int i = 0; i < count; i++) {
+            if (pixels[i] >>> 24 != 0xFF) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converte as linhas [from, to) para bytes e aplica o filtro de cada linha
+     */
+    private void filterRows(int[] pixels, int width, boolean alpha, int from, int to, byte[] filtered) {
+        int bytesPerPixel = alpha ? 4 : 3;
+        int stride = width * bytesPerPixel;
+        byte[] previous = new byte[stride];
+        byte[] current = new byte[stride];
+        if (from > 0) {
+            unpackRow(pixels, width, alpha, from - 1, previous);
+        }
+
+        for (int row = from; row < to; row++) {
+            unpackRow(pixels, width, alpha, row, current);
+            int offset = row * (stride + 1);
+            int filter = compressionLevel == 0 ? FILTER_NONE : chooseFilter(current, previous, bytesPerPixel);
+            filtered[offset] = (byte) filter;
+            applyFilter(filter, current, previous, bytesPerPixel, filtered, offset + 1);
+
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+    }
+
+    private static void unpackRow(int[] pixels, int width, boolean alpha, int row, byte[] bytes) {
+        int p = row * width;
+        int b = 0;
+        for (int x = 0; x < width; x++) {
+            int argb = pixels[p + x];
+            bytes[b++] = (byte) (argb >>> 16);
+            bytes[b++] = (byte) (argb >>> 8);
+            bytes[b++] = (byte) argb;
+            if (alpha) {
+                bytes[b++] = (byte) (argb >>> 24);
+            }
+        }
+    }
+
+    /**
+     * Escolhe o filtro com a menor soma dos resíduos (em módulo, como bytes com sinal)
+     */
+    private static int chooseFilter(byte[] current, byte[] previous, int bytesPerPixel) {
+        long sumNone = 0;
+        long sumSub = 0;
+        long sumUp = 0;
+        long sumAverage = 0;
+        long sumPaeth = 0;
+        for (int i = 0; i < current.length; i++) {
+            int x = current[i] & 0xFF;
+            int a = i >= bytesPerPixel ? current[i - bytesPerPixel] & 0xFF : 0;
+            int b = previous[i] & 0xFF;
+            int c = i >= bytesPerPixel ? previous[i - bytesPerPixel] & 0xFF : 0;
+            sumNone += Math.abs((byte) x);
+            sumSub += Math.abs((byte) (x - a));
+            sumUp += Math.abs((byte) (x - b));
+            sumAverage += Math.abs((byte) (x - ((a + b) >>> 1)));
+            sumPaeth += Math.abs((byte) (x - paeth(a, b, c)));
+        }
+
+        int best = FILTER_NONE;
+        long bestSum = sumNone;
+        long[] sums = {sumSub, sumUp, sumAverage, sumPaeth};
+        for (int f = 0; f < sums.length; f++) {
+            if (sums[f] < bestSum) {
+                bestSum = sums[f];
+                best = f + 1;
+            }
+        }
+        return best;
+    }
+
+    private static void applyFilter(int filter, byte[] current, byte[] previous, int bytesPerPixel,
+                                    byte[] out, int offset) {
+        for (int i = 0; i < current.length; i++) {
+            int x = current[i] & 0xFF;
+            int a = i >= bytesPerPixel ? current[i - bytesPerPixel] & 0xFF : 0;
+            int b = previous[i] & 0xFF;
+            int c = i >= bytesPerPixel ? previous[i - bytesPerPixel] & 0xFF : 0;
+            int predictor;
+            switch (filter) {
+                case FILTER_SUB:
+                    predictor = a;
+                    break;
+                case FILTER_UP:
+                    predictor = b;
+                    break;
+                case FILTER_AVERAGE:
+                    predictor = (a + b) >>> 1;
+                    break;
+                case FILTER_PAETH:
+                    predictor = paeth(a, b, c);
+                    break;
+                default:
+                    predictor = 0;
+            }
+            out[offset + i] = (byte) (x - predictor);
+        }
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    /**
+     * Comprime os blocos em paralelo e grava o fluxo zlib como um único IDAT
+     */
+    private void writeParallelData(OutputStream out, byte[] filtered, int length) throws IOException {
+        int blocks = (length + PARALLEL_BLOCK_BYTES - 1) / PARALLEL_BLOCK_BYTES;
+        List<byte[]> parts = IntStream.range(0, blocks).parallel()
+                .mapToObj(k -> buffers.get().deflateBlock(compressionLevel, filtered, k * PARALLEL_BLOCK_BYTES,
+                        Math.min(length, (k + 1) * PARALLEL_BLOCK_BYTES), k == blocks - 1))
+                .toList();
+
+        Adler32 adler = new Adler32();
+        adler.update(filtered, 0, length);
+        long checksum = adler.getValue();
+        byte[] header = {0x78, zlibLevelFlag(compressionLevel)};
+        byte[] trailer = {(byte) (checksum >>> 24), (byte) (checksum >>> 16), (byte) (checksum >>> 8),
+                (byte) checksum};
+
+        long dataLength = header.length + trailer.length;
+        for (byte[] part : parts) {
+            dataLength += part.length;
+        }
+        CRC32 crc = new CRC32();
+        byte[] type = "IDAT".getBytes(StandardCharsets.US_ASCII);
+        writeInt(out, (int) dataLength);
+        out.write(type);
+        crc.update(type);
+        out.write(header);
+        crc.update(header);
+        for (byte[] part : parts) {
+            out.write(part);
+            crc.update(part);
+        }
+        out.write(trailer);
+        crc.update(trailer);
+        writeInt(out, (int) crc.getValue());
+    }
+
+    /**
+     * Segundo byte do cabeçalho zlib, que indica o nível usado (CMF 0x78)
+     */
+    private static byte zlibLevelFlag(int level) {
+        if (level <= 1) {
+            return 0x01;
+        }
+        if (level <= 5) {
+            return 0x5E;
+        }
+        return level == 6 ? (byte) 0x9C : (byte) 0xDA;
+    }
+
+    private static void writeHeader(OutputStream out, int width, int height, boolean alpha) throws IOException {
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8;
+        header[9] = (byte) (alpha ? 6 : 2);
+        writeChunk(out, "IHDR", header, header.length);
+    }
+
+    private static void writeChunk(OutputStream out, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        writeInt(out, length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        writeInt(out, (int) crc.getValue());
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        byte[] bytes = new byte[4];
+        putInt(bytes, 0, value);
+        out.write(bytes);
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Buffers e compressores reaproveitados por uma thread
+     */
+    private static final class Buffers {
+        private byte[] filtered = new byte[0];
+        private byte[] compressed = new byte[64 * 1024];
+        private Deflater deflater;
+        private Deflater blockDeflater;
+
+        byte[] filtered(int length) {
+            if (filtered.length < length) {
+                filtered = new byte[length];
+            }
+            return filtered;
+        }
+
+        /**
+         * Comprime os dados em um fluxo zlib completo em {@link #compressed}
+         *
+         * @return Tamanho do fluxo comprimido
+         */
+        int deflate(int level, byte[] data, int length) {
+            if (deflater == null) {
+                deflater = new Deflater(level);
+            }
+            deflater.reset();
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                size += deflater.deflate(compressed, size, compressed.length - size);
+            }
+            return size;
+        }
+
+        /**
+         * Comprime um bloco em deflate puro, usando o final do bloco anterior
+         * como dicionário e terminando em flush de sincronização (ou no fim do
+         * fluxo, se for o último)
+         */
+        byte[] deflateBlock(int level, byte[] data, int from, int to, boolean last) {
+            if (blockDeflater == null) {
+                blockDeflater = new Deflater(level, true);
+            }
+            Deflater block = blockDeflater;
+            block.reset();
+            if (from > 0) {
+                int dictionary = Math.min(DICTIONARY_BYTES, from);
+                block.setDictionary(data, from - dictionary, dictionary);
+            }
+            block.setInput(data, from, to - from);
+
+            byte[] out = new byte[Math.max(1024, (to - from) / 2)];
+            int size = 0;
+            if (last) {
+                block.finish();
+                while (!block.finished()) {
+                    if (size == out.length) {
+                        out = Arrays.copyOf(out, out.length * 2);
+                    }
+                    size += block.deflate(out, size, out.length - size);
+                }
+            } else {
+                while (true) {
+                    int space = out.length - size;
+                    int written = block.deflate(out, size, space, Deflater.SYNC_FLUSH);
+                    size += written;
+                    if (written < space) {
+                        break;
+                    }
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+            }
+            return Arrays.copyOf(out, size);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.csvcharts.util;
+
+import org.jfree.chart.JFreeChart;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Imagens e grades reaproveitadas entre os gráficos desenhados por uma mesma thread
+ *
+ * Em vez de alocar uma imagem nova a cada gráfico, cada thread mantém uma
+ * imagem por tipo de pixel, recriada só quando o tamanho muda, além da
+ * soma de pontos por pixel e da imagem do mapa de densidade. O que é devolvido só
+ * é válido até o próximo uso na mesma thread.
+ */
+final class RasterBuffers {
+    private static final ThreadLocal<BufferedImage> ARGB = new ThreadLocal<>();
+    private static final ThreadLocal<BufferedImage> RGB = new ThreadLocal<>();
+    private static final ThreadLocal<BufferedImage> DENSITY = new ThreadLocal<>();
+    private static final ThreadLocal<double[]> DENSITY_SUMS = new ThreadLocal<>();
+
+    private RasterBuffers() {
+    }
+
+    /**
+     * Desenha o gráfico na imagem da thread
+     *
+     * @param imageType BufferedImage.TYPE_INT_ARGB ou BufferedImage.TYPE_INT_RGB
+     */
+    static BufferedImage draw(JFreeChart chart, int width, int height, int imageType) {
+        ThreadLocal<BufferedImage> buffer = imageType == BufferedImage.TYPE_INT_RGB ? RGB : ARGB;
+        BufferedImage image = image(buffer, width, height, imageType);
+
+        Graphics2D g2 = image.createGraphics();
+        try {
+            g2.setComposite(AlphaComposite.Clear);
+            g2.fillRect(0, 0, width, height);
+            g2.setComposite(AlphaComposite.SrcOver);
+            chart.draw(g2, new Rectangle2D.Double(0, 0, width, height), null, null);
+        } finally {
+            g2.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Imagem ARGB da thread para o mapa de densidade, com conteúdo indefinido
+     * (separada da imagem em que o gráfico está sendo desenhado)
+     */
+    static BufferedImage densityImage(int width, int height) {
+        return image(DENSITY, width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * Soma de pontos por pixel da thread, zerada, com ao menos {@code length} posições
+     */
+    static double[] density(int length) {
+        double[] sums = DENSITY_SUMS.get();
+        if (sums == null || sums.length < length) {
+            sums = new double[length];
+            DENSITY_SUMS.set(sums);
+        } else {
+            Arrays.fill(sums, 0, length, 0);
+        }
+        return sums;
+    }
+
+    private static BufferedImage image(ThreadLocal<BufferedImage> buffer, int width, int height, int imageType) {
+        BufferedImage image = buffer.get();
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, imageType);
+            buffer.set(image);
+        }
+        return image;
+    }
+}
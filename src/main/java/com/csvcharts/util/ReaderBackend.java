@@ -0,0 +1,24 @@
+package com.csvcharts.util;
+
+/**
+ * Enum que define as implementações disponíveis para ler o arquivo CSV
+ */
+public enum ReaderBackend {
+    OPENCSV("OpenCSV sobre java.io.Reader"),
+    MAPPED("Arquivo mapeado em memória, lido direto dos bytes");
+
+    private final String description;
+
+    ReaderBackend(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return name() + " - " + description;
+    }
+}
@@ -0,0 +1,528 @@
+package com.csvcharts.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Ordena por X as linhas de um gráfico (X e um valor por série) com memória limitada
+ *
+ * As linhas ficam em um único double[], {@code 1 + séries} valores por
+ * linha, e são ordenadas por um radix sort estável sobre os bits de X, com
+ * as faixas de linhas processadas em paralelo. Quando o buffer atinge o
+ * limite de memória, ele é ordenado e gravado em um arquivo temporário (uma
+ * parte). No fim, as partes e o que restou em memória são intercalados,
+ * lendo cada parte em blocos, e as linhas são entregues em ordem sem que
+ * todas precisem estar na memória. Se houver partes demais para abrir de
+ * uma vez, as primeiras são antes intercaladas em partes maiores. Linhas
+ * com o mesmo X mantêm a ordem de chegada.
+ *
+ * Uma instância não é thread-safe; {@link #close()} apaga as partes gravadas.
+ * As partes ainda não apagadas quando a JVM termina (por exemplo, ao
+ * interromper o modo --seguir) são apagadas na saída.
+ */
+final class RowSorter implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(RowSorter.class);
+
+    private static final int MIN_BUFFER_ROWS = 1 << 16;
+    private static final int INITIAL_ROWS = 1024;
+    private static final int RADIX_BITS = 11;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int PARALLEL_MIN_ROWS = 1 << 18;
+    private static final int MAX_OPEN_RUNS = 64;
+    private static final int IO_BUFFER_BYTES = 1 << 16;
+    private static final String RUN_PREFIX = "csv-charts-";
+    private static final String RUN_SUFFIX = ".ordenacao";
+
+    /** Partes gravadas e ainda não apagadas, de todas as instâncias */
+    private static final Set<Path> OPEN_RUNS = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> OPEN_RUNS.forEach(RowSorter::delete)));
+    }
+
+    /**
+     * Recebe as linhas em ordem de X. O array de valores é reaproveitado.
+     */
+    interface RowConsumer {
+        void accept(double x, double[] values);
+    }
+
+    private interface RowSink {
+        void accept(double x, double[] values) throws IOException;
+    }
+
+    private final int width;
+    private final int maxRows;
+    private double[] rows;
+    private int size;
+    private boolean sorted = true;
+
+    private final List<Path> runs = new ArrayList<>();
+    private long runRows;
+
+    /**
+     * @param series Número de valores por linha, além de X
+     * @param memoryBytes Memória máxima do buffer de linhas, contando as áreas auxiliares da ordenação
+     */
+    RowSorter(int series, long memoryBytes) {
+        this.width = series + 1;
+        // Buffer e cópia auxiliar (16 bytes por valor), mais duas chaves long por linha
+        long limit = memoryBytes / (2L * Double.BYTES * (width + 1));
+        this.maxRows = (int) Math.max(MIN_BUFFER_ROWS, Math.min(limit, (Integer.MAX_VALUE - 8) / width));
+        this.rows = new double[INITIAL_ROWS * width];
+    }
+
+    /**
+     * Acrescenta uma linha, gravando o buffer em uma parte se ele estiver cheio
+     *
+     * @throws UncheckedIOException Se a parte não puder ser gravada
+     */
+    void add(double x, double[] values) {
+        if (size == maxRows) {
+            spill();
+        }
+        if ((size + 1) * width > rows.length) {
+            rows = Arrays.copyOf(rows, (int) Math.min(2L * size, maxRows) * width);
+        }
+        int i = size * width;
+        rows[i] = x;
+        System.arraycopy(values, 0, rows, i + 1, width - 1);
+        size++;
+        sorted = false;
+    }
+
+    /**
+     * Número de linhas recebidas
+     */
+    long size() {
+        return runRows + size;
+    }
+
+    /**
+     * Número de partes gravadas em disco
+     */
+    int getRunCount() {
+        return runs.size();
+    }
+
+    /**
+     * Entrega todas as linhas recebidas até agora, em ordem de X. Pode ser
+     * chamado de novo depois de mais linhas.
+     *
+     * @throws UncheckedIOException Se as partes não puderem ser lidas
+     */
+    void forEachSorted(RowConsumer consumer) {
+        sortBuffer();
+        if (runs.isEmpty()) {
+            double[] values = new double[width - 1];
+            for (int i = 0, end = size * width; i < end; i += width) {
+                System.arraycopy(rows, i + 1, values, 0, width - 1);
+                consumer.accept(rows[i], values);
+            }
+            return;
+        }
+
+        try {
+            while (runs.size() > MAX_OPEN_RUNS) {
+                mergeRuns(MAX_OPEN_RUNS);
+            }
+            List<Cursor> cursors = new ArrayList<>(runs.size() + 1);
+            try {
+                for (Path run : runs) {
+                    cursors.add(new Cursor(run));
+                }
+                cursors.add(new Cursor(rows, size));
+                merge(cursors, consumer::accept);
+            } finally {
+                for (Cursor cursor : cursors) {
+                    cursor.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao ler as partes da ordenação: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Apaga as partes gravadas em disco
+     */
+    @Override
+    public void close() {
+        for (Path run : runs) {
+            delete(run);
+        }
+        runs.clear();
+    }
+
+    private static void delete(Path run) {
+        try {
+            Files.deleteIfExists(run);
+            OPEN_RUNS.remove(run);
+        } catch (IOException e) {
+            logger.warn("Não foi possível apagar a parte da ordenação {}: {}", run, e.getMessage());
+        }
+    }
+
+    /**
+     * Ordena o buffer por X com um radix sort LSD: X vira uma chave long com
+     * a mesma ordem dos doubles, e as linhas são distribuídas por grupos de
+     * 11 bits da chave, do menos ao mais significativo, pulando os grupos
+     * iguais em todas as linhas (como os bits altos de datas próximas). Cada
+     * passada conta e distribui faixas de linhas em paralelo; como cada
+     * faixa escreve depois das anteriores no mesmo grupo, a ordem de
+     * chegada dos X iguais é mantida.
+     */
+    private void sortBuffer() {
+        if (sorted) {
+            return;
+        }
+        int n = size;
+        int tasks = Math.min(Runtime.getRuntime().availableProcessors(), Math.max(1, n / PARALLEL_MIN_ROWS));
+        double[] in = rows;
+        double[] out = new double[n * width];
+        long[] inKeys = new long[n];
+        long[] outKeys = new long[n];
+        for (int i = 0; i < n; i++) {
+            inKeys[i] = sortKey(rows[i * width]);
+        }
+
+        int[][] counts = new int[tasks][RADIX];
+        for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+            int passShift = shift;
+            long[] keys = inKeys;
+            forEachRange(n, tasks, (t, from, to) -> {
+                int[] count = counts[t];
+                Arrays.fill(count, 0);
+                for (int i = from; i < to; i++) {
+                    count[digit(keys[i], passShift)]++;
+                }
+            });
+            if (isSingleDigit(counts, n)) {
+                continue;
+            }
+
+            // Início de cada faixa em cada grupo: grupos em ordem e, dentro deles, faixas em ordem
+            int offset = 0;
+            for (int d = 0; d < RADIX; d++) {
+                for (int[] count : counts) {
+                    int c = count[d];
+                    count[d] = offset;
+                    offset += c;
+                }
+            }
+
+            double[] src = in;
+            double[] dest = out;
+            long[] destKeys = outKeys;
+            forEachRange(n, tasks, (t, from, to) -> {
+                int[] next = counts[t];
+                for (int i = from; i < to; i++) {
+                    int p = next[digit(keys[i], passShift)]++;
+                    destKeys[p] = keys[i];
+                    // Linhas curtas: a cópia direta é mais rápida que System.arraycopy
+                    for (int k = 0, source = i * width, target = p * width; k < width; k++) {
+                        dest[target + k] = src[source + k];
+                    }
+                }
+            });
+            in = dest;
+            out = src;
+            inKeys = destKeys;
+            outKeys = keys;
+        }
+        rows = in;
+        sorted = true;
+    }
+
+    private interface RangeTask {
+        void run(int task, int from, int to);
+    }
+
+    /**
+     * Divide as linhas [0, n) em faixas consecutivas, processadas em paralelo se houver mais de uma
+     */
+    private static void forEachRange(int n, int tasks, RangeTask task) {
+        if (tasks == 1) {
+            task.run(0, 0, n);
+            return;
+        }
+        IntStream.range(0, tasks).parallel().forEach(t ->
+                task.run(t, (int) ((long) n * t / tasks), (int) ((long) n * (t + 1) / tasks)));
+    }
+
+    /**
+     * Indica se todas as linhas caíram no mesmo grupo, caso em que a passada é desnecessária
+     */
+    private static boolean isSingleDigit(int[][] counts, int n) {
+        for (int d = 0; d < RADIX; d++) {
+            int total = 0;
+            for (int[] count : counts) {
+                total += count[d];
+            }
+            if (total != 0) {
+                return total == n;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Chave long cuja ordem sem sinal é a ordem dos doubles (X nunca é NaN;
+     * somar 0.0 faz -0.0 e 0.0 terem a mesma chave, como na intercalação)
+     */
+    private static long sortKey(double x) {
+        long bits = Double.doubleToLongBits(x + 0.0);
+        return bits < 0 ? ~bits : bits | Long.MIN_VALUE;
+    }
+
+    private static int digit(long key, int shift) {
+        return (int) (key >>> shift) & (RADIX - 1);
+    }
+
+    /**
+     * Ordena o buffer e o grava como uma nova parte
+     */
+    private void spill() {
+        sortBuffer();
+        try {
+            Path run = newRun();
+            try (RunWriter writer = new RunWriter(run)) {
+                writer.write(rows, size * width);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar parte da ordenação: " + e.getMessage(), e);
+        }
+        logger.debug("Parte {} da ordenação gravada: {} linhas", runs.size(), size);
+        runRows += size;
+        size = 0;
+    }
+
+    /**
+     * Intercala as primeiras partes em uma só, que fica no lugar delas
+     */
+    private void mergeRuns(int count) throws IOException {
+        List<Path> merged = new ArrayList<>(runs.subList(0, count));
+        Path run = Files.createTempFile(RUN_PREFIX, RUN_SUFFIX);
+        OPEN_RUNS.add(run);
+        List<Cursor> cursors = new ArrayList<>(count);
+        try (RunWriter writer = new RunWriter(run)) {
+            for (Path path : merged) {
+                cursors.add(new Cursor(path));
+            }
+            merge(cursors, writer::write);
+        } catch (IOException e) {
+            delete(run);
+            throw e;
+        } finally {
+            for (Cursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+        runs.subList(0, count).clear();
+        runs.add(0, run);
+        for (Path path : merged) {
+            delete(path);
+        }
+    }
+
+    private Path newRun() throws IOException {
+        Path run = Files.createTempFile(RUN_PREFIX, RUN_SUFFIX);
+        OPEN_RUNS.add(run);
+        runs.add(run);
+        return run;
+    }
+
+    /**
+     * Intercala as linhas dos cursores com um heap de mínimo; em caso de
+     * empate, vence o cursor que veio antes (linhas recebidas antes)
+     */
+    private void merge(List<Cursor> cursors, RowSink sink) throws IOException {
+        int[] heap = new int[cursors.size()];
+        int count = 0;
+        for (int c = 0; c < cursors.size(); c++) {
+            if (cursors.get(c).hasRow()) {
+                heap[count] = c;
+                siftUp(cursors, heap, count++);
+            }
+        }
+
+        double[] values = new double[width - 1];
+        while (count > 0) {
+            Cursor cursor = cursors.get(heap[0]);
+            System.arraycopy(cursor.block, cursor.position + 1, values, 0, width - 1);
+            sink.accept(cursor.x(), values);
+            cursor.advance();
+            if (!cursor.hasRow()) {
+                heap[0] = heap[--count];
+            }
+            siftDown(cursors, heap, count);
+        }
+    }
+
+    private static void siftUp(List<Cursor> cursors, int[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(cursors, heap[i], heap[parent])) {
+                return;
+            }
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(List<Cursor> cursors, int[] heap, int count) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= count) {
+                return;
+            }
+            if (child + 1 < count && before(cursors, heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(cursors, heap[child], heap[i])) {
+                return;
+            }
+            swap(heap, i, child);
+            i = child;
+        }
+    }
+
+    private static boolean before(List<Cursor> cursors, int a, int b) {
+        double xa = cursors.get(a).x();
+        double xb = cursors.get(b).x();
+        return xa < xb || xa == xb && a < b;
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int t = heap[i];
+        heap[i] = heap[j];
+        heap[j] = t;
+    }
+
+    /**
+     * Grava linhas em uma parte, em blocos
+     */
+    private final class RunWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocate(IO_BUFFER_BYTES);
+
+        RunWriter(Path run) throws IOException {
+            channel = FileChannel.open(run, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void write(double[] values, int count) throws IOException {
+            for (int i = 0; i < count; ) {
+                int n = Math.min(count - i, bytes.remaining() / Double.BYTES);
+                bytes.asDoubleBuffer().put(values, i, n);
+                bytes.position(bytes.position() + n * Double.BYTES);
+                i += n;
+                if (!bytes.hasRemaining()) {
+                    flush();
+                }
+            }
+        }
+
+        void write(double x, double[] values) throws IOException {
+            if (bytes.remaining() < width * Double.BYTES) {
+                flush();
+            }
+            bytes.putDouble(x);
+            for (double value : values) {
+                bytes.putDouble(value);
+            }
+        }
+
+        private void flush() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Linhas de uma parte, lidas em blocos de linhas inteiras, ou as linhas
+     * do buffer em memória
+     */
+    private final class Cursor implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer bytes;
+        private final double[] block;
+        private int position;
+        private int limit;
+
+        Cursor(double[] rows, int size) {
+            this.channel = null;
+            this.bytes = null;
+            this.block = rows;
+            this.limit = size * width;
+        }
+
+        Cursor(Path run) throws IOException {
+            int rowBytes = width * Double.BYTES;
+            this.channel = FileChannel.open(run, StandardOpenOption.READ);
+            this.bytes = ByteBuffer.allocate(Math.max(1, IO_BUFFER_BYTES / rowBytes) * rowBytes);
+            this.block = new double[bytes.capacity() / Double.BYTES];
+            fill();
+        }
+
+        boolean hasRow() {
+            return position < limit;
+        }
+
+        double x() {
+            return block[position];
+        }
+
+        void advance() throws IOException {
+            position += width;
+            if (position == limit && channel != null) {
+                fill();
+            }
+        }
+
+        private void fill() throws IOException {
+            bytes.clear();
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // Lê até completar o bloco ou chegar ao fim da parte
+            }
+            bytes.flip();
+            limit = bytes.remaining() / Double.BYTES;
+            bytes.asDoubleBuffer().get(block, 0, limit);
+            position = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
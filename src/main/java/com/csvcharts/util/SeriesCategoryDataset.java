@@ -0,0 +1,122 @@
+package com.csvcharts.util;
+
+import org.jfree.data.UnknownKeyException;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.general.AbstractDataset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Dataset de categorias com várias séries guardadas em arrays primitivos
+ *
+ * O DefaultCategoryDataset procura cada categoria com uma busca linear na
+ * lista de chaves, o que torna quadrática a montagem de um eixo com milhares
+ * de categorias e várias séries. Aqui as categorias ficam em um mapa e os
+ * valores em um double[] por série, com NaN para "sem valor". Como no
+ * DefaultCategoryDataset, uma categoria repetida ocupa a posição da primeira
+ * ocorrência e fica com o último valor informado.
+ *
+ * As chaves são sempre Strings; os parâmetros que a interface do JFreeChart
+ * declara como Comparable sem tipo continuam assim, como no
+ * DefaultCategoryDataset.
+ */
+class SeriesCategoryDataset extends AbstractDataset implements CategoryDataset {
+    private static final long serialVersionUID = 1L;
+
+    private final ArrayList<String> seriesKeys;
+    private final ArrayList<String> categories = new ArrayList<>();
+    private final HashMap<String, Integer> categoryIndex = new HashMap<>();
+    private double[][] values;
+
+    SeriesCategoryDataset(List<String> seriesKeys) {
+        this.seriesKeys = new ArrayList<>(seriesKeys);
+        this.values = new double[seriesKeys.size()][256];
+    }
+
+    /**
+     * Acrescenta (ou sobrescreve) a categoria com um valor por série; NaN deixa a série sem valor
+     */
+    void add(String category, double[] seriesValues) {
+        Integer index = categoryIndex.get(category);
+        if (index == null) {
+            index = categories.size();
+            if (index == values[0].length) {
+                for (int s = 0; s < values.length; s++) {
+                    values[s] = Arrays.copyOf(values[s], index * 2);
+                }
+            }
+            categories.add(category);
+            categoryIndex.put(category, index);
+        }
+        for (int s = 0; s < values.length; s++) {
+            values[s][index] = seriesValues[s];
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return seriesKeys.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return categories.size();
+    }
+
+    @Override
+    public Number getValue(int row, int column) {
+        double value = values[row][column];
+        return Double.isNaN(value) ? null : value;
+    }
+
+    @Override
+    public String getRowKey(int row) {
+        return seriesKeys.get(row);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public int getRowIndex(Comparable key) {
+        return seriesKeys.indexOf(key);
+    }
+
+    @Override
+    public List<String> getRowKeys() {
+        return Collections.unmodifiableList(seriesKeys);
+    }
+
+    @Override
+    public String getColumnKey(int column) {
+        return categories.get(column);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public int getColumnIndex(Comparable key) {
+        Integer index = categoryIndex.get(key);
+        return index != null ? index : -1;
+    }
+
+    @Override
+    public List<String> getColumnKeys() {
+        return Collections.unmodifiableList(categories);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Number getValue(Comparable rowKey, Comparable columnKey) {
+        int row = getRowIndex(rowKey);
+        if (row < 0) {
+            throw new UnknownKeyException("Série desconhecida: " + rowKey);
+        }
+        int column = getColumnIndex(columnKey);
+        if (column < 0) {
+            throw new UnknownKeyException("Categoria desconhecida: " + columnKey);
+        }
+        return getValue(row, column);
+    }
+}
@@ -0,0 +1,71 @@
+package com.csvcharts.util;
+
+import org.jfree.data.xy.AbstractXYDataset;
+
+import java.util.ArrayList;
+
+/**
+ * Dataset XY com várias séries guardadas em arrays primitivos
+ *
+ * Como o DefaultXYDataset, guarda os arrays recebidos sem copiá-los, mas
+ * cada série usa só as primeiras {@code size} posições, de modo que os
+ * arrays em que os pontos foram acumulados (maiores que o necessário) vão
+ * direto para o gráfico, sem um Arrays.copyOf por série.
+ */
+class SeriesXYDataset extends AbstractXYDataset {
+    private static final long serialVersionUID = 1L;
+
+    private final ArrayList<String> seriesKeys = new ArrayList<>();
+    private final ArrayList<double[]> xs = new ArrayList<>();
+    private final ArrayList<double[]> ys = new ArrayList<>();
+    private final ArrayList<Integer> sizes = new ArrayList<>();
+
+    /**
+     * Acrescenta uma série com os pontos {@code [0, size)} dos arrays, que
+     * não devem mais ser alterados
+     */
+    void addSeries(String key, double[] seriesXs, double[] seriesYs, int size) {
+        if (size > seriesXs.length || size > seriesYs.length) {
+            throw new IllegalArgumentException("Série '" + key + "' com menos de " + size + " pontos");
+        }
+        seriesKeys.add(key);
+        xs.add(seriesXs);
+        ys.add(seriesYs);
+        sizes.add(size);
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return seriesKeys.size();
+    }
+
+    @Override
+    public String getSeriesKey(int series) {
+        return seriesKeys.get(series);
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        return sizes.get(series);
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        return xs.get(series)[item];
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        return ys.get(series)[item];
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return getXValue(series, item);
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return getYValue(series, item);
+    }
+}
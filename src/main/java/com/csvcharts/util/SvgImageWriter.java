@@ -0,0 +1,39 @@
+package com.csvcharts.util;
+
+import com.csvcharts.model.ImageFormat;
+import org.jfree.chart.JFreeChart;
+import org.jfree.svg.SVGGraphics2D;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Desenho vetorial em SVG, gerado pelo JFreeSVG sem passar por uma imagem
+ */
+public class SvgImageWriter implements ChartImageWriter {
+
+    @Override
+    public ImageFormat getFormat() {
+        return ImageFormat.SVG;
+    }
+
+    @Override
+    public String getSettings() {
+        return "SVG";
+    }
+
+    @Override
+    public void write(JFreeChart chart, int width, int height, OutputStream out, ChartMetrics metrics)
+            throws IOException {
+        long start = metrics.start();
+        SVGGraphics2D g2 = new SVGGraphics2D(width, height);
+        chart.draw(g2, new Rectangle2D.Double(0, 0, width, height));
+        metrics.record(ChartMetrics.Stage.RENDER, start);
+
+        start = metrics.start();
+        out.write(g2.getSVGDocument().getBytes(StandardCharsets.UTF_8));
+        metrics.record(ChartMetrics.Stage.ENCODE, start);
+    }
+}
@@ -0,0 +1,174 @@
+package com.csvcharts.util;
+
+import com.csvcharts.model.AggregationFunction;
+
+import java.util.Arrays;
+
+/**
+ * Agrupa os valores de uma série temporal em intervalos fixos, em uma única passada
+ *
+ * Cada intervalo é identificado pelo instante em que começa e recebe um
+ * número (na ordem em que apareceu) por meio de uma tabela de endereçamento
+ * aberto de long. Como no {@link GroupAggregator}, o estado de cada série
+ * (contagem, soma, mínimo, máximo e último valor) fica em arrays primitivos
+ * na posição {@code intervalo * séries + série}, e a função de agregação é
+ * escolhida só no fim. As linhas de um log costumam chegar em ordem, então
+ * o último intervalo usado é lembrado e a tabela só é consultada quando o
+ * intervalo muda.
+ */
+final class TimeBuckets {
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Recebe os intervalos, em ordem cronológica, e o valor agregado de cada
+     * série (NaN se o intervalo não tem valores na série). O array é reaproveitado.
+     */
+    interface BucketConsumer {
+        void accept(long start, double[] values);
+    }
+
+    private final int series;
+
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private long[] counts;
+    private double[] sums;
+    private double[] mins;
+    private double[] maxs;
+    private double[] lasts;
+    private int[] slots = new int[2 * INITIAL_CAPACITY];
+    private int size;
+
+    private long lastStart;
+    private int lastBucket = -1;
+
+    TimeBuckets(int series) {
+        this.series = series;
+        counts = new long[INITIAL_CAPACITY * series];
+        sums = new double[INITIAL_CAPACITY * series];
+        mins = new double[INITIAL_CAPACITY * series];
+        maxs = new double[INITIAL_CAPACITY * series];
+        lasts = new double[INITIAL_CAPACITY * series];
+    }
+
+    /**
+     * Acrescenta uma linha ao intervalo que começa em {@code start}; valores NaN são ignorados
+     */
+    void add(long start, double[] values) {
+        int bucket;
+        if (lastBucket >= 0 && start == lastStart) {
+            bucket = lastBucket;
+        } else {
+            bucket = bucket(start);
+            lastStart = start;
+            lastBucket = bucket;
+        }
+
+        int base = bucket * series;
+        for (int s = 0; s < series; s++) {
+            double value = values[s];
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            int k = base + s;
+            if (counts[k] == 0) {
+                mins[k] = value;
+                maxs[k] = value;
+            } else {
+                if (value < mins[k]) {
+                    mins[k] = value;
+                }
+                if (value > maxs[k]) {
+                    maxs[k] = value;
+                }
+            }
+            counts[k]++;
+            sums[k] += value;
+            lasts[k] = value;
+        }
+    }
+
+    /**
+     * Número de intervalos com ao menos uma linha
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Entrega os intervalos em ordem cronológica, com o valor agregado de cada série
+     */
+    void forEach(AggregationFunction function, BucketConsumer consumer) {
+        double[] values = new double[series];
+        long[] ordered = Arrays.copyOf(starts, size);
+        Arrays.sort(ordered);
+        for (long start : ordered) {
+            int base = (slots[findSlot(start)] - 1) * series;
+            for (int s = 0; s < series; s++) {
+                int k = base + s;
+                values[s] = counts[k] > 0
+                        ? GroupAggregator.value(function, counts[k], sums[k], mins[k], maxs[k], lasts[k])
+                        : Double.NaN;
+            }
+            consumer.accept(start, values);
+        }
+    }
+
+    private int bucket(long start) {
+        int slot = findSlot(start);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+
+        int bucket = size++;
+        if (bucket == starts.length) {
+            grow();
+        }
+        starts[bucket] = start;
+        slots[slot] = bucket + 1;
+
+        // Mantém a tabela no máximo meio cheia
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return bucket;
+    }
+
+    /**
+     * @return Posição com o número do intervalo, ou a posição vazia onde ele entraria
+     */
+    private int findSlot(long start) {
+        int mask = slots.length - 1;
+        int slot = mix(start) & mask;
+        while (slots[slot] != 0 && starts[slots[slot] - 1] != start) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = starts.length * 2;
+        starts = Arrays.copyOf(starts, capacity);
+        counts = Arrays.copyOf(counts, capacity * series);
+        sums = Arrays.copyOf(sums, capacity * series);
+        mins = Arrays.copyOf(mins, capacity * series);
+        maxs = Arrays.copyOf(maxs, capacity * series);
+        lasts = Arrays.copyOf(lasts, capacity * series);
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int bucket = 0; bucket < size; bucket++) {
+            int slot = mix(starts[bucket]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = bucket + 1;
+        }
+    }
+
+    private static int mix(long start) {
+        long h = start * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
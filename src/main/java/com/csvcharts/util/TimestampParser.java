@@ -0,0 +1,277 @@
+package com.csvcharts.util;
+
+import com.csvcharts.model.TimeBucket;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Conversor de data e hora em texto para milissegundos desde 1970 (UTC),
+ * sem alocação e sem exceções
+ *
+ * Aceita datas {@code yyyy-MM-dd}, {@code yyyy/MM/dd} e {@code dd/MM/yyyy},
+ * opcionalmente seguidas (após espaço ou {@code T}) de {@code HH:mm},
+ * segundos, fração de segundo e fuso ({@code Z}, {@code +03:00},
+ * {@code -0300}). Os campos são lidos nas posições fixas de cada formato,
+ * em vez de passar cada célula por um DateTimeFormatter.
+ *
+ * Horários sem fuso são interpretados no fuso informado (por padrão, o da
+ * JVM, o mesmo usado pelo eixo de datas do JFreeChart), com as mesmas regras
+ * do java.time nas transições de horário de verão. O deslocamento do fuso é
+ * guardado junto com o intervalo entre transições em que ele vale, de modo
+ * que só é consultado de novo quando um valor cai fora desse intervalo.
+ *
+ * Uma instância guarda o resultado da última conversão e não é thread-safe.
+ */
+public final class TimestampParser {
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final ZoneRules rules;
+    private long value;
+
+    // Deslocamento por instante (UTC) e por horário local, com o intervalo em que cada um vale
+    private long offsetFrom = Long.MAX_VALUE;
+    private long offsetTo = Long.MIN_VALUE;
+    private long offsetMillis;
+    private long localFrom = Long.MAX_VALUE;
+    private long localTo = Long.MIN_VALUE;
+    private long localOffsetMillis;
+
+    public TimestampParser() {
+        this(ZoneId.systemDefault());
+    }
+
+    public TimestampParser(ZoneId zone) {
+        this.rules = zone.getRules();
+    }
+
+    /**
+     * Converte o texto inteiro
+     *
+     * @return true se o texto é uma data válida
+     */
+    public boolean parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Converte o trecho [start, end) do texto
+     *
+     * @return true se o trecho é uma data válida
+     */
+    public boolean parse(CharSequence text, int start, int end) {
+        if (end - start < 10) {
+            return false;
+        }
+
+        int year;
+        int month;
+        int day;
+        if (text.charAt(start + 2) == '/') {
+            if (text.charAt(start + 5) != '/') {
+                return false;
+            }
+            day = digits(text, start, 2);
+            month = digits(text, start + 3, 2);
+            year = digits(text, start + 6, 4);
+        } else {
+            char separator = text.charAt(start + 4);
+            if (separator != '-' && separator != '/' || text.charAt(start + 7) != separator) {
+                return false;
+            }
+            year = digits(text, start, 4);
+            month = digits(text, start + 5, 2);
+            day = digits(text, start + 8, 2);
+        }
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            return false;
+        }
+
+        long millis = 0;
+        int i = start + 10;
+        if (i < end) {
+            char c = text.charAt(i);
+            if (c != 'T' && c != ' ' || end - i < 6 || text.charAt(i + 3) != ':') {
+                return false;
+            }
+            int hour = digits(text, i + 1, 2);
+            int minute = digits(text, i + 4, 2);
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+                return false;
+            }
+            millis = hour * 3_600_000L + minute * 60_000L;
+            i += 6;
+
+            if (i < end && text.charAt(i) == ':') {
+                int second = end - i >= 3 ? digits(text, i + 1, 2) : -1;
+                if (second < 0 || second > 59) {
+                    return false;
+                }
+                millis += second * 1000L;
+                i += 3;
+
+                if (i < end && (text.charAt(i) == '.' || text.charAt(i) == ',')) {
+                    int fractionStart = ++i;
+                    int fraction = 0;
+                    while (i < end && (c = text.charAt(i)) >= '0' && c <= '9') {
+                        if (i - fractionStart < 3) {
+                            fraction = fraction * 10 + (c - '0');
+                        }
+                        i++;
+                    }
+                    int fractionDigits = i - fractionStart;
+                    if (fractionDigits == 0) {
+                        return false;
+                    }
+                    for (int d = fractionDigits; d < 3; d++) {
+                        fraction *= 10;
+                    }
+                    millis += fraction;
+                }
+            }
+        }
+
+        long local = epochDay(year, month, day) * MILLIS_PER_DAY + millis;
+        if (i == end) {
+            value = toEpochMillis(local);
+            return true;
+        }
+
+        // Fuso explícito
+        char c = text.charAt(i);
+        if (c == 'Z' && i + 1 == end) {
+            value = local;
+            return true;
+        }
+        if (c != '+' && c != '-' || end - i < 3) {
+            return false;
+        }
+        int offsetHours = digits(text, i + 1, 2);
+        int offsetMinutes = 0;
+        i += 3;
+        if (i < end && text.charAt(i) == ':') {
+            i++;
+        }
+        if (i < end) {
+            offsetMinutes = end - i == 2 ? digits(text, i, 2) : -1;
+        }
+        if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59) {
+            return false;
+        }
+        long offset = offsetHours * 3_600_000L + offsetMinutes * 60_000L;
+        value = c == '+' ? local - offset : local + offset;
+        return true;
+    }
+
+    /**
+     * Resultado da última conversão bem-sucedida, em milissegundos desde 1970 (UTC)
+     */
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * Início do intervalo que contém o instante, contado no horário local
+     * (um dia vai da meia-noite à meia-noite do fuso)
+     */
+    public long floor(long epochMillis, TimeBucket bucket) {
+        long local = epochMillis + offsetAt(epochMillis);
+        return toEpochMillis(local - Math.floorMod(local, bucket.getMillis()));
+    }
+
+    /**
+     * Converte um horário local, contado como se fosse UTC, no instante
+     * correspondente. Como no java.time, um horário repetido (fim do horário
+     * de verão) usa o deslocamento anterior à transição, e um horário que
+     * não existe (início) é adiantado pela duração do salto.
+     */
+    private long toEpochMillis(long local) {
+        if (local < localFrom || local >= localTo) {
+            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(local, 1000), 0, ZoneOffset.UTC);
+            ZoneOffsetTransition transition = rules.getTransition(dateTime);
+            if (transition != null && transition.isGap()) {
+                localOffsetMillis = transition.getOffsetBefore().getTotalSeconds() * 1000L;
+                localFrom = localMillis(transition.getDateTimeBefore());
+                localTo = localMillis(transition.getDateTimeAfter());
+            } else {
+                ZoneOffset offset = rules.getOffset(dateTime);
+                long millis = offset.getTotalSeconds() * 1000L;
+                Instant instant = dateTime.toInstant(offset);
+                ZoneOffsetTransition previous = rules.previousTransition(instant.plusMillis(1));
+                ZoneOffsetTransition next = rules.nextTransition(instant);
+                // Nas sobreposições vale o deslocamento anterior; nos saltos, o horário é adiantado
+                localOffsetMillis = millis;
+                localFrom = previous != null
+                        ? previous.toEpochSecond() * 1000
+                                + Math.max(millis, previous.getOffsetBefore().getTotalSeconds() * 1000L)
+                        : Long.MIN_VALUE;
+                localTo = next != null
+                        ? next.toEpochSecond() * 1000
+                                + Math.max(millis, next.getOffsetAfter().getTotalSeconds() * 1000L)
+                        : Long.MAX_VALUE;
+            }
+        }
+        return local - localOffsetMillis;
+    }
+
+    private static long localMillis(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1000;
+    }
+
+    /**
+     * Deslocamento do fuso no instante, em milissegundos
+     */
+    private long offsetAt(long epochMillis) {
+        if (epochMillis < offsetFrom || epochMillis >= offsetTo) {
+            Instant instant = Instant.ofEpochMilli(epochMillis);
+            offsetMillis = rules.getOffset(instant).getTotalSeconds() * 1000L;
+            ZoneOffsetTransition previous = rules.previousTransition(instant.plusMillis(1));
+            ZoneOffsetTransition next = rules.nextTransition(instant);
+            offsetFrom = previous != null ? previous.toEpochSecond() * 1000 : Long.MIN_VALUE;
+            offsetTo = next != null ? next.toEpochSecond() * 1000 : Long.MAX_VALUE;
+        }
+        return offsetMillis;
+    }
+
+    /**
+     * Lê um número de {@code count} dígitos a partir da posição
+     *
+     * @return O número, ou -1 se algum caractere não for dígito
+     */
+    private static int digits(CharSequence text, int start, int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * Dias desde 1970-01-01 no calendário gregoriano
+     */
+    private static long epochDay(int year, int month, int day) {
+        // Ano começando em março, para que o dia bissexto fique no fim
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468;
+    }
+}
@@ -0,0 +1,61 @@
+package com.csvcharts.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contagem de valores rejeitados durante a leitura, com os primeiros exemplos
+ *
+ * Em vez de uma mensagem de log por célula, o que num arquivo sujo faria a
+ * leitura gastar a maior parte do tempo escrevendo log, os valores são só
+ * contados e os primeiros textos distintos são guardados para o resumo
+ * ("12345 valores não numéricos; exemplos: 'n/a', '-'"). Depois de
+ * {@link #MAX_SAMPLES} exemplos, cada valor custa um incremento.
+ */
+final class ValueSamples {
+    static final int MAX_SAMPLES = 5;
+
+    private final List<String> samples = new ArrayList<>(MAX_SAMPLES);
+    private long count;
+
+    void add(String value) {
+        count++;
+        if (samples.size() < MAX_SAMPLES && !samples.contains(value)) {
+            samples.add(value);
+        }
+    }
+
+    /**
+     * Conta o campo do registro; o texto só vira String se for um exemplo novo
+     */
+    void add(CSVRecord record, int field) {
+        count++;
+        if (samples.size() < MAX_SAMPLES) {
+            for (String sample : samples) {
+                if (record.contentEquals(field, sample)) {
+                    return;
+                }
+            }
+            samples.add(record.getString(field));
+        }
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * Os exemplos entre aspas e separados por vírgula
+     */
+    String describeSamples() {
+        return describe(samples);
+    }
+
+    static String describe(List<String> samples) {
+        StringBuilder text = new StringBuilder();
+        for (String sample : samples) {
+            text.append(text.length() > 0 ? ", " : "").append('\'').append(sample).append('\'');
+        }
+        return text.toString();
+    }
+}
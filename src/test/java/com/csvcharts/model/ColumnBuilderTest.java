@@ -0,0 +1,125 @@
+package com.csvcharts.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnBuilderTest {
+
+    @Test
+    void numbersStayNumericAndKeepTheirText() {
+        Column column = build("1", "-2", "1.0", "1.50", "+3", "", null, "0.805");
+
+        NumericColumn numeric = assertInstanceOf(NumericColumn.class, column);
+        assertEquals(ColumnType.NUMERIC, column.getType());
+        assertEquals(8, column.size());
+        assertEquals(-2, column.getDouble(1));
+        assertEquals(1.5, column.getDouble(3));
+        assertTrue(Double.isNaN(column.getDouble(5)));
+        assertEquals("1.0", column.getString(2));
+        assertEquals("1.50", column.getString(3));
+        assertEquals("+3", column.getString(4));
+        assertEquals("", column.getString(5));
+        assertNull(column.getString(6));
+        assertEquals(0, numeric.getRejectedCount());
+    }
+
+    @Test
+    void canonicalNumbersDoNotStoreText() {
+        String[] values = new String[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 2 == 0 ? Integer.toString(-i) : (i + 0.25) + "";
+        }
+        NumericColumn column = (NumericColumn) build(values);
+
+        assertEquals(0, column.exceptionCount());
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], column.getString(i));
+        }
+    }
+
+    @Test
+    void fewDirtyValuesKeepTheColumnNumeric() {
+        String[] values = new String[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 20 == 0 ? "N/A" : Integer.toString(i);
+        }
+        NumericColumn column = assertInstanceOf(NumericColumn.class, build(values));
+
+        assertEquals(50, column.getRejectedCount());
+        assertEquals("N/A", column.getString(0));
+        assertTrue(Double.isNaN(column.getDouble(0)));
+        assertEquals(21, column.getDouble(21));
+    }
+
+    @Test
+    void mostlyTextSwitchesToDictionaryWithoutLoss() {
+        String[] values = new String[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 2 == 0 ? "Cidade " + (i % 7) : i % 3 == 0 ? "1.50" : Integer.toString(i);
+        }
+        Column column = build(values);
+
+        StringColumn strings = assertInstanceOf(StringColumn.class, column);
+        assertEquals(ColumnType.STRING, column.getType());
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], column.getString(i));
+        }
+        assertTrue(strings.getDictionarySize() < values.length);
+    }
+
+    @Test
+    void shortTextColumnIsText() {
+        Column column = build("São Paulo", "Rio de Janeiro", "", "Brasília");
+
+        assertInstanceOf(StringColumn.class, column);
+        assertEquals(ColumnType.STRING, column.getType());
+        assertEquals("Rio de Janeiro", column.getString(1));
+    }
+
+    @Test
+    void shortNumericColumnWithOneDirtyValueStaysNumeric() {
+        NumericColumn column = assertInstanceOf(NumericColumn.class, build("1", "2", "N/A", "4", "5"));
+
+        assertEquals(1, column.getRejectedCount());
+        assertEquals("N/A", column.getString(2));
+    }
+
+    @Test
+    void streamingSwitchWaitsForEnoughRejections() {
+        ColumnBuilder builder = new ColumnBuilder("Cidade");
+        for (int i = 0; i < 64; i++) {
+            builder.append("Cidade " + i);
+        }
+        // Sem a troca antecipada, os números seguintes deixam os textos em minoria
+        for (int i = 0; i < 1000; i++) {
+            builder.append(Integer.toString(i));
+        }
+        assertInstanceOf(NumericColumn.class, builder.build());
+    }
+
+    @Test
+    void mergesParts() {
+        ColumnBuilder merged = new ColumnBuilder("Valor");
+        merged.appendColumn(build("1", "2.50"));
+        merged.appendColumn(build("3", ""));
+        Column column = merged.build();
+
+        assertInstanceOf(NumericColumn.class, column);
+        assertEquals(4, column.size());
+        assertEquals("2.50", column.getString(1));
+        assertEquals(3, column.getDouble(2));
+        assertEquals("", column.getString(3));
+    }
+
+    private static Column build(String... values) {
+        ColumnBuilder builder = new ColumnBuilder("Valor");
+        for (String value : values) {
+            builder.append(value);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.csvcharts.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CSVByteTokenizerTest {
+    private final CSVByteTokenizer tokenizer = new CSVByteTokenizer();
+
+    @Test
+    void splitsRecordsAndTrimsFields() {
+        ByteBuffer buffer = bytes("Cidade, Valor \r\nSão Paulo,12\n");
+
+        int next = tokenizer.nextRecord(buffer, 0, buffer.limit());
+        assertTrue(tokenizer.isComplete());
+        assertFields("Cidade", "Valor");
+
+        assertEquals(buffer.limit(), tokenizer.nextRecord(buffer, next, buffer.limit()));
+        assertTrue(tokenizer.isComplete());
+        assertFields("São Paulo", "12");
+    }
+
+    @Test
+    void quotedFieldsKeepSeparatorsQuotesAndLineBreaks() {
+        ByteBuffer buffer = bytes("1,\"a, \"\"b\"\"\r\nc\",2\n");
+
+        tokenizer.nextRecord(buffer, 0, buffer.limit());
+        assertTrue(tokenizer.isComplete());
+        assertFields("1", "a, \"b\"\nc", "2");
+    }
+
+    @Test
+    void quoteInsideUnquotedFieldIsLiteral() {
+        ByteBuffer buffer = bytes("1,TV 5\" tela,2\n");
+
+        tokenizer.nextRecord(buffer, 0, buffer.limit());
+        assertFalse(tokenizer.hasUnterminatedQuote());
+        assertFields("1", "TV 5\" tela", "2");
+    }
+
+    @Test
+    void recordWithoutLineBreakIsIncomplete() {
+        ByteBuffer buffer = bytes("1,2");
+
+        assertEquals(3, tokenizer.nextRecord(buffer, 0, buffer.limit()));
+        assertFalse(tokenizer.isComplete());
+        assertFields("1", "2");
+    }
+
+    @Test
+    void reportsUnterminatedQuote() {
+        ByteBuffer buffer = bytes("1,\"aberto\n2,3\n");
+
+        assertEquals(buffer.limit(), tokenizer.nextRecord(buffer, 0, buffer.limit()));
+        assertTrue(tokenizer.hasUnterminatedQuote());
+        assertFalse(tokenizer.isComplete());
+    }
+
+    @Test
+    void emptyFields() {
+        ByteBuffer buffer = bytes(",\"\",  \n");
+
+        tokenizer.nextRecord(buffer, 0, buffer.limit());
+        assertEquals(3, tokenizer.getFieldCount());
+        for (int field = 0; field < 3; field++) {
+            assertTrue(tokenizer.isEmpty(field));
+        }
+    }
+
+    private void assertFields(String... expected) {
+        assertEquals(expected.length, tokenizer.getFieldCount());
+        for (int field = 0; field < expected.length; field++) {
+            assertEquals(expected[field], tokenizer.getString(field));
+        }
+    }
+
+    private static ByteBuffer bytes(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
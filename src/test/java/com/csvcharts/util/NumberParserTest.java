@@ -0,0 +1,61 @@
+package com.csvcharts.util;
+
+import com.csvcharts.model.NumericColumn;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NumberParserTest {
+    private final NumberParser parser = new NumberParser();
+
+    @Test
+    void parsesIntegersAndDecimals() {
+        assertValue("42", 42);
+        assertValue("-7", -7);
+        assertValue("+3", 3);
+        assertValue("0.805", 0.805);
+        assertValue(".5", 0.5);
+        assertValue("5.", 5);
+        assertValue("1e3", 1000);
+        assertValue("2.5E-2", 0.025);
+        assertValue("12345678901234567890", 12345678901234567890.0);
+    }
+
+    @Test
+    void rejectsNonNumbers() {
+        for (String text : new String[] {"", "-", "+", ".", "abc", "1,5", "1.2.3", "1e", "1e+", " 1", "N/A"}) {
+            assertFalse(parser.parse(text), text);
+            assertTrue(Double.isNaN(parser.getValue()), text);
+        }
+    }
+
+    @Test
+    void parsesRange() {
+        assertTrue(parser.parse("x=-12.5;", 2, 7));
+        assertEquals(-12.5, parser.getValue());
+    }
+
+    @Test
+    void canonicalTextMatchesColumnFormat() {
+        for (String text : new String[] {"0", "1", "-1", "42", "-42", "0.5", "-0.5", "0.805", "-3.25", "123456.75"}) {
+            assertTrue(parser.parse(text), text);
+            assertTrue(parser.isCanonical(), text);
+            assertEquals(text, NumericColumn.format(parser.getValue()));
+        }
+    }
+
+    @Test
+    void nonCanonicalTextIsFlagged() {
+        for (String text : new String[] {"+3", "1.0", "1.50", "-0", "007", "1e3", ".5", "5.", "0.0001", "12345678.5"}) {
+            assertTrue(parser.parse(text), text);
+            assertFalse(parser.isCanonical(), text);
+        }
+    }
+
+    private void assertValue(String text, double expected) {
+        assertTrue(parser.parse(text), text);
+        assertEquals(expected, parser.getValue(), text);
+    }
+}
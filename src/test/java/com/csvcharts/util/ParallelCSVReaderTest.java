@@ -0,0 +1,116 @@
+package com.csvcharts.util;
+
+import com.csvcharts.model.CSVData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ParallelCSVReaderTest {
+    private static final int ROWS = 200_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void quotedLineBreaksAcrossChunks() throws Exception {
+        Path file = write("multilinha.csv", "Id,Nota,Valor", i -> i % 5 == 0
+                ? i + ",\"linha a\nlinha \"\"b\"\", " + i + "\"," + i
+                : i + ",simples," + i);
+
+        CSVData data = new ParallelCSVReader(4).read(file);
+
+        assertNotNull(data);
+        assertSameData(readSequentially(file), data);
+    }
+
+    @Test
+    void literalQuotesStillLandOnRecordStarts() throws Exception {
+        Path file = write("aspas.csv", "Id,Produto,Valor", i -> i % 7 == 0
+                ? i + ",TV " + i % 90 + "\" tela," + i
+                : i + ",Item " + i + "," + i);
+
+        CSVData data = new ParallelCSVReader(4).read(file);
+
+        assertNotNull(data);
+        assertSameData(readSequentially(file), data);
+    }
+
+    @Test
+    void misalignedChunksAreRejected() throws Exception {
+        // A aspa literal da primeira linha inverte a paridade usada para achar os limites das faixas
+        Path file = write("desalinhado.csv", "Id,Nota,Valor", i -> i == 0
+                ? "0,TV 5\" tela,0"
+                : i % 3 == 0 ? i + ",\"linha a\nlinha b " + i + "\"," + i : i + ",simples," + i);
+
+        assertNull(new ParallelCSVReader(4).read(file));
+
+        CSVFileReader reader = new CSVFileReader();
+        reader.setParallelism(4);
+        reader.setParallelThreshold(0);
+        assertSameData(readSequentially(file), reader.readCSV(file.toString()));
+    }
+
+    @Test
+    void singleLiteralQuoteFallsBackInsteadOfOneHugeRange() throws Exception {
+        // Sem outras aspas depois, o alinhamento de todos os limites correria até o fim do arquivo
+        Path file = write("uma-aspa.csv", "Id,Produto,Valor", i -> i == 10
+                ? i + ",TV 5\" tela," + i
+                : i + ",Item " + i + "," + i);
+
+        assertNull(new ParallelCSVReader(4).read(file));
+
+        CSVFileReader reader = new CSVFileReader();
+        reader.setParallelism(4);
+        reader.setParallelThreshold(0);
+        assertSameData(readSequentially(file), reader.readCSV(file.toString()));
+    }
+
+    @Test
+    void projectionKeepsOnlySelectedColumns() throws Exception {
+        Path file = write("projecao.csv", "Id,Nome,Valor", i -> i + ",Nome " + i % 10 + "," + i * 0.5);
+
+        CSVData data = new ParallelCSVReader(4).read(file, List.of("Valor"));
+
+        assertNotNull(data);
+        assertEquals(List.of("Valor"), data.getHeaders());
+        assertEquals(ROWS, data.getRowCount());
+        assertEquals("99999.5", data.getValue(ROWS - 1, "Valor"));
+    }
+
+    private Path write(String name, String header, IntFunction<String> row) throws IOException {
+        Path file = directory.resolve(name);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(header);
+            writer.write('\n');
+            for (int i = 0; i < ROWS; i++) {
+                writer.write(row.apply(i));
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+
+    private static CSVData readSequentially(Path file) throws Exception {
+        return new CSVFileReader().readCSV(file.toString());
+    }
+
+    private static void assertSameData(CSVData expected, CSVData actual) {
+        assertEquals(expected.getHeaders(), actual.getHeaders());
+        assertEquals(ROWS, expected.getRowCount());
+        assertEquals(expected.getRowCount(), actual.getRowCount());
+        for (String header : expected.getHeaders()) {
+            assertEquals(expected.getColumnValues(header), actual.getColumnValues(header), header);
+        }
+    }
+}
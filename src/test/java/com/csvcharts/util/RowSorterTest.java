@@ -0,0 +1,91 @@
+package com.csvcharts.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowSorterTest {
+    /** Menor buffer do RowSorter, em linhas */
+    private static final int BUFFER_ROWS = 1 << 16;
+
+    @Test
+    void sortsInMemory() {
+        try (RowSorter sorter = new RowSorter(2, 1 << 20)) {
+            add(sorter, 1000);
+
+            assertEquals(0, sorter.getRunCount());
+            assertSortedAndStable(sorter, 1000);
+        }
+    }
+
+    @Test
+    void spillsAndMergesRuns() {
+        int rows = 5 * BUFFER_ROWS + 123;
+        try (RowSorter sorter = new RowSorter(2, 0)) {
+            add(sorter, rows);
+
+            assertEquals(5, sorter.getRunCount());
+            assertEquals(rows, sorter.size());
+            assertSortedAndStable(sorter, rows);
+        }
+    }
+
+    @Test
+    void mergesRunsInStepsWhenThereAreTooManyToOpen() {
+        int rows = 70 * BUFFER_ROWS + 1;
+        try (RowSorter sorter = new RowSorter(2, 0)) {
+            add(sorter, rows);
+
+            assertEquals(70, sorter.getRunCount());
+            assertSortedAndStable(sorter, rows);
+        }
+    }
+
+    @Test
+    void sortsAgainAfterMoreRows() {
+        try (RowSorter sorter = new RowSorter(2, 0)) {
+            add(sorter, BUFFER_ROWS + 10);
+            assertSortedAndStable(sorter, BUFFER_ROWS + 10);
+
+            for (int i = BUFFER_ROWS + 10; i < 3 * BUFFER_ROWS; i++) {
+                sorter.add(x(i), new double[] {i, -i});
+            }
+            assertSortedAndStable(sorter, 3 * BUFFER_ROWS);
+        }
+    }
+
+    /**
+     * Linhas com X repetidos (inclusive negativos e zero) e a ordem de chegada como valor
+     */
+    private static void add(RowSorter sorter, int rows) {
+        for (int i = 0; i < rows; i++) {
+            sorter.add(x(i), new double[] {i, -i});
+        }
+    }
+
+    private static double x(int i) {
+        return (i * 7919L % 2001 - 1000) / 4.0;
+    }
+
+    private static void assertSortedAndStable(RowSorter sorter, int rows) {
+        BitSet seen = new BitSet(rows);
+        double[] previous = {Double.NEGATIVE_INFINITY, -1};
+        int[] count = {0};
+        sorter.forEachSorted((x, values) -> {
+            int index = (int) values[0];
+            assertEquals(x(index), x);
+            assertEquals(-index, values[1]);
+            assertTrue(x > previous[0] || x == previous[0] && index > previous[1],
+                    "Fora de ordem na linha " + index);
+            seen.set(index);
+            previous[0] = x;
+            previous[1] = index;
+            count[0]++;
+        });
+        assertEquals(rows, count[0]);
+        assertEquals(rows, seen.cardinality());
+    }
+}